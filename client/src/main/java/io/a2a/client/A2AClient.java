@@ -3,6 +3,7 @@ package io.a2a.client;
 import static io.a2a.util.Assert.checkNotNullParam;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
@@ -29,12 +30,18 @@ import io.a2a.spec.GetTaskPushNotificationConfigRequest;
 import io.a2a.spec.GetTaskPushNotificationConfigResponse;
 import io.a2a.spec.GetTaskRequest;
 import io.a2a.spec.GetTaskResponse;
+import io.a2a.spec.GetTasksParams;
+import io.a2a.spec.GetTasksRequest;
+import io.a2a.spec.GetTasksResponse;
 import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.JSONRPCMessage;
 import io.a2a.spec.JSONRPCResponse;
 import io.a2a.spec.ListTaskPushNotificationConfigParams;
 import io.a2a.spec.ListTaskPushNotificationConfigRequest;
 import io.a2a.spec.ListTaskPushNotificationConfigResponse;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksRequest;
+import io.a2a.spec.ListTasksResponse;
 import io.a2a.spec.MessageSendParams;
 import io.a2a.spec.PushNotificationConfig;
 import io.a2a.spec.SendMessageRequest;
@@ -61,6 +68,8 @@ public class A2AClient {
     private static final TypeReference<SetTaskPushNotificationConfigResponse> SET_TASK_PUSH_NOTIFICATION_CONFIG_RESPONSE_REFERENCE = new TypeReference<>() {};
     private static final TypeReference<ListTaskPushNotificationConfigResponse> LIST_TASK_PUSH_NOTIFICATION_CONFIG_RESPONSE_REFERENCE = new TypeReference<>() {};
     private static final TypeReference<DeleteTaskPushNotificationConfigResponse> DELETE_TASK_PUSH_NOTIFICATION_CONFIG_RESPONSE_REFERENCE = new TypeReference<>() {};
+    private static final TypeReference<GetTasksResponse> GET_TASKS_RESPONSE_REFERENCE = new TypeReference<>() {};
+    private static final TypeReference<ListTasksResponse> LIST_TASKS_RESPONSE_REFERENCE = new TypeReference<>() {};
     private final A2AHttpClient httpClient;
     private final String agentUrl;
     private AgentCard agentCard;
@@ -229,6 +238,97 @@ public class A2AClient {
         }
     }
 
+    /**
+     * Retrieve several tasks from the A2A server in a single request. The tasks which
+     * are not found are left out of the response.
+     *
+     * @param ids the task IDs
+     * @return the response containing the tasks which were found, in the order of the IDs
+     * @throws A2AServerException if retrieving the tasks fails for any reason
+     */
+    public GetTasksResponse getTasks(List<String> ids) throws A2AServerException {
+        return getTasks(null, new GetTasksParams(ids));
+    }
+
+    /**
+     * Retrieve several tasks from the A2A server in a single request. The tasks which
+     * are not found are left out of the response.
+     *
+     * @param getTasksParams the params for the tasks to be queried
+     * @return the response containing the tasks which were found, in the order of the IDs
+     * @throws A2AServerException if retrieving the tasks fails for any reason
+     */
+    public GetTasksResponse getTasks(GetTasksParams getTasksParams) throws A2AServerException {
+        return getTasks(null, getTasksParams);
+    }
+
+    /**
+     * Retrieve several tasks from the A2A server in a single request.
+     *
+     * @param requestId the request ID to use
+     * @param getTasksParams the params for the tasks to be queried
+     * @return the response containing the tasks which were found, in the order of the IDs
+     * @throws A2AServerException if retrieving the tasks fails for any reason
+     */
+    public GetTasksResponse getTasks(String requestId, GetTasksParams getTasksParams) throws A2AServerException {
+        GetTasksRequest.Builder getTasksRequestBuilder = new GetTasksRequest.Builder()
+                .jsonrpc(JSONRPCMessage.JSONRPC_VERSION)
+                .method(GetTasksRequest.METHOD)
+                .params(getTasksParams);
+
+        if (requestId != null) {
+            getTasksRequestBuilder.id(requestId);
+        }
+
+        GetTasksRequest getTasksRequest = getTasksRequestBuilder.build();
+
+        try {
+            String httpResponseBody = sendPostRequest(getTasksRequest);
+            return unmarshalResponse(httpResponseBody, GET_TASKS_RESPONSE_REFERENCE);
+        } catch (IOException | InterruptedException e) {
+            throw new A2AServerException("Failed to get tasks: " + e, e.getCause());
+        }
+    }
+
+    /**
+     * List the tasks matching the given criteria, one page at a time.
+     *
+     * @param listTasksParams the criteria and the page to list
+     * @return the response containing the page of tasks
+     * @throws A2AServerException if listing the tasks fails for any reason
+     */
+    public ListTasksResponse listTasks(ListTasksParams listTasksParams) throws A2AServerException {
+        return listTasks(null, listTasksParams);
+    }
+
+    /**
+     * List the tasks matching the given criteria, one page at a time.
+     *
+     * @param requestId the request ID to use
+     * @param listTasksParams the criteria and the page to list
+     * @return the response containing the page of tasks
+     * @throws A2AServerException if listing the tasks fails for any reason
+     */
+    public ListTasksResponse listTasks(String requestId, ListTasksParams listTasksParams) throws A2AServerException {
+        ListTasksRequest.Builder listTasksRequestBuilder = new ListTasksRequest.Builder()
+                .jsonrpc(JSONRPCMessage.JSONRPC_VERSION)
+                .method(ListTasksRequest.METHOD)
+                .params(listTasksParams);
+
+        if (requestId != null) {
+            listTasksRequestBuilder.id(requestId);
+        }
+
+        ListTasksRequest listTasksRequest = listTasksRequestBuilder.build();
+
+        try {
+            String httpResponseBody = sendPostRequest(listTasksRequest);
+            return unmarshalResponse(httpResponseBody, LIST_TASKS_RESPONSE_REFERENCE);
+        } catch (IOException | InterruptedException e) {
+            throw new A2AServerException("Failed to list tasks: " + e, e.getCause());
+        }
+    }
+
     /**
      * Cancel a task that was previously submitted to the A2A server.
      *
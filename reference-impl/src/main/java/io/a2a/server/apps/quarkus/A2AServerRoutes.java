@@ -24,6 +24,7 @@ import io.a2a.server.ExtendedAgentCard;
 import io.a2a.server.ServerCallContext;
 import io.a2a.server.auth.UnauthenticatedUser;
 import io.a2a.server.auth.User;
+import io.a2a.server.events.EventSequences;
 import io.a2a.server.requesthandlers.JSONRPCHandler;
 import io.a2a.server.util.async.Internal;
 import io.a2a.spec.AgentCard;
@@ -31,6 +32,7 @@ import io.a2a.spec.CancelTaskRequest;
 import io.a2a.spec.DeleteTaskPushNotificationConfigRequest;
 import io.a2a.spec.GetTaskPushNotificationConfigRequest;
 import io.a2a.spec.GetTaskRequest;
+import io.a2a.spec.GetTasksRequest;
 import io.a2a.spec.IdJsonMappingException;
 import io.a2a.spec.InternalError;
 import io.a2a.spec.InvalidParamsError;
@@ -43,11 +45,13 @@ import io.a2a.spec.JSONRPCErrorResponse;
 import io.a2a.spec.JSONRPCRequest;
 import io.a2a.spec.JSONRPCResponse;
 import io.a2a.spec.ListTaskPushNotificationConfigRequest;
+import io.a2a.spec.ListTasksRequest;
 import io.a2a.spec.MethodNotFoundError;
 import io.a2a.spec.MethodNotFoundJsonMappingException;
 import io.a2a.spec.NonStreamingJSONRPCRequest;
 import io.a2a.spec.SendMessageRequest;
 import io.a2a.spec.SendStreamingMessageRequest;
+import io.a2a.spec.SendStreamingMessageResponse;
 import io.a2a.spec.SetTaskPushNotificationConfigRequest;
 import io.a2a.spec.StreamingJSONRPCRequest;
 import io.a2a.spec.TaskResubscriptionRequest;
@@ -69,6 +73,8 @@ import io.vertx.ext.web.RoutingContext;
 @Singleton
 public class A2AServerRoutes {
 
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
     @Inject
     JSONRPCHandler jsonRpcHandler;
 
@@ -91,6 +97,7 @@ public class A2AServerRoutes {
     public void invokeJSONRPCHandler(@Body String body, RoutingContext rc) {
         boolean streaming = false;
         ServerCallContext context = createCallContext(rc);
+        setLastEventId(rc, context.getEventSequences());
         JSONRPCResponse<?> nonStreamingResponse = null;
         Multi<? extends JSONRPCResponse<?>> streamingResponse = null;
         JSONRPCErrorResponse error = null;
@@ -118,7 +125,7 @@ public class A2AServerRoutes {
                 final Multi<? extends JSONRPCResponse<?>> finalStreamingResponse = streamingResponse;
                 executor.execute(() -> {
                         MultiSseSupport.subscribeObject(
-                                finalStreamingResponse.map(i -> (Object)i), rc);
+                                finalStreamingResponse.map(i -> (Object)i), rc, context.getEventSequences());
                 });
 
             } else {
@@ -130,6 +137,17 @@ public class A2AServerRoutes {
         }
     }
 
+    private static void setLastEventId(RoutingContext rc, EventSequences sequences) {
+        String lastEventId = rc.request().getHeader(LAST_EVENT_ID);
+        if (lastEventId != null) {
+            try {
+                sequences.setLastEventId(Long.parseLong(lastEventId.trim()));
+            } catch (NumberFormatException e) {
+                // Not an id we generated, so there is nothing to resume from
+            }
+        }
+    }
+
     private JSONRPCErrorResponse handleError(JsonProcessingException exception) {
         Object id = null;
         JSONRPCError jsonRpcError = null;
@@ -197,6 +215,8 @@ public class A2AServerRoutes {
             NonStreamingJSONRPCRequest<?> request, ServerCallContext context) {
         if (request instanceof GetTaskRequest req) {
             return jsonRpcHandler.onGetTask(req, context);
+        } else if (request instanceof GetTasksRequest req) {
+            return jsonRpcHandler.onGetTasks(req, context);
         } else if (request instanceof CancelTaskRequest req) {
             return jsonRpcHandler.onCancelTask(req, context);
         } else if (request instanceof SetTaskPushNotificationConfigRequest req) {
@@ -209,6 +229,8 @@ public class A2AServerRoutes {
             return jsonRpcHandler.listPushNotificationConfig(req, context);
         } else if (request instanceof DeleteTaskPushNotificationConfigRequest req) {
             return jsonRpcHandler.deletePushNotificationConfig(req, context);
+        } else if (request instanceof ListTasksRequest req) {
+            return jsonRpcHandler.onListTasks(req, context);
         } else {
             return generateErrorResponse(request, new UnsupportedOperationError());
         }
@@ -347,7 +369,7 @@ public class A2AServerRoutes {
             });
         }
 
-        public static void subscribeObject(Multi<Object> multi, RoutingContext rc) {
+        public static void subscribeObject(Multi<Object> multi, RoutingContext rc, EventSequences sequences) {
             AtomicLong count = new AtomicLong();
             write(multi.map(new Function<Object, Buffer>() {
                 @Override
@@ -357,6 +379,13 @@ public class A2AServerRoutes {
                         long id = ev.id() != -1 ? ev.id() : count.getAndIncrement();
                         String e = ev.event() == null ? "" : "event: " + ev.event() + "\n";
                         return Buffer.buffer(e + "data: " + Json.encodeToBuffer(ev.data()) + "\nid: " + id + "\n\n");
+                    } else if (o instanceof SendStreamingMessageResponse response) {
+                        // Use the sequence of the event in the task's event log as the id, so that a client
+                        // reconnecting with Last-Event-ID resumes after it. Events which are not part of the
+                        // log, e.g. errors, get no id.
+                        long sequence = response.getResult() == null ? -1 : sequences.remove(response.getResult());
+                        String id = sequence < 0 ? "" : "id: " + sequence + "\n";
+                        return Buffer.buffer("data: " + Json.encodeToBuffer(o) + "\n" + id + "\n");
                     } else {
                         return Buffer.buffer("data: " + Json.encodeToBuffer(o) + "\nid: " + count.getAndIncrement() + "\n\n");
                     }
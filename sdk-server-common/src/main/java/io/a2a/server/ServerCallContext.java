@@ -4,12 +4,14 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import io.a2a.server.auth.User;
+import io.a2a.server.events.EventSequences;
 
 public class ServerCallContext {
     // TODO Not totally sure yet about these field types
     private final Map<Object, Object> modelConfig = new ConcurrentHashMap<>();
     private final Map<String, Object> state;
     private final User user;
+    private final EventSequences eventSequences = new EventSequences();
 
     public ServerCallContext(User user, Map<String, Object> state) {
         this.user = user;
@@ -23,4 +25,8 @@ public class ServerCallContext {
     public User getUser() {
         return user;
     }
+
+    public EventSequences getEventSequences() {
+        return eventSequences;
+    }
 }
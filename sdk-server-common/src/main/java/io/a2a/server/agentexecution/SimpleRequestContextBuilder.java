@@ -20,13 +20,7 @@ public class SimpleRequestContextBuilder extends RequestContext.Builder {
         List<Task> relatedTasks = null;
         if (taskStore != null && shouldPopulateReferredTasks && getParams() != null
                 && getParams().message().getReferenceTaskIds() != null) {
-            relatedTasks = new ArrayList<>();
-            for (String taskId : getParams().message().getReferenceTaskIds()) {
-                Task task = taskStore.get(taskId);
-                if (task != null) {
-                    relatedTasks.add(task);
-                }
-            }
+            relatedTasks = new ArrayList<>(taskStore.getAll(getParams().message().getReferenceTaskIds()));
         }
 
         super.setRelatedTasks(relatedTasks);
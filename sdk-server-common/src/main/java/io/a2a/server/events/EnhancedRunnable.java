@@ -7,6 +7,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public abstract class EnhancedRunnable implements Runnable {
     private volatile Throwable error;
     private final List<DoneCallback> doneCallbacks = new CopyOnWriteArrayList<>();
+    private boolean done;
 
     public Throwable getError() {
         return error;
@@ -16,11 +17,27 @@ public abstract class EnhancedRunnable implements Runnable {
         this.error = error;
     }
 
+    /**
+     * Adds a callback to run once this runnable is done. If it is already done, the callback is run immediately,
+     * so callers do not need to make sure they register before the runnable finishes.
+     */
     public void addDoneCallback(DoneCallback doneCallback) {
-        doneCallbacks.add(doneCallback);
+        if (doneCallback == null) {
+            return;
+        }
+        synchronized (this) {
+            if (!done) {
+                doneCallbacks.add(doneCallback);
+                return;
+            }
+        }
+        doneCallback.done(this);
     }
 
     public void invokeDoneCallbacks() {
+        synchronized (this) {
+            done = true;
+        }
         for (DoneCallback doneCallback : doneCallbacks) {
             doneCallback.done(this);
         }
@@ -0,0 +1,96 @@
+package io.a2a.server.events;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import io.a2a.spec.Event;
+import io.a2a.spec.TaskStatusUpdateEvent;
+
+/**
+ * Storage backing a single {@link EventQueue}.
+ * <p>
+ * Calling {@link #offer(Event)} on a buffer publishes the event to that buffer and to every buffer
+ * obtained from it via {@link #tap()}. The buffers of the built-in backends are readers of a shared {@link EventLog}.
+ */
+interface EventBuffer {
+
+    /**
+     * Publishes the event, applying the configured {@link EventQueueOverflowPolicy} if a reader is at capacity.
+     *
+     * @return {@code false} if the policy did not allow the event to be published
+     */
+    boolean offer(Event event) throws InterruptedException;
+
+    Event poll();
+
+    Event poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Moves up to {@code maxEvents} available events to the collection without waiting.
+     *
+     * @return the number of events moved
+     */
+    int drainTo(Collection<? super Event> events, int maxEvents);
+
+    boolean isEmpty();
+
+    /**
+     * @return the sequence in the event log of the event last returned by {@code poll}, or -1 if none was
+     */
+    long lastSequence();
+
+    /**
+     * @return the sequence the next published event will get
+     */
+    long nextSequence();
+
+    /**
+     * @return the number of published events which have not been read by every buffer sharing the events
+     */
+    long pendingEvents();
+
+    EventBuffer tap();
+
+    /**
+     * @return a tap which starts with the retained events from the given sequence on
+     */
+    EventBuffer tap(long fromSequence);
+
+    /**
+     * @return whether this tap was asked to start from a sequence which is no longer retained, so it does not get
+     * every event from there on
+     */
+    boolean missedEvents();
+
+    /**
+     * Registers the callback run on the producer thread when this tap falls more than
+     * {@link EventQueueConfig#maxSubscriberLag()} events behind. The callback must call {@link #detach()} or
+     * {@link #skipUnread()}; without a callback the tap is detached.
+     */
+    void onLagging(Runnable callback);
+
+    /**
+     * Stops reading events. A detached buffer is always empty and no longer counts for the capacity.
+     */
+    void detach();
+
+    /**
+     * Signals that nothing more will be published to the buffers sharing the events. Their readers can still read
+     * the events they have not read yet.
+     */
+    void close();
+
+    /**
+     * Signals that no new buffers will be tapped, so the retained events can be dropped.
+     */
+    void discard();
+
+    /**
+     * Moves past every unread event.
+     */
+    void skipUnread();
+
+    static boolean isCoalescable(Event event) {
+        return event instanceof TaskStatusUpdateEvent statusUpdate && !statusUpdate.isFinal();
+    }
+}
@@ -1,26 +1,77 @@
 package io.a2a.server.events;
 
+import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.a2a.server.util.async.StreamConfig;
+import io.a2a.server.util.async.StreamMetrics;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Event;
 import io.a2a.spec.Message;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskStatusUpdateEvent;
-import mutiny.zero.BackpressureStrategy;
+import io.a2a.util.Assert;
+import mutiny.zero.Tube;
 import mutiny.zero.TubeConfiguration;
 import mutiny.zero.ZeroPublisher;
 
 public class EventConsumer {
     private final EventQueue queue;
-    private Throwable error;
+    private final EventSequences sequences;
+    private final StreamConfig streamConfig;
+    private final StreamMetrics streamMetrics;
+    private volatile Throwable error;
+    private final List<QueueDrain> drains = new CopyOnWriteArrayList<>();
 
     private static final String ERROR_MSG = "Agent did not return any response";
     private static final int NO_WAIT = -1;
-    private static final int QUEUE_WAIT_MILLISECONDS = 500;
 
     public EventConsumer(EventQueue queue) {
+        this(queue, null);
+    }
+
+    /**
+     * @param sequences where to record the sequence of each event emitted by {@link #consumeAll()}, may be null
+     */
+    public EventConsumer(EventQueue queue, EventSequences sequences) {
+        this(queue, sequences, StreamConfig.DEFAULT);
+    }
+
+    /**
+     * @param sequences where to record the sequence of each event emitted by {@link #consumeAll()}, may be null
+     * @param streamConfig the sizing of the stream returned by {@link #consumeAll()}
+     */
+    public EventConsumer(EventQueue queue, EventSequences sequences, StreamConfig streamConfig) {
+        this(queue, sequences, streamConfig, new StreamMetrics());
+    }
+
+    /**
+     * @param sequences where to record the sequence of each event emitted by {@link #consumeAll()}, may be null
+     * @param streamConfig the sizing of the stream returned by {@link #consumeAll()}
+     * @param streamMetrics where the stream records its occupancy
+     */
+    public EventConsumer(EventQueue queue, EventSequences sequences, StreamConfig streamConfig,
+                         StreamMetrics streamMetrics) {
+        Assert.checkNotNullParam("streamConfig", streamConfig);
+        Assert.checkNotNullParam("streamMetrics", streamMetrics);
         this.queue = queue;
+        this.sequences = sequences;
+        this.streamConfig = streamConfig;
+        this.streamMetrics = streamMetrics;
+    }
+
+    /**
+     * @return whether the consumer reads a tap of the task's queue, whose events are persisted by the consumer of
+     * the main queue rather than by this one
+     */
+    public boolean isTap() {
+        return queue.isTap();
     }
 
     public Event consumeOne() throws A2AServerException, EventQueueClosedException {
@@ -31,80 +82,218 @@ public class EventConsumer {
         return event;
     }
 
+    /**
+     * Emits the events of the queue until a final event is seen or the queue is closed.
+     * <p>
+     * No thread waits for events. The queue is drained whenever it signals that an event was enqueued or that it
+     * was closed, whenever the subscriber requests more events, and when the agent fails. The events sent to the
+     * subscriber and not received yet are recorded in the stream metrics like those held by the other stages.
+     */
     public Flow.Publisher<Event> consumeAll() {
-        TubeConfiguration conf = new TubeConfiguration()
-                .withBackpressureStrategy(BackpressureStrategy.BUFFER)
-                .withBufferSize(256);
-        return ZeroPublisher.create(conf, tube -> {
-            boolean completed = false;
-            try {
-                while (true) {
-                    if (error != null) {
-                        completed = true;
-                        tube.fail(error);
-                        return;
-                    }
-                    // We use a timeout when waiting for an event from the queue.
-                    // This is required because it allows the loop to check if
-                    // `self._exception` has been set by the `agent_task_callback`.
-                    // Without the timeout, loop might hang indefinitely if no events are
-                    // enqueued by the agent and the agent simply threw an exception
-
-                    // TODO the callback mentioned above seems unused in the Python 0.2.1 tag
-                    Event event;
-                    try {
-                        event = queue.dequeueEvent(QUEUE_WAIT_MILLISECONDS);
-                        if (event == null) {
-                            continue;
-                        }
-                        if (event instanceof Throwable thr) {
-                            tube.fail(thr);
-                            return;
-                        }
-                        tube.send(event);
-                    } catch (EventQueueClosedException e) {
-                        completed = true;
+        TubeConfiguration tubeConfig = createTubeConfig(streamConfig.bufferSize());
+        return subscriber -> {
+            QueueDrain drain = new QueueDrain(subscriber);
+            ZeroPublisher.create(tubeConfig, drain::start).subscribe(drain);
+        };
+    }
+
+    public EnhancedRunnable.DoneCallback createAgentRunnableDoneCallback() {
+        return agentRunnable -> {
+            if (agentRunnable.getError() != null) {
+                error = agentRunnable.getError();
+                drains.forEach(QueueDrain::run);
+            }
+        };
+    }
+
+    static boolean isFinalEvent(Event event) {
+        if (event instanceof TaskStatusUpdateEvent tue && tue.isFinal()) {
+            return true;
+        } else if (event instanceof Message) {
+            return true;
+        } else if (event instanceof Task task) {
+            switch (task.getStatus().state()) {
+                case COMPLETED:
+                case CANCELED:
+                case FAILED:
+                case REJECTED:
+                case UNKNOWN:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves events from the queue to a tube, and passes them on from the tube to the subscriber. Signals may arrive
+     * concurrently from the producer, the subscriber and the agent callback, so only one thread drains at a time and
+     * the others just record that another pass is needed.
+     */
+    private class QueueDrain implements Runnable, Flow.Subscriber<Event> {
+        private final Flow.Subscriber<? super Event> downstream;
+        // The sizes of the events sent to the tube and not received by the subscriber yet, in order
+        private final Queue<Long> sent = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger held = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Runnable listener = this::signalled;
+        private volatile Tube<Event> tube;
+        private volatile boolean done;
+        // Set when the queue signals an event, cleared once it is found empty
+        private volatile boolean waiting;
+        // Only accessed while draining
+        private boolean blocked;
+
+        QueueDrain(Flow.Subscriber<? super Event> downstream) {
+            this.downstream = downstream;
+        }
+
+        void start(Tube<Event> tube) {
+            this.tube = tube;
+            tube.whenRequested(n -> run());
+            tube.whenCancelled(this::cancel);
+            drains.add(this);
+            queue.addListener(listener);
+            run();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(Event event) {
+            Long size = sent.poll();
+            if (size != null) {
+                held.decrementAndGet();
+                streamMetrics.recordEmitted(size);
+            }
+            downstream.onNext(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            discardSent();
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            discardSent();
+            downstream.onComplete();
+        }
+
+        private void signalled() {
+            waiting = true;
+            run();
+        }
+
+        @Override
+        public void run() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                drain();
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void drain() {
+            while (!done) {
+                if (error != null) {
+                    stop();
+                    tube.fail(error);
+                    return;
+                }
+                if (tube.cancelled()) {
+                    stop();
+                    return;
+                }
+                if (tube.outstandingRequests() <= 0) {
+                    if (queue.isDrained()) {
+                        stop();
                         tube.complete();
-                        return;
-                    } catch (Throwable t) {
-                        tube.fail(t);
-                        return;
+                    } else if (waiting && !blocked) {
+                        // An event is waiting for the subscriber to request it
+                        blocked = true;
+                        streamMetrics.recordBlocked();
                     }
+                    return;
+                }
 
-                    boolean isFinalEvent = false;
-                    if (event instanceof TaskStatusUpdateEvent tue && tue.isFinal()) {
-                        isFinalEvent = true;
-                    } else if (event instanceof Message) {
-                        isFinalEvent = true;
-                    } else if (event instanceof Task task) {
-                        switch (task.getStatus().state()) {
-                            case COMPLETED:
-                            case CANCELED:
-                            case FAILED:
-                            case REJECTED:
-                            case UNKNOWN:
-                                isFinalEvent = true;
-                        }
+                Event event;
+                try {
+                    event = queue.dequeueEvent(NO_WAIT);
+                    if (event == null) {
+                        waiting = false;
+                        return;
                     }
-
-                    if (isFinalEvent) {
-                        queue.close();
-                        break;
+                    if (event instanceof Throwable thr) {
+                        stop();
+                        tube.fail(thr);
+                        return;
                     }
+                    if (sequences != null) {
+                        sequences.record(event, queue.getLastSequence());
+                    }
+                    send(event);
+                } catch (EventQueueClosedException e) {
+                    stop();
+                    tube.complete();
+                    return;
+                } catch (Throwable t) {
+                    stop();
+                    tube.fail(t);
+                    return;
                 }
-            } finally {
-                if (!completed) {
+
+                if (isFinalEvent(event)) {
+                    stop();
+                    queue.close();
                     tube.complete();
+                    return;
                 }
             }
-        });
-    }
+        }
 
-    public EnhancedRunnable.DoneCallback createAgentRunnableDoneCallback() {
-        return agentRunnable -> {
-            if (agentRunnable.getError() != null) {
-                error = agentRunnable.getError();
+        private void send(Event event) {
+            long size = EventSizes.estimate(event);
+            sent.offer(size);
+            streamMetrics.recordBuffered(size, held.incrementAndGet());
+            blocked = false;
+            tube.send(event);
+            if (tube.cancelled()) {
+                // The tube dropped the event, and may have been cancelled before it was counted
+                discardSent();
             }
-        };
+        }
+
+        private void discardSent() {
+            Long size;
+            while ((size = sent.poll()) != null) {
+                held.decrementAndGet();
+                streamMetrics.recordDropped(size);
+            }
+        }
+
+        private void stop() {
+            done = true;
+            queue.removeListener(listener);
+            drains.remove(this);
+        }
+
+        private void cancel() {
+            // The tube drops the events it holds
+            discardSent();
+            if (done) {
+                // Cancelling once the stream terminated does not drop the events emitted before
+                return;
+            }
+            stop();
+            if (sequences != null) {
+                // The events emitted so far will not be written, so their sequences would never be looked up
+                sequences.clear();
+            }
+        }
     }
 }
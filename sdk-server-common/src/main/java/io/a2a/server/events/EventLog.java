@@ -0,0 +1,469 @@
+package io.a2a.server.events;
+
+import static io.a2a.server.events.EventBuffer.isCoalescable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.a2a.spec.Event;
+
+/**
+ * Append-only log of the events of a task, shared by a queue and all of its taps.
+ * <p>
+ * Every event is appended once and each reader consumes it through its own cursor, so adding a reader is
+ * O(1) and publishing does not touch the readers unless the log is full. The log holds at most
+ * {@link EventQueueConfig#capacity()} events which have not been read by every reader; when it is full
+ * the {@link EventQueueOverflowPolicy} decides what happens. In addition the latest
+ * {@link EventQueueConfig#replayCapacity()} events are retained, so that a new reader can start from
+ * an earlier sequence. Taps do not count for the capacity unless {@link EventQueueConfig#maxSubscriberLag()} is 0;
+ * instead a tap which falls more than that many events behind is handed to its lagging callback before the next
+ * event is appended, so a stalled tap never holds up the producer. Appending and reading are lock-free; the lock
+ * is only taken to park a thread when there is nothing to read (consumers) or no room (producers), and
+ * only signalled when a thread is parked.
+ * <p>
+ * Sequences start from the one the log is created with, so that they keep increasing when the queue of a task
+ * is replaced.
+ *
+ * @param <C> the type of the reader cursors
+ */
+abstract class EventLog<C> {
+
+    private final EventQueueConfig config;
+    private final EventQueueMetrics metrics;
+    private final int capacity;
+    private final int maxSubscriberLag;
+    // The cursors which count for the capacity
+    private final List<C> cursors = new CopyOnWriteArrayList<>();
+    private volatile long gatingCache;
+    // The taps held to the max subscriber lag instead
+    private final List<Reader> isolated = new CopyOnWriteArrayList<>();
+    private volatile long laggingCache = Long.MIN_VALUE;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    EventLog(EventQueueConfig config, EventQueueMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        this.capacity = config.capacity();
+        this.maxSubscriberLag = config.maxSubscriberLag();
+    }
+
+    /**
+     * @return a buffer reading the events appended from now on through a new cursor
+     */
+    EventBuffer newReader() {
+        return newReader(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return a buffer reading the events from the given sequence on, or from the oldest retained event
+     * if the given one is no longer retained
+     */
+    EventBuffer newReader(long fromSequence) {
+        C cursor = newCursor(fromSequence);
+        cursors.add(cursor);
+        return new Reader(cursor, false);
+    }
+
+    private EventBuffer newTap() {
+        return addTap(newCursor(Long.MAX_VALUE), false);
+    }
+
+    private EventBuffer newTap(long fromSequence) {
+        // A sequence past the tail was handed out by an earlier log of the task, which this one does not hold
+        C cursor = newCursor(fromSequence > tail() ? 0 : fromSequence);
+        return addTap(cursor, position(cursor) != fromSequence);
+    }
+
+    private EventBuffer addTap(C cursor, boolean missedEvents) {
+        Reader reader = new Reader(cursor, missedEvents);
+        if (maxSubscriberLag == 0) {
+            cursors.add(cursor);
+            return reader;
+        }
+        isolated.add(reader);
+        // The new tap may be behind the cached position
+        laggingCache = Long.MIN_VALUE;
+        return reader;
+    }
+
+    /**
+     * @return the cursors of all readers which have not been detached
+     */
+    List<C> activeCursors() {
+        List<C> active = new ArrayList<>(cursors);
+        for (Reader reader : isolated) {
+            active.add(reader.cursor);
+        }
+        return active;
+    }
+
+    /**
+     * Called once the queue is closed and nothing more will be appended.
+     */
+    void close() {
+    }
+
+    /**
+     * Called once the queue is removed, so that the retained events no longer need to be kept for new readers.
+     */
+    void discard() {
+    }
+
+    /**
+     * @return the sequence the next appended event will get
+     */
+    abstract long tail();
+
+    /**
+     * Appends the event as the given sequence, unless another event claimed it first.
+     */
+    abstract boolean append(long sequence, Event event);
+
+    /**
+     * @return a cursor positioned at the given sequence, clamped to the retained events and the tail
+     */
+    abstract C newCursor(long fromSequence);
+
+    /**
+     * @return the sequence of the next event the cursor will read
+     */
+    abstract long position(C cursor);
+
+    /**
+     * @return the next event of the cursor, or {@code null} if it has not been appended yet
+     */
+    abstract Event peek(C cursor);
+
+    /**
+     * Moves the cursor past the next event, if the cursor is still positioned at the given sequence.
+     */
+    abstract boolean skip(C cursor, long sequence);
+
+    /**
+     * Reads the next event of the cursor and moves the cursor past it.
+     */
+    abstract Event tryRead(C cursor);
+
+    /**
+     * @return the sequence of the event last returned by {@link #tryRead(Object)} for the cursor, or -1
+     */
+    abstract long lastRead(C cursor);
+
+    boolean publish(Event event) throws InterruptedException {
+        long deadline = 0;
+        boolean blocked = false;
+        while (true) {
+            long sequence = tail();
+            checkLagging(sequence);
+            if (!hasCapacity(sequence)) {
+                if (makeRoom(event, sequence)) {
+                    continue;
+                }
+                if (config.overflowPolicy() == EventQueueOverflowPolicy.FAIL_TASK) {
+                    return false;
+                }
+                if (!blocked) {
+                    metrics.recordBlocked();
+                    deadline = System.nanoTime() + config.blockTimeoutNanos();
+                    blocked = true;
+                }
+                if (!awaitCapacity(sequence, config.blockTimeoutNanos() < 0 ? -1 : deadline)) {
+                    return false;
+                }
+                continue;
+            }
+            if (append(sequence, event)) {
+                if (waitingConsumers.get() > 0) {
+                    signal(notEmpty);
+                }
+                return true;
+            }
+        }
+    }
+
+    Event read(C cursor) {
+        Event event = tryRead(cursor);
+        if (event != null && waitingProducers.get() > 0) {
+            signal(notFull);
+        }
+        return event;
+    }
+
+    int readTo(C cursor, Collection<? super Event> events, int maxEvents) {
+        int count = 0;
+        Event event;
+        while (count < maxEvents && (event = tryRead(cursor)) != null) {
+            events.add(event);
+            count++;
+        }
+        // Wake parked producers once for the whole batch
+        if (count > 0 && waitingProducers.get() > 0) {
+            signal(notFull);
+        }
+        return count;
+    }
+
+    Event awaitAndRead(C cursor, long nanos) throws InterruptedException {
+        lock.lock();
+        waitingConsumers.incrementAndGet();
+        try {
+            while (true) {
+                Event event = read(cursor);
+                if (event != null || nanos <= 0) {
+                    return event;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            waitingConsumers.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of events which have not been read by every reader
+     */
+    long pending() {
+        long tail = tail();
+        long minimum = minimumPosition(tail);
+        for (Reader reader : isolated) {
+            minimum = Math.min(minimum, position(reader.cursor));
+        }
+        return tail - minimum;
+    }
+
+    private void checkLagging(long sequence) {
+        // A tap at or before this position would be more than the max lag behind once the sequence is appended
+        long limit = sequence - maxSubscriberLag;
+        if (limit < laggingCache || isolated.isEmpty()) {
+            return;
+        }
+        for (Reader reader : isolated) {
+            if (position(reader.cursor) <= limit) {
+                reader.lagging();
+            }
+        }
+        long minimum = sequence;
+        for (Reader reader : isolated) {
+            minimum = Math.min(minimum, position(reader.cursor));
+        }
+        laggingCache = minimum;
+    }
+
+    private boolean hasCapacity(long sequence) {
+        long wrapPoint = sequence - capacity;
+        if (wrapPoint < gatingCache) {
+            return true;
+        }
+        gatingCache = minimumPosition(sequence);
+        return wrapPoint < gatingCache;
+    }
+
+    private long minimumPosition(long defaultValue) {
+        long minimum = defaultValue;
+        for (C cursor : cursors) {
+            minimum = Math.min(minimum, position(cursor));
+        }
+        return minimum;
+    }
+
+    // The cursors which hold up the log are usually exactly at the wrap point of the sequence, since a sequence
+    // is only claimed once every cursor is less than a full log behind it. Only a reader replaying retained
+    // events may start further behind.
+    private boolean makeRoom(Event event, long sequence) {
+        long wrapPoint = sequence - capacity;
+        switch (config.overflowPolicy()) {
+            case DROP_OLDEST:
+                for (C cursor : cursors) {
+                    long position;
+                    while ((position = position(cursor)) <= wrapPoint && skip(cursor, position)) {
+                        metrics.recordDropped(1);
+                    }
+                }
+                return true;
+            case COALESCE_LATEST_STATUS:
+                if (!isCoalescable(event) || !isCoalescable(eventAt(wrapPoint))) {
+                    return false;
+                }
+                for (C cursor : cursors) {
+                    if (skip(cursor, wrapPoint)) {
+                        metrics.recordCoalesced();
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Event eventAt(long sequence) {
+        for (C cursor : cursors) {
+            if (position(cursor) == sequence) {
+                Event event = peek(cursor);
+                if (position(cursor) == sequence) {
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean awaitCapacity(long sequence, long deadline) throws InterruptedException {
+        lock.lock();
+        waitingProducers.incrementAndGet();
+        try {
+            while (tail() == sequence && !hasCapacity(sequence)) {
+                if (deadline < 0) {
+                    notFull.await();
+                    continue;
+                }
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    return false;
+                }
+                notFull.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            waitingProducers.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The view of the log for one queue.
+     */
+    private class Reader implements EventBuffer {
+        private final C cursor;
+        private final boolean missedEvents;
+        private volatile Runnable laggingCallback;
+        private volatile boolean detached;
+
+        Reader(C cursor, boolean missedEvents) {
+            this.cursor = cursor;
+            this.missedEvents = missedEvents;
+        }
+
+        void lagging() {
+            Runnable callback = laggingCallback;
+            if (callback == null) {
+                detach();
+            } else {
+                callback.run();
+            }
+        }
+
+        @Override
+        public boolean offer(Event event) throws InterruptedException {
+            return publish(event);
+        }
+
+        @Override
+        public Event poll() {
+            return detached ? null : read(cursor);
+        }
+
+        @Override
+        public Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            if (detached) {
+                return null;
+            }
+            Event event = read(cursor);
+            if (event != null) {
+                return event;
+            }
+            return awaitAndRead(cursor, unit.toNanos(timeout));
+        }
+
+        @Override
+        public int drainTo(Collection<? super Event> events, int maxEvents) {
+            return detached ? 0 : readTo(cursor, events, maxEvents);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return detached || peek(cursor) == null;
+        }
+
+        @Override
+        public long lastSequence() {
+            return lastRead(cursor);
+        }
+
+        @Override
+        public long nextSequence() {
+            return tail();
+        }
+
+        @Override
+        public long pendingEvents() {
+            return pending();
+        }
+
+        @Override
+        public EventBuffer tap() {
+            return newTap();
+        }
+
+        @Override
+        public EventBuffer tap(long fromSequence) {
+            return newTap(fromSequence);
+        }
+
+        @Override
+        public boolean missedEvents() {
+            return missedEvents;
+        }
+
+        @Override
+        public void onLagging(Runnable callback) {
+            laggingCallback = callback;
+        }
+
+        @Override
+        public void detach() {
+            detached = true;
+            isolated.remove(this);
+            cursors.remove(cursor);
+        }
+
+        @Override
+        public void close() {
+            EventLog.this.close();
+        }
+
+        @Override
+        public void discard() {
+            EventLog.this.discard();
+        }
+
+        @Override
+        public void skipUnread() {
+            long tail = tail();
+            long position;
+            while ((position = position(cursor)) < tail && skip(cursor, position)) {
+                // Keep skipping until the tail, or until the next event is not linked yet
+            }
+        }
+    }
+}
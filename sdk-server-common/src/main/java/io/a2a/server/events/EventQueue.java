@@ -1,15 +1,23 @@
 package io.a2a.server.events;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import io.a2a.spec.Event;
+import io.a2a.spec.InternalError;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskArtifactUpdateEvent;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TaskStatusUpdateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,81 +25,331 @@ public abstract class EventQueue implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EventQueue.class);
 
-    // TODO decide on a capacity
-    private static final int queueSize = 1000;
-
-    private final BlockingQueue<Event> queue = new LinkedBlockingDeque<>();
-    private final Semaphore semaphore = new Semaphore(queueSize, true);
+    private final EventQueueConfig config;
+    private final EventQueueMetrics metrics;
+    private final EventBuffer buffer;
+    // Delivered once the queue is closed and drained, when the overflow policy failed the task
+    private final AtomicReference<Event> terminalEvent = new AtomicReference<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile Supplier<Event> snapshotSupplier;
+    // Set when the unread events of a lagging tap were skipped, and a snapshot is due in their place
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private volatile long lastSequence = -1;
     private volatile boolean closed = false;
+    private volatile long closedNanos;
 
+    EventQueue(EventQueueConfig config, EventQueueMetrics metrics, EventBuffer buffer, EventQueue parent) {
+        this.config = config;
+        this.metrics = metrics;
+        this.buffer = buffer;
+        LOGGER.trace("Creating {}, parent: {}", this, parent);
+    }
+
+    public static EventQueue create() {
+        return create(EventQueueConfig.DEFAULT);
+    }
 
+    public static EventQueue create(EventQueueBackend backend) {
+        return create(new EventQueueConfig.Builder().backend(backend).build());
+    }
 
-    protected EventQueue() {
-        this(null);
+    public static EventQueue create(EventQueueConfig config) {
+        return create(config, new EventQueueMetrics());
     }
 
-    protected EventQueue(EventQueue parent) {
-        LOGGER.trace("Creating {}, parent: {}", this, parent);
+    static EventQueue create(EventQueueConfig config, EventQueueMetrics metrics) {
+        return create(config, metrics, 0);
     }
 
-    public static EventQueue create() {
-        
-        return new MainQueue();
+    /**
+     * @param firstSequence the sequence of the first event, so that a queue replacing an earlier one of the same
+     * task continues its sequences
+     */
+    static EventQueue create(EventQueueConfig config, EventQueueMetrics metrics, long firstSequence) {
+        EventBuffer buffer = switch (config.backend()) {
+            case LINKED -> new LinkedEventLog(config, metrics, firstSequence).newReader();
+            case RING_BUFFER -> new RingEventLog(config, metrics, firstSequence).newReader();
+        };
+        return new MainQueue(config, metrics, buffer);
     }
 
-    public abstract void awaitQueuePollerStart() throws InterruptedException ;
+    public EventQueueConfig getConfig() {
+        return config;
+    }
 
-    abstract void signalQueuePollerStarted();
+    public EventQueueMetrics getMetrics() {
+        return metrics;
+    }
 
     public void enqueueEvent(Event event) {
         if (closed) {
             LOGGER.warn("Queue is closed. Event will not be enqueued. {} {}", this, event);
             return;
         }
-        // Call toString() since for errors we don't really want the full stacktrace
+        boolean published;
         try {
-            semaphore.acquire();
+            published = buffer.offer(event);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Unable to acquire the semaphore to enqueue the event", e);
+            throw new RuntimeException("Unable to acquire capacity to enqueue the event", e);
+        }
+        if (!published) {
+            handleOverflow(event);
         }
-        queue.add(event);
+        metrics.recordEnqueued();
+        // Call toString() since for errors we don't really want the full stacktrace
         LOGGER.debug("Enqueued event {} {}", event instanceof Throwable ? event.toString() : event, this);
     }
 
+    private void handleOverflow(Event event) {
+        if (config.overflowPolicy() == EventQueueOverflowPolicy.FAIL_TASK) {
+            LOGGER.warn("Queue is full, failing the task. Event will not be enqueued. {} {}", this, event);
+            metrics.recordFailedTask();
+            failTask();
+            throw new EventQueueOverflowException(
+                    "Event queue capacity of " + config.capacity() + " exceeded, the task has been failed");
+        }
+        LOGGER.warn("Timed out waiting for room in the queue. Event will not be enqueued. {} {}", this, event);
+        metrics.recordBlockTimeout();
+        throw new EventQueueOverflowException(
+                "Timed out after " + config.blockTimeout() + " waiting for room in the event queue");
+    }
+
+    abstract void failTask();
+
+    /**
+     * Sets where a tap gets the snapshot of the task which replaces its unread events when it lags behind, or which
+     * it starts with when the events it was asked to replay are no longer retained.
+     *
+     * @see SlowSubscriberPolicy#SNAPSHOT
+     */
+    public void setSnapshotSupplier(Supplier<Event> snapshotSupplier) {
+        this.snapshotSupplier = snapshotSupplier;
+    }
+
+    /**
+     * Registers a callback which is run whenever an event becomes available in this queue, or the queue is closed.
+     * The callback runs on the thread that enqueued the event or closed the queue, so it must not block.
+     */
+    void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return whether a consumer is waiting for the events of this queue
+     */
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    void notifyListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Queue listener failed {}", this, e);
+            }
+        }
+    }
+
+    /**
+     * @return whether the queue is closed and every event, including any terminal one, has been dequeued
+     */
+    boolean isDrained() {
+        return closed && buffer.isEmpty() && terminalEvent.get() == null && !snapshotPending.get();
+    }
+
+    void setTerminalEvent(Event event) {
+        terminalEvent.compareAndSet(null, event);
+    }
+
     abstract EventQueue tap();
 
+    /**
+     * @return whether this queue is a tap of the task's main queue, whose consumer persists the events
+     */
+    boolean isTap() {
+        return false;
+    }
+
+    /**
+     * Taps the queue, starting with the retained events from the given sequence on. If some of those events are no
+     * longer retained, the tap starts with the {@linkplain #setSnapshotSupplier(Supplier) snapshot} of the task
+     * and then the oldest retained event.
+     *
+     * @see EventQueueConfig#replayCapacity()
+     */
+    abstract EventQueue tap(long fromSequence);
+
+    /**
+     * @return the sequence in the task's event log of the event last returned by {@link #dequeueEvent(int)},
+     * or -1 if it is not part of the log
+     */
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return the sequence the next event enqueued to the task's event log will get
+     */
+    long getNextSequence() {
+        return buffer.nextSequence();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the queue was closed, only meaningful once it is closed
+     */
+    long getClosedNanos() {
+        return closedNanos;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} of the last event enqueued to, or tap of, the main queue
+     */
+    abstract long getLastActivityNanos();
+
+    /**
+     * @return whether a final event of the task has been enqueued, or the task was failed
+     */
+    abstract boolean isTerminated();
+
+    /**
+     * Records that an agent started producing the events of the task, until {@link #agentDone()} is called.
+     * A queue with a running agent is not evicted for being idle, since a long tool call or a task waiting for
+     * input may not enqueue anything for a while.
+     */
+    public abstract void agentStarted();
+
+    /**
+     * Records that an agent which {@linkplain #agentStarted() started} is done producing events.
+     */
+    public abstract void agentDone();
+
+    /**
+     * @return whether an agent is producing the events of the task
+     */
+    abstract boolean hasRunningAgent();
+
+    /**
+     * @return whether a consumer is waiting for the events of the main queue or of one of its taps
+     */
+    abstract boolean hasReaders();
+
+    /**
+     * @return the number of events in the task's event log which have not been read by every queue
+     */
+    long getBufferedEventCount() {
+        return buffer.pendingEvents();
+    }
+
     public Event dequeueEvent(int waitMilliSeconds) throws EventQueueClosedException {
-        if (closed && queue.isEmpty()) {
-            LOGGER.debug("Queue is closed, and empty. Sending termination message. {}", this);
-            throw new EventQueueClosedException();
+        Event snapshot = pendingSnapshot();
+        if (snapshot != null) {
+            return snapshot;
         }
-        try {
-            if (waitMilliSeconds <= 0) {
-                Event event = queue.poll();
-                if (event != null) {
-                    // Call toString() since for errors we don't really want the full stacktrace
-                    LOGGER.debug("Dequeued event (no wait) {} {}", this, event instanceof Throwable ? event.toString() : event);
-                    semaphore.release();
-                }
-                return event;
+        if (closed && buffer.isEmpty()) {
+            return terminalEvent();
+        }
+        if (waitMilliSeconds <= 0) {
+            Event event = buffer.poll();
+            if (event != null) {
+                lastSequence = buffer.lastSequence();
+                // Call toString() since for errors we don't really want the full stacktrace
+                LOGGER.debug("Dequeued event (no wait) {} {}", this, event instanceof Throwable ? event.toString() : event);
             }
-            try {
-                Event event = queue.poll(waitMilliSeconds, TimeUnit.MILLISECONDS);
-                if (event != null) {
-                    // Call toString() since for errors we don't really want the full stacktrace
-                    LOGGER.debug("Dequeued event (waiting) {} {}", this, event instanceof Throwable ? event.toString() : event);
-                    semaphore.release();
-                }
-                return event;
-            } catch (InterruptedException e) {
-                LOGGER.debug("Interrupted dequeue (waiting) {}", this);
-                Thread.currentThread().interrupt();
-                return null;
+            return event;
+        }
+        try {
+            Event event = buffer.poll(waitMilliSeconds, TimeUnit.MILLISECONDS);
+            if (event != null) {
+                lastSequence = buffer.lastSequence();
+                // Call toString() since for errors we don't really want the full stacktrace
+                LOGGER.debug("Dequeued event (waiting) {} {}", this, event instanceof Throwable ? event.toString() : event);
             }
-        } finally {
-            signalQueuePollerStarted();
+            return event;
+        } catch (InterruptedException e) {
+            LOGGER.debug("Interrupted dequeue (waiting) {}", this);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Dequeues up to {@code maxEvents} events which are available, without waiting.
+     *
+     * @return the dequeued events, which is empty if no event is available
+     * @throws EventQueueClosedException if the queue is closed and every event has been dequeued
+     */
+    public List<Event> drain(int maxEvents) throws EventQueueClosedException {
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("maxEvents must be positive");
+        }
+        List<Event> events = new ArrayList<>(Math.min(maxEvents, 16));
+        Event snapshot = pendingSnapshot();
+        if (snapshot != null) {
+            events.add(snapshot);
+            return events;
+        }
+        if (closed && buffer.isEmpty()) {
+            events.add(terminalEvent());
+            return events;
+        }
+        if (buffer.drainTo(events, maxEvents) > 0) {
+            lastSequence = buffer.lastSequence();
+            LOGGER.debug("Dequeued {} events {}", events.size(), this);
+        }
+        return events;
+    }
+
+    /**
+     * Dequeues the next event without blocking the calling thread.
+     *
+     * @return a stage completed with the next event on the thread which enqueued it, or completed exceptionally
+     * with {@link EventQueueClosedException} if the queue is closed and every event has been dequeued. Cancelling
+     * the returned future gives up the dequeue, in which case an event dequeued at the same time is dropped.
+     */
+    public CompletionStage<Event> dequeueAsync() {
+        PendingDequeue pending = new PendingDequeue();
+        pending.run();
+        if (!pending.isDone()) {
+            addListener(pending);
+            pending.whenComplete((event, error) -> removeListener(pending));
+            // The event may have been enqueued before the listener was added
+            pending.run();
+        }
+        return pending;
+    }
+
+    private Event pendingSnapshot() {
+        if (!snapshotPending.get() || !snapshotPending.compareAndSet(true, false)) {
+            return null;
         }
+        Supplier<Event> supplier = snapshotSupplier;
+        Event snapshot = supplier == null ? null : supplier.get();
+        if (snapshot != null) {
+            lastSequence = -1;
+            LOGGER.debug("Sending snapshot in place of skipped events {} {}", this, snapshot);
+        }
+        return snapshot;
+    }
+
+    private Event terminalEvent() throws EventQueueClosedException {
+        Event terminal = terminalEvent.getAndSet(null);
+        if (terminal != null) {
+            lastSequence = -1;
+            LOGGER.debug("Queue is closed, and empty. Sending terminal event {} {}", this, terminal);
+            return terminal;
+        }
+        LOGGER.debug("Queue is closed, and empty. Sending termination message. {}", this);
+        throw new EventQueueClosedException();
     }
 
     public void taskDone() {
@@ -100,14 +358,22 @@ public abstract class EventQueue implements AutoCloseable {
 
     public abstract void close();
 
+    /**
+     * Called once the queue was removed from its {@link QueueManager}, so that the events retained for replaying
+     * them to new taps, and any spill segment holding them, can be released.
+     */
+    abstract void discard();
+
     public void doClose() {
         synchronized (this) {
             if (closed) {
                 return;
             }
             LOGGER.debug("Closing {}", this);
+            closedNanos = System.nanoTime();
             closed = true;
         }
+        notifyListeners();
         // Although the Python implementation drains the queue on closing,
         // here it makes events go missing
         // TODO do we actually need to drain it? If we do, we need some mechanism to determine that noone is
@@ -116,51 +382,204 @@ public abstract class EventQueue implements AutoCloseable {
         //queue.drainTo(new ArrayList<>());
     }
 
+    /**
+     * Completes with the next event of the queue. The queue may signal from several producers at once, so only
+     * one thread dequeues at a time, making sure at most one event is taken.
+     */
+    private class PendingDequeue extends CompletableFuture<Event> implements Runnable {
+        private final AtomicInteger wip = new AtomicInteger();
+
+        @Override
+        public void run() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (!isDone()) {
+                    tryComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void tryComplete() {
+            try {
+                Event event = dequeueEvent(-1);
+                if (event != null) {
+                    complete(event);
+                }
+            } catch (EventQueueClosedException e) {
+                completeExceptionally(e);
+            }
+        }
+    }
+
     static class MainQueue extends EventQueue {
         private final List<ChildQueue> children = new CopyOnWriteArrayList<>();
-        private final CountDownLatch pollingStartedLatch = new CountDownLatch(1);
-        private final AtomicBoolean pollingStarted = new AtomicBoolean(false);
+        private volatile String taskId;
+        private volatile String contextId;
+        private volatile long lastActivityNanos = System.nanoTime();
+        private volatile boolean terminated;
+        private final AtomicInteger runningAgents = new AtomicInteger();
+
+        MainQueue(EventQueueConfig config, EventQueueMetrics metrics, EventBuffer buffer) {
+            super(config, metrics, buffer, null);
+        }
 
         EventQueue tap() {
-            ChildQueue child = new ChildQueue(this);
+            return addChild(new ChildQueue(this, super.buffer.tap()));
+        }
+
+        @Override
+        EventQueue tap(long fromSequence) {
+            return addChild(new ChildQueue(this, super.buffer.tap(fromSequence)));
+        }
+
+        private EventQueue addChild(ChildQueue child) {
+            lastActivityNanos = System.nanoTime();
             children.add(child);
+            // The child missed the close if it was added after the children were closed
+            if (isClosed()) {
+                child.doClose();
+            }
             return child;
         }
 
+        @Override
         public void enqueueEvent(Event event) {
+            if (taskId == null) {
+                if (event instanceof Task task) {
+                    rememberTask(task.getId(), task.getContextId());
+                } else if (event instanceof TaskStatusUpdateEvent statusUpdate) {
+                    rememberTask(statusUpdate.getTaskId(), statusUpdate.getContextId());
+                } else if (event instanceof TaskArtifactUpdateEvent artifactUpdate) {
+                    rememberTask(artifactUpdate.getTaskId(), artifactUpdate.getContextId());
+                }
+            }
+            lastActivityNanos = System.nanoTime();
+            if (EventConsumer.isFinalEvent(event)) {
+                terminated = true;
+            }
             super.enqueueEvent(event);
-            children.forEach(eq -> eq.internalEnqueueEvent(event));
+            notifyListeners();
+            children.forEach(EventQueue::notifyListeners);
+        }
+
+        private void rememberTask(String taskId, String contextId) {
+            this.contextId = contextId;
+            this.taskId = taskId;
         }
 
         @Override
-        public void awaitQueuePollerStart() throws InterruptedException {
-            LOGGER.debug("Waiting for queue poller to start on {}", this);
-            pollingStartedLatch.await(10, TimeUnit.SECONDS);
-            LOGGER.debug("Queue poller started on {}", this);
+        void failTask() {
+            Event terminal;
+            if (taskId != null) {
+                terminal = new TaskStatusUpdateEvent.Builder()
+                        .taskId(taskId)
+                        .contextId(contextId)
+                        .status(new TaskStatus(TaskState.FAILED))
+                        .isFinal(true)
+                        .build();
+            } else {
+                terminal = new InternalError("Event queue capacity exceeded");
+            }
+            terminated = true;
+            setTerminalEvent(terminal);
+            children.forEach(child -> child.setTerminalEvent(terminal));
+            close();
         }
 
         @Override
-        void signalQueuePollerStarted() {
-            if (pollingStarted.get()) {
-                return;
+        long getLastActivityNanos() {
+            return lastActivityNanos;
+        }
+
+        @Override
+        boolean isTerminated() {
+            return terminated;
+        }
+
+        @Override
+        public void agentStarted() {
+            runningAgents.incrementAndGet();
+            lastActivityNanos = System.nanoTime();
+        }
+
+        @Override
+        public void agentDone() {
+            runningAgents.decrementAndGet();
+            lastActivityNanos = System.nanoTime();
+        }
+
+        @Override
+        boolean hasRunningAgent() {
+            return runningAgents.get() > 0;
+        }
+
+        @Override
+        boolean hasReaders() {
+            if (hasListeners()) {
+                return true;
             }
-            LOGGER.debug("Signalling that queue polling started {}", this);
-            pollingStartedLatch.countDown();
-            pollingStarted.set(true);
-          }
+            for (ChildQueue child : children) {
+                if (child.hasListeners()) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
         @Override
         public void close() {
             doClose();
             children.forEach(EventQueue::doClose);
+            super.buffer.close();
+        }
+
+        @Override
+        void discard() {
+            super.buffer.discard();
         }
     }
 
     static class ChildQueue extends EventQueue {
         private final MainQueue parent;
+        private final AtomicBoolean detached = new AtomicBoolean();
 
-        public ChildQueue(MainQueue parent) {
+        public ChildQueue(MainQueue parent, EventBuffer buffer) {
+            super(parent.getConfig(), parent.getMetrics(), buffer, parent);
             this.parent = parent;
+            buffer.onLagging(this::lagging);
+            // Tell the reader that it missed events before replaying the retained ones
+            if (buffer.missedEvents()) {
+                super.snapshotPending.set(true);
+            }
+        }
+
+        // Runs on the producer thread, which notifies the listeners of the children once it enqueued its event
+        private void lagging() {
+            EventQueueConfig config = getConfig();
+            if (config.slowSubscriberPolicy() == SlowSubscriberPolicy.SNAPSHOT && super.snapshotSupplier != null) {
+                LOGGER.warn("Tap is more than {} events behind, skipping to a snapshot {}",
+                        config.maxSubscriberLag(), this);
+                super.buffer.skipUnread();
+                super.snapshotPending.set(true);
+                getMetrics().recordSnapshotSubscriber();
+                return;
+            }
+            if (!detached.compareAndSet(false, true)) {
+                return;
+            }
+            LOGGER.warn("Tap is more than {} events behind, detaching it {}", config.maxSubscriberLag(), this);
+            super.buffer.detach();
+            getMetrics().recordDetachedSubscriber();
+            setTerminalEvent(new InternalError(
+                    "Subscriber fell more than " + config.maxSubscriberLag() + " events behind"));
+            doClose();
+        }
+
+        @Override
+        void failTask() {
+            parent.failTask();
         }
 
         @Override
@@ -168,28 +587,59 @@ public abstract class EventQueue implements AutoCloseable {
             parent.enqueueEvent(event);
         }
 
-        private void internalEnqueueEvent(Event event) {
-            super.enqueueEvent(event);
+        @Override
+        EventQueue tap() {
+            throw new IllegalStateException("Can only tap the main queue");
         }
 
         @Override
-        EventQueue tap() {
+        boolean isTap() {
+            return true;
+        }
+
+        @Override
+        EventQueue tap(long fromSequence) {
             throw new IllegalStateException("Can only tap the main queue");
         }
 
         @Override
-        public void awaitQueuePollerStart() throws InterruptedException {
-            parent.awaitQueuePollerStart();
+        long getLastActivityNanos() {
+            return parent.getLastActivityNanos();
+        }
+
+        @Override
+        boolean isTerminated() {
+            return parent.isTerminated();
+        }
+
+        @Override
+        public void agentStarted() {
+            parent.agentStarted();
         }
 
         @Override
-        void signalQueuePollerStarted() {
-            parent.signalQueuePollerStarted();
+        public void agentDone() {
+            parent.agentDone();
+        }
+
+        @Override
+        boolean hasRunningAgent() {
+            return parent.hasRunningAgent();
+        }
+
+        @Override
+        boolean hasReaders() {
+            return parent.hasReaders();
         }
 
         @Override
         public void close() {
             parent.close();
         }
+
+        @Override
+        void discard() {
+            parent.discard();
+        }
     }
 }
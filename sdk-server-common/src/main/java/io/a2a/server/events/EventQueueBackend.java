@@ -0,0 +1,16 @@
+package io.a2a.server.events;
+
+/**
+ * The storage used by the queues created by {@link EventQueue#create(EventQueueBackend)}.
+ */
+public enum EventQueueBackend {
+    /**
+     * A queue and all of its taps share a linked log which grows and shrinks with the pending events,
+     * each reading through its own cursor.
+     */
+    LINKED,
+    /**
+     * A queue and all of its taps share a preallocated lock-free ring buffer, each reading through its own cursor.
+     */
+    RING_BUFFER
+}
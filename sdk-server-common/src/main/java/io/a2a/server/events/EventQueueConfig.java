@@ -0,0 +1,150 @@
+package io.a2a.server.events;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import io.a2a.util.Assert;
+
+/**
+ * Sizing and overflow behaviour of an {@link EventQueue} and its taps.
+ *
+ * @param backend the storage used for the queue
+ * @param capacity the maximum number of unread events held for each reader of the queue
+ * @param overflowPolicy what to do when an event is enqueued while a reader has {@code capacity} unread events
+ * @param blockTimeout how long {@link EventQueueOverflowPolicy#BLOCK} waits for room, or {@code null} to wait indefinitely
+ * @param replayCapacity how many of the latest events are kept so that a tap can replay them, at most {@code capacity}
+ * @param maxSubscriberLag how many unread events a tap may have before {@code slowSubscriberPolicy} applies to it,
+ * at most {@code capacity}, or 0 to let taps hold up the producer like the queue itself
+ * @param slowSubscriberPolicy what to do with a tap which is more than {@code maxSubscriberLag} events behind
+ * @param spillThresholdBytes the estimated size of the events held on heap by a queue beyond which further events
+ * are written to memory-mapped files until the readers catch up, or 0 to keep all events on heap. Only supported
+ * by {@link EventQueueBackend#LINKED}
+ * @param spillDirectory where the files of spilled events are created, or {@code null} for the temporary directory
+ */
+public record EventQueueConfig(EventQueueBackend backend, int capacity, EventQueueOverflowPolicy overflowPolicy,
+                               Duration blockTimeout, int replayCapacity, int maxSubscriberLag,
+                               SlowSubscriberPolicy slowSubscriberPolicy, long spillThresholdBytes,
+                               Path spillDirectory) {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    public static final int DEFAULT_REPLAY_CAPACITY = 100;
+
+    public static final EventQueueConfig DEFAULT = new Builder().build();
+
+    public EventQueueConfig {
+        Assert.checkNotNullParam("backend", backend);
+        Assert.checkNotNullParam("overflowPolicy", overflowPolicy);
+        Assert.checkNotNullParam("slowSubscriberPolicy", slowSubscriberPolicy);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (blockTimeout != null && blockTimeout.isNegative()) {
+            throw new IllegalArgumentException("Block timeout must not be negative: " + blockTimeout);
+        }
+        if (replayCapacity < 0 || replayCapacity > capacity) {
+            throw new IllegalArgumentException(
+                    "Replay capacity must be between 0 and the capacity " + capacity + ": " + replayCapacity);
+        }
+        if (maxSubscriberLag < 0 || maxSubscriberLag > capacity) {
+            throw new IllegalArgumentException(
+                    "Max subscriber lag must be between 0 and the capacity " + capacity + ": " + maxSubscriberLag);
+        }
+        if (spillThresholdBytes < 0) {
+            throw new IllegalArgumentException("Spill threshold must not be negative: " + spillThresholdBytes);
+        }
+        if (spillThresholdBytes > 0 && backend != EventQueueBackend.LINKED) {
+            throw new IllegalArgumentException("Spilling events is not supported by the " + backend + " backend");
+        }
+    }
+
+    Path spillDirectoryOrDefault() {
+        return spillDirectory == null ? Path.of(System.getProperty("java.io.tmpdir")) : spillDirectory;
+    }
+
+    long blockTimeoutNanos() {
+        return blockTimeout == null ? -1 : blockTimeout.toNanos();
+    }
+
+    public static class Builder {
+        private EventQueueBackend backend = EventQueueBackend.LINKED;
+        private int capacity = DEFAULT_CAPACITY;
+        private EventQueueOverflowPolicy overflowPolicy = EventQueueOverflowPolicy.BLOCK;
+        private Duration blockTimeout;
+        private Integer replayCapacity;
+        private Integer maxSubscriberLag;
+        private SlowSubscriberPolicy slowSubscriberPolicy = SlowSubscriberPolicy.DETACH;
+        private long spillThresholdBytes;
+        private Path spillDirectory;
+
+        public Builder() {
+        }
+
+        public Builder(EventQueueConfig config) {
+            this.backend = config.backend;
+            this.capacity = config.capacity;
+            this.overflowPolicy = config.overflowPolicy;
+            this.blockTimeout = config.blockTimeout;
+            this.replayCapacity = config.replayCapacity;
+            this.maxSubscriberLag = config.maxSubscriberLag;
+            this.slowSubscriberPolicy = config.slowSubscriberPolicy;
+            this.spillThresholdBytes = config.spillThresholdBytes;
+            this.spillDirectory = config.spillDirectory;
+        }
+
+        public Builder backend(EventQueueBackend backend) {
+            this.backend = backend;
+            return this;
+        }
+
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder overflowPolicy(EventQueueOverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public Builder blockTimeout(Duration blockTimeout) {
+            this.blockTimeout = blockTimeout;
+            return this;
+        }
+
+        public Builder replayCapacity(int replayCapacity) {
+            this.replayCapacity = replayCapacity;
+            return this;
+        }
+
+        /**
+         * Defaults to the capacity.
+         */
+        public Builder maxSubscriberLag(int maxSubscriberLag) {
+            this.maxSubscriberLag = maxSubscriberLag;
+            return this;
+        }
+
+        public Builder slowSubscriberPolicy(SlowSubscriberPolicy slowSubscriberPolicy) {
+            this.slowSubscriberPolicy = slowSubscriberPolicy;
+            return this;
+        }
+
+        public Builder spillThresholdBytes(long spillThresholdBytes) {
+            this.spillThresholdBytes = spillThresholdBytes;
+            return this;
+        }
+
+        public Builder spillDirectory(Path spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        public EventQueueConfig build() {
+            int replay = replayCapacity == null ? Math.min(DEFAULT_REPLAY_CAPACITY, capacity) : replayCapacity;
+            int lag = maxSubscriberLag == null ? capacity : maxSubscriberLag;
+            return new EventQueueConfig(backend, capacity, overflowPolicy, blockTimeout, replay, lag,
+                    slowSubscriberPolicy, spillThresholdBytes, spillDirectory);
+        }
+    }
+}
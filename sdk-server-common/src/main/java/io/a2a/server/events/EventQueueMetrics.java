@@ -0,0 +1,159 @@
+package io.a2a.server.events;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for how often the {@link EventQueueOverflowPolicy} and {@link SlowSubscriberPolicy} of a set of queues
+ * had to act, and how many of the queues were evicted by {@link InMemoryQueueManager#reap()}.
+ * <p>
+ * A queue and its taps share one instance. {@link InMemoryQueueManager} shares one instance between all the
+ * queues it creates.
+ */
+public class EventQueueMetrics {
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder blockTimeouts = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder evictedQueues = new LongAdder();
+    private final LongAdder detachedSubscribers = new LongAdder();
+    private final LongAdder snapshotSubscribers = new LongAdder();
+    private final LongAdder spilledEvents = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LongAdder mappedSpillBytes = new LongAdder();
+
+    /**
+     * @return the number of events accepted by a queue
+     */
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    /**
+     * @return the number of times a producer had to wait for room in a queue
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return the number of times a producer gave up waiting for room in a queue
+     */
+    public long getBlockTimeouts() {
+        return blockTimeouts.sum();
+    }
+
+    /**
+     * @return the number of unread events discarded by {@link EventQueueOverflowPolicy#DROP_OLDEST}
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of unread status updates discarded by {@link EventQueueOverflowPolicy#COALESCE_LATEST_STATUS}
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of tasks failed by {@link EventQueueOverflowPolicy#FAIL_TASK}
+     */
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+
+    /**
+     * @return the number of queues evicted because they were closed, idle or belonged to a terminated task
+     */
+    public long getEvictedQueues() {
+        return evictedQueues.sum();
+    }
+
+    /**
+     * @return the number of taps closed by {@link SlowSubscriberPolicy#DETACH}, or because no snapshot was available
+     */
+    public long getDetachedSubscribers() {
+        return detachedSubscribers.sum();
+    }
+
+    /**
+     * @return the number of times a tap skipped its unread events for a snapshot by {@link SlowSubscriberPolicy#SNAPSHOT}
+     */
+    public long getSnapshotSubscribers() {
+        return snapshotSubscribers.sum();
+    }
+
+    /**
+     * @return the number of events written to memory-mapped files since the queue held too much on heap
+     */
+    public long getSpilledEvents() {
+        return spilledEvents.sum();
+    }
+
+    /**
+     * @return the serialized size of the spilled events
+     */
+    public long getSpilledBytes() {
+        return spilledBytes.sum();
+    }
+
+    /**
+     * @return the size of the spill segments which are currently mapped
+     */
+    public long getMappedSpillBytes() {
+        return mappedSpillBytes.sum();
+    }
+
+    void recordEnqueued() {
+        enqueued.increment();
+    }
+
+    void recordBlocked() {
+        blocked.increment();
+    }
+
+    void recordBlockTimeout() {
+        blockTimeouts.increment();
+    }
+
+    void recordDropped(long count) {
+        dropped.add(count);
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordFailedTask() {
+        failedTasks.increment();
+    }
+
+    void recordEvictedQueue() {
+        evictedQueues.increment();
+    }
+
+    void recordDetachedSubscriber() {
+        detachedSubscribers.increment();
+    }
+
+    void recordSnapshotSubscriber() {
+        snapshotSubscribers.increment();
+    }
+
+    void recordSpilled(long bytes) {
+        spilledEvents.increment();
+        spilledBytes.add(bytes);
+    }
+
+    void recordSpillMapped(long bytes) {
+        mappedSpillBytes.add(bytes);
+    }
+
+    void recordSpillUnmapped(long bytes) {
+        mappedSpillBytes.add(-bytes);
+    }
+}
@@ -0,0 +1,18 @@
+package io.a2a.server.events;
+
+public class EventQueueOverflowException extends RuntimeException {
+    public EventQueueOverflowException() {
+    }
+
+    public EventQueueOverflowException(String message) {
+        super(message);
+    }
+
+    public EventQueueOverflowException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public EventQueueOverflowException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,28 @@
+package io.a2a.server.events;
+
+/**
+ * What an {@link EventQueue} does when an event is enqueued while the queue is at capacity. Taps are only held to
+ * the capacity if {@link EventQueueConfig#maxSubscriberLag()} is 0, otherwise the {@link SlowSubscriberPolicy}
+ * applies to them.
+ */
+public enum EventQueueOverflowPolicy {
+    /**
+     * Block the producer until there is room, for at most {@link EventQueueConfig#blockTimeout()}.
+     * An {@link EventQueueOverflowException} is thrown if the timeout elapses.
+     */
+    BLOCK,
+    /**
+     * Discard the oldest unread event to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * If the new event is a non-final status update, discard an unread non-final status update which it
+     * supersedes. Otherwise behave like {@link #BLOCK}.
+     */
+    COALESCE_LATEST_STATUS,
+    /**
+     * Fail the task: readers receive a final {@code FAILED} status update after the events already queued,
+     * the queue is closed, and the producer gets an {@link EventQueueOverflowException}.
+     */
+    FAIL_TASK
+}
@@ -0,0 +1,52 @@
+package io.a2a.server.events;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import io.a2a.spec.Event;
+
+/**
+ * The sequences in the event log of their task of the events streamed for one request.
+ * <p>
+ * Transports look up the sequence of each event they write, e.g. to use it as the id of a server-sent event,
+ * and pass back the last sequence a client received via {@link #setLastEventId(long)}, so that resubscribing
+ * replays the events the client missed.
+ */
+public class EventSequences {
+
+    private final Map<Event, Long> sequences = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile long lastEventId = -1;
+
+    void record(Event event, long sequence) {
+        if (sequence >= 0) {
+            sequences.put(event, sequence);
+        }
+    }
+
+    /**
+     * @return the sequence of the event, or -1 if it is not known
+     */
+    public long remove(Object event) {
+        Long sequence = sequences.remove(event);
+        return sequence == null ? -1 : sequence;
+    }
+
+    /**
+     * Forgets the sequences of the events which will not be written, e.g. because the stream was cancelled.
+     */
+    void clear() {
+        sequences.clear();
+    }
+
+    /**
+     * @return the sequence of the last event received by the client, or -1 if it did not send one
+     */
+    public long getLastEventId() {
+        return lastEventId;
+    }
+
+    public void setLastEventId(long lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+}
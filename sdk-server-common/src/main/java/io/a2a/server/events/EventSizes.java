@@ -0,0 +1,85 @@
+package io.a2a.server.events;
+
+import java.util.List;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.DataPart;
+import io.a2a.spec.Event;
+import io.a2a.spec.FilePart;
+import io.a2a.spec.FileWithBytes;
+import io.a2a.spec.FileWithUri;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskArtifactUpdateEvent;
+import io.a2a.spec.TaskStatusUpdateEvent;
+import io.a2a.spec.TextPart;
+
+/**
+ * Cheap estimates of the heap held by events, dominated by the content of their parts.
+ */
+public final class EventSizes {
+
+    // Ids, status and object headers of an event
+    private static final long EVENT_OVERHEAD = 256;
+    private static final long PART_OVERHEAD = 64;
+    private static final long DATA_ENTRY = 64;
+
+    private EventSizes() {
+    }
+
+    public static long estimate(Event event) {
+        if (event instanceof TaskArtifactUpdateEvent artifactUpdate) {
+            return EVENT_OVERHEAD + estimate(artifactUpdate.getArtifact());
+        } else if (event instanceof Message message) {
+            return EVENT_OVERHEAD + estimateParts(message.getParts());
+        } else if (event instanceof TaskStatusUpdateEvent statusUpdate) {
+            Message message = statusUpdate.getStatus() == null ? null : statusUpdate.getStatus().message();
+            return EVENT_OVERHEAD + (message == null ? 0 : estimateParts(message.getParts()));
+        } else if (event instanceof Task task) {
+            long size = EVENT_OVERHEAD;
+            if (task.getArtifacts() != null) {
+                for (Artifact artifact : task.getArtifacts()) {
+                    size += estimate(artifact);
+                }
+            }
+            if (task.getHistory() != null) {
+                for (Message message : task.getHistory()) {
+                    size += estimateParts(message.getParts());
+                }
+            }
+            return size;
+        }
+        return EVENT_OVERHEAD;
+    }
+
+    private static long estimate(Artifact artifact) {
+        return artifact == null ? 0 : estimateParts(artifact.parts());
+    }
+
+    private static long estimateParts(List<Part<?>> parts) {
+        if (parts == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Part<?> part : parts) {
+            size += PART_OVERHEAD;
+            if (part instanceof TextPart textPart) {
+                size += length(textPart.getText());
+            } else if (part instanceof FilePart filePart) {
+                if (filePart.getFile() instanceof FileWithBytes file) {
+                    size += length(file.bytes());
+                } else if (filePart.getFile() instanceof FileWithUri file) {
+                    size += length(file.uri());
+                }
+            } else if (part instanceof DataPart dataPart && dataPart.getData() != null) {
+                size += DATA_ENTRY * dataPart.getData().size();
+            }
+        }
+        return size;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
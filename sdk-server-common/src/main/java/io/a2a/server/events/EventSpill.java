@@ -0,0 +1,228 @@
+package io.a2a.server.events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.a2a.server.util.MappedBuffers;
+import io.a2a.spec.Event;
+import io.a2a.spec.StreamingEventKind;
+import io.a2a.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serializes events of an {@link EventLog} into memory-mapped segment files, so that they do not take up heap
+ * while they are waiting to be read.
+ * <p>
+ * The first segment is sized from the spill threshold and each further one doubles, up to {@link #SEGMENT_SIZE}.
+ * A segment is unmapped by {@link #release(long)} once every reader of the log has moved past all of its events;
+ * the segment being written to is only released once the spill is closed. Segments which are never released
+ * explicitly are unmapped by the garbage collector. The file of a segment is deleted as soon as it is mapped where
+ * the platform allows it, and otherwise when the segment is unmapped.
+ */
+class EventSpill {
+
+    static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSpill.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Path directory;
+    private final EventQueueMetrics metrics;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private int nextSegmentSize;
+    private boolean closed;
+
+    EventSpill(Path directory, long threshold, EventQueueMetrics metrics) {
+        this.directory = directory;
+        this.metrics = metrics;
+        this.nextSegmentSize = (int) Math.max(MIN_SEGMENT_SIZE, Math.min(threshold, SEGMENT_SIZE));
+    }
+
+    static boolean isSpillable(Event event) {
+        return event instanceof StreamingEventKind;
+    }
+
+    /**
+     * @return a placeholder which reads the event back from the segment it was written to
+     */
+    synchronized SpilledEvent spill(long sequence, Event event) throws IOException {
+        if (closed) {
+            throw new IOException("Event spill is closed");
+        }
+        byte[] bytes = Utils.OBJECT_MAPPER.writeValueAsBytes(event);
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.remaining() < bytes.length) {
+            segment = new Segment(directory, Math.max(nextSegmentSize, bytes.length), metrics);
+            segments.addLast(segment);
+            nextSegmentSize = Math.min(nextSegmentSize * 2, SEGMENT_SIZE);
+        }
+        return new SpilledEvent(segment, segment.write(sequence, bytes), bytes.length, event.getClass());
+    }
+
+    /**
+     * Unmaps the segments whose events all come before the given sequence, which is the oldest one any reader
+     * still needs.
+     */
+    synchronized void release(long oldestNeeded) {
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.lastSequence >= oldestNeeded || (!closed && segment == segments.peekLast())) {
+                return;
+            }
+            iterator.remove();
+            segment.release();
+        }
+    }
+
+    /**
+     * Stops spilling, so that the last segment is released as well once the readers moved past it.
+     */
+    synchronized void close() {
+        closed = true;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized boolean hasSegments() {
+        return !segments.isEmpty();
+    }
+
+    /**
+     * An event written to a segment.
+     */
+    record SpilledEvent(Segment segment, int offset, int length, Class<? extends Event> type) implements Event {
+
+        /**
+         * Must only be called between {@link Segment#acquire()} and {@link Segment#releaseReader()}.
+         */
+        Event read() {
+            byte[] bytes = new byte[length];
+            segment.buffer.get(offset, bytes);
+            try {
+                return Utils.OBJECT_MAPPER.readValue(bytes, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read spilled event", e);
+            }
+        }
+    }
+
+    static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final Mapping mapping;
+        private final Cleaner.Cleanable cleanable;
+        // The readers copying from the buffer, which must not be unmapped under them
+        private final AtomicInteger readers = new AtomicInteger();
+        private volatile boolean released;
+        private int position;
+        private long lastSequence = -1;
+
+        Segment(Path directory, int size, EventQueueMetrics metrics) throws IOException {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "a2a-events-", ".spill");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            // The mapping stays valid without the file on platforms which allow deleting it
+            try {
+                Files.delete(file);
+                file = null;
+            } catch (IOException e) {
+                LOGGER.debug("Unable to delete mapped spill segment {}, deleting it once unmapped", file, e);
+            }
+            metrics.recordSpillMapped(size);
+            mapping = new Mapping(metrics, size, file);
+            cleanable = CLEANER.register(this, mapping);
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        int write(long sequence, byte[] bytes) {
+            int offset = position;
+            buffer.put(offset, bytes);
+            position += bytes.length;
+            lastSequence = sequence;
+            return offset;
+        }
+
+        /**
+         * Keeps the segment mapped until {@link #releaseReader()}.
+         *
+         * @return {@code false} if the segment was already released
+         */
+        boolean acquire() {
+            readers.incrementAndGet();
+            if (released) {
+                releaseReader();
+                return false;
+            }
+            return true;
+        }
+
+        void releaseReader() {
+            if (readers.decrementAndGet() == 0 && released) {
+                unmap();
+            }
+        }
+
+        void release() {
+            released = true;
+            if (readers.get() == 0) {
+                unmap();
+            }
+        }
+
+        private void unmap() {
+            if (!mapping.unmapping.compareAndSet(false, true)) {
+                return;
+            }
+            if (MappedBuffers.unmap(buffer)) {
+                cleanable.clean();
+            }
+        }
+    }
+
+    /**
+     * The bookkeeping of a segment once it is unmapped, explicitly or by the garbage collector.
+     */
+    private static final class Mapping implements Runnable {
+        private final EventQueueMetrics metrics;
+        private final int size;
+        private final Path file;
+        private final AtomicBoolean unmapping = new AtomicBoolean();
+
+        Mapping(EventQueueMetrics metrics, int size, Path file) {
+            this.metrics = metrics;
+            this.size = size;
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            metrics.recordSpillUnmapped(size);
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete spill segment {}", file, e);
+                }
+            }
+        }
+    }
+}
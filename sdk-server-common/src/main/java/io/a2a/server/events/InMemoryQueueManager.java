@@ -1,16 +1,167 @@
 package io.a2a.server.events;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the queues of the tasks in memory.
+ * <p>
+ * Queues are normally removed by {@link #close(String)} once the agent of their task is done. So that a queue
+ * whose stream was abandoned does not stay around forever, {@link #reap()} evicts the queues which are closed and
+ * drained, and the queues which have neither a {@linkplain EventQueue#agentStarted() running agent} nor a consumer
+ * waiting for their events, and have not had an event enqueued or been tapped for the idle timeout. A queue whose
+ * agent is still running, e.g. in a long tool call, or whose final event has not been read yet, is kept.
+ * <p>
+ * A closed queue which retains a replay window, see {@link EventQueueConfig#replayCapacity()}, is kept for the
+ * replay retention even once {@link #close(String)} was called, so that a client whose stream broke just before
+ * the task finished can still resubscribe from the last event it received.
+ * <p>
+ * The sequences of the events of a task keep increasing when its queue is replaced, so that a resubscribing client
+ * never mistakes a new event for one it already received. The manager remembers the next sequence of a removed
+ * queue for the idle timeout.
+ * <p>
+ * The manager reaps every {@link #REAP_INTERVAL}, or every idle timeout if it is shorter, on a daemon thread
+ * shared by all managers, so an idle server reclaims its queues too; applications can also call {@link #reap()}
+ * themselves.
+ */
 @ApplicationScoped
 public class InMemoryQueueManager implements QueueManager {
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    public static final Duration REAP_INTERVAL = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REPLAY_RETENTION = Duration.ofMinutes(1);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryQueueManager.class);
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "a2a-queue-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final ConcurrentMap<String, EventQueue> queues = new ConcurrentHashMap<>();
+    // The sequences the next queues of the tasks start from, once their previous queues were removed
+    private final ConcurrentMap<String, NextSequence> nextSequences = new ConcurrentHashMap<>();
+    private final EventQueueConfig config;
+    private final EventQueueMetrics metrics = new EventQueueMetrics();
+    private final long idleTimeoutNanos;
+    private final long replayRetentionNanos;
+    private final ScheduledFuture<?> reaping;
+
+    public InMemoryQueueManager() {
+        this(EventQueueConfig.DEFAULT);
+    }
+
+    public InMemoryQueueManager(EventQueueBackend backend) {
+        this(new EventQueueConfig.Builder().backend(backend).build());
+    }
+
+    public InMemoryQueueManager(EventQueueConfig config) {
+        this(config, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public InMemoryQueueManager(EventQueueConfig config, Duration idleTimeout) {
+        this(config, idleTimeout, DEFAULT_REPLAY_RETENTION);
+    }
+
+    /**
+     * @param replayRetention how long the replay window of a closed queue is kept for resubscribing clients
+     */
+    public InMemoryQueueManager(EventQueueConfig config, Duration idleTimeout, Duration replayRetention) {
+        if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        if (replayRetention == null || replayRetention.isNegative()) {
+            throw new IllegalArgumentException("replayRetention must not be negative");
+        }
+        this.config = config;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        // Without a replay window there is nothing to keep a closed queue for
+        this.replayRetentionNanos = config.replayCapacity() == 0 ? 0 : replayRetention.toNanos();
+        long interval = Math.min(REAP_INTERVAL.toNanos(), idleTimeoutNanos);
+        this.reaping = REAPER.scheduleWithFixedDelay(new Reaper(this), interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public EventQueueMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the number of queues currently held by the manager
+     */
+    public int getQueueCount() {
+        return queues.size();
+    }
+
+    /**
+     * @return the number of events held by the managed queues which have not been read by every tap yet
+     */
+    public long getBufferedEventCount() {
+        long count = 0;
+        for (EventQueue queue : queues.values()) {
+            count += queue.getBufferedEventCount();
+        }
+        return count;
+    }
+
+    /**
+     * Evicts the queues which are closed and drained, or closed without a waiting consumer, once their replay
+     * retention elapsed, and the queues without a running agent or a waiting consumer which have been idle for
+     * longer than the idle timeout. Evicted queues are closed; their taps can still read the events they have not
+     * read yet.
+     *
+     * @return the number of evicted queues
+     */
+    public int reap() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<String, EventQueue> entry : queues.entrySet()) {
+            EventQueue queue = entry.getValue();
+            if (isEvictable(queue, now) && queues.remove(entry.getKey(), queue)) {
+                queue.close();
+                queue.discard();
+                retire(entry.getKey(), queue);
+                metrics.recordEvictedQueue();
+                evicted++;
+            }
+        }
+        nextSequences.values().removeIf(next -> now - next.removedNanos() > idleTimeoutNanos);
+        return evicted;
+    }
+
+    private void retire(String taskId, EventQueue queue) {
+        nextSequences.put(taskId, new NextSequence(queue.getNextSequence(), System.nanoTime()));
+    }
+
+    private boolean isEvictable(EventQueue queue, long now) {
+        if (queue.isClosed()) {
+            // Nothing can be enqueued any more, so the queue is only kept for its replay window and its readers
+            return now - queue.getClosedNanos() >= replayRetentionNanos
+                    && (queue.isDrained() || !queue.hasReaders());
+        }
+        return !queue.hasRunningAgent()
+                && !queue.hasReaders()
+                && now - queue.getLastActivityNanos() > idleTimeoutNanos;
+    }
+
+    /**
+     * Stops reaping the queues in the background.
+     */
+    @PreDestroy
+    public void stopReaping() {
+        reaping.cancel(false);
+    }
 
     @Override
     public void add(String taskId, EventQueue queue) {
@@ -28,32 +179,82 @@ public class InMemoryQueueManager implements QueueManager {
     @Override
     public EventQueue tap(String taskId) {
         EventQueue queue = queues.get(taskId);
-        return queue == null ? null : queue.tap();
+        // A closed queue will not get any new events
+        return queue == null || queue.isClosed() ? null : queue.tap();
+    }
+
+    @Override
+    public EventQueue tap(String taskId, long fromSequence) {
+        EventQueue queue = queues.get(taskId);
+        return queue == null ? null : queue.tap(fromSequence);
     }
 
     @Override
     public void close(String taskId) {
-        EventQueue existing = queues.remove(taskId);
+        EventQueue existing = queues.get(taskId);
         if (existing == null) {
             throw new NoTaskQueueException();
         }
+        // A closed queue with a replay window is left for reap() to evict once the retention elapsed
+        if ((!existing.isClosed() || replayRetentionNanos == 0) && queues.remove(taskId, existing)) {
+            existing.discard();
+            retire(taskId, existing);
+        }
     }
 
     @Override
     public EventQueue createOrTap(String taskId) {
-
-        EventQueue existing = queues.get(taskId);
-        EventQueue newQueue = null;
-        if (existing == null) {
-            newQueue = EventQueue.create();
-            // Make sure an existing queue has not been added in the meantime
-            existing = queues.putIfAbsent(taskId, newQueue);
+        while (true) {
+            EventQueue existing = queues.get(taskId);
+            if (existing != null && !existing.isClosed()) {
+                return existing.tap();
+            }
+            // Replace a closed queue which was not removed, since nothing could be enqueued to it, continuing
+            // the sequences of the task
+            NextSequence retired = existing == null ? nextSequences.get(taskId) : null;
+            long firstSequence = existing != null ? existing.getNextSequence()
+                    : retired != null ? retired.sequence() : 0;
+            EventQueue newQueue = EventQueue.create(config, metrics, firstSequence);
+            // Make sure another queue has not been added in the meantime
+            boolean added = existing == null
+                    ? queues.putIfAbsent(taskId, newQueue) == null
+                    : queues.replace(taskId, existing, newQueue);
+            if (added) {
+                if (existing != null) {
+                    existing.discard();
+                } else if (retired != null) {
+                    nextSequences.remove(taskId, retired);
+                }
+                return newQueue;
+            }
         }
-        return existing == null ? newQueue : existing.tap();
     }
 
-    @Override
-    public void awaitQueuePollerStart(EventQueue eventQueue) throws InterruptedException {
-        eventQueue.awaitQueuePollerStart();
+    private record NextSequence(long sequence, long removedNanos) {
+    }
+
+    /**
+     * Reaps the manager as long as it is in use, without keeping it from being garbage collected.
+     */
+    private static final class Reaper implements Runnable {
+        private final WeakReference<InMemoryQueueManager> manager;
+
+        Reaper(InMemoryQueueManager manager) {
+            this.manager = new WeakReference<>(manager);
+        }
+
+        @Override
+        public void run() {
+            InMemoryQueueManager queueManager = manager.get();
+            if (queueManager == null) {
+                // Cancel the reaping of the collected manager
+                throw new IllegalStateException("Queue manager was garbage collected");
+            }
+            try {
+                queueManager.reap();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Reaping the event queues failed", e);
+            }
+        }
     }
 }
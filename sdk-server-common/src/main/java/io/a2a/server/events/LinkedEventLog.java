@@ -0,0 +1,247 @@
+package io.a2a.server.events;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.a2a.server.events.EventSpill.SpilledEvent;
+import io.a2a.spec.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link EventLog} stored in a singly linked list of nodes. Each cursor points at the last node it read, so
+ * nodes are reclaimed by the garbage collector as soon as every cursor, and the retained window, has moved
+ * past them, and memory only grows with the events actually pending.
+ * <p>
+ * If {@link EventQueueConfig#spillThresholdBytes()} is set, each node also records the estimated heap taken up by
+ * the events up to it. While the events which have not been released take up more than the threshold, new events
+ * are spilled to an {@link EventSpill} and only read back when a cursor reaches them.
+ */
+class LinkedEventLog extends EventLog<LinkedEventLog.Cursor> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkedEventLog.class);
+
+    private final int replayCapacity;
+    private final EventQueueMetrics metrics;
+    private final long spillThreshold;
+    private final EventSpill spill;
+    private final AtomicReference<Node> tail;
+    // The node before the oldest retained event
+    private final AtomicReference<Node> retained;
+    // The heap bytes up to the oldest node still referenced when last checked
+    private volatile long releasedBytes;
+
+    LinkedEventLog(EventQueueConfig config, EventQueueMetrics metrics, long firstSequence) {
+        super(config, metrics);
+        this.tail = new AtomicReference<>(new Node(firstSequence - 1, null, 0));
+        this.retained = new AtomicReference<>(tail.get());
+        this.replayCapacity = config.replayCapacity();
+        this.metrics = metrics;
+        this.spillThreshold = config.spillThresholdBytes();
+        this.spill = spillThreshold > 0
+                ? new EventSpill(config.spillDirectoryOrDefault(), spillThreshold, metrics)
+                : null;
+    }
+
+    @Override
+    long tail() {
+        return tail.get().sequence + 1;
+    }
+
+    @Override
+    boolean append(long sequence, Event event) {
+        Node last = tail.get();
+        if (last.sequence + 1 != sequence) {
+            return false;
+        }
+        Node node = newNode(last, sequence, event);
+        if (!tail.compareAndSet(last, node)) {
+            return false;
+        }
+        // Readers don't see the node until it is linked, which keeps them in sequence order
+        last.next = node;
+        release(sequence + 1 - replayCapacity);
+        return true;
+    }
+
+    private Node newNode(Node last, long sequence, Event event) {
+        if (spill == null) {
+            return new Node(sequence, event, 0);
+        }
+        long size = EventSizes.estimate(event);
+        if (EventSpill.isSpillable(event) && heldBytes(last, size) + size > spillThreshold) {
+            try {
+                SpilledEvent spilled = spill.spill(sequence, event);
+                metrics.recordSpilled(spilled.length());
+                if (spilled.offset() == 0) {
+                    // A new segment was mapped, the readers may be done with the older ones
+                    releaseSpilled();
+                }
+                return new Node(sequence, spilled, last.heapBytes);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to spill event, keeping it on heap", e);
+            }
+        }
+        return new Node(sequence, event, last.heapBytes + size);
+    }
+
+    private long heldBytes(Node last, long size) {
+        long held = last.heapBytes - releasedBytes;
+        if (held + size <= spillThreshold) {
+            return held;
+        }
+        // The cached value may be stale, find the oldest node still referenced
+        long released = retained.get().heapBytes;
+        for (Cursor cursor : activeCursors()) {
+            released = Math.min(released, cursor.get().heapBytes);
+        }
+        releasedBytes = released;
+        return last.heapBytes - released;
+    }
+
+    private void release(long oldestRetained) {
+        Node node = retained.get();
+        while (node.sequence + 1 < oldestRetained) {
+            Node next = node.next;
+            if (next == null || !retained.compareAndSet(node, next)) {
+                // Not linked yet, or another producer is releasing
+                return;
+            }
+            node = next;
+        }
+    }
+
+    @Override
+    void close() {
+        if (spill != null) {
+            spill.close();
+            releaseSpilled();
+        }
+    }
+
+    @Override
+    void discard() {
+        // Nothing needs to be replayed any more
+        Node last = tail.get();
+        retained.set(last);
+        releasedBytes = last.heapBytes;
+        if (spill != null) {
+            releaseSpilled();
+        }
+    }
+
+    // Unmaps the spill segments which neither a reader nor the retained window need any more
+    private void releaseSpilled() {
+        long oldestNeeded = retained.get().sequence + 1;
+        for (Cursor cursor : activeCursors()) {
+            oldestNeeded = Math.min(oldestNeeded, cursor.get().sequence + 1);
+        }
+        spill.release(oldestNeeded);
+    }
+
+    @Override
+    Cursor newCursor(long fromSequence) {
+        Node last = tail.get();
+        if (fromSequence > last.sequence) {
+            return new Cursor(last);
+        }
+        Node node = retained.get();
+        while (node.sequence + 1 < fromSequence && node.next != null) {
+            node = node.next;
+        }
+        return new Cursor(node);
+    }
+
+    @Override
+    long position(Cursor cursor) {
+        return cursor.get().sequence + 1;
+    }
+
+    @Override
+    Event peek(Cursor cursor) {
+        Node next = cursor.get().next;
+        // Spilled events are only read back when they are consumed
+        return next == null ? null : next.event;
+    }
+
+    @Override
+    boolean skip(Cursor cursor, long sequence) {
+        Node last = cursor.get();
+        if (last.sequence + 1 != sequence) {
+            return false;
+        }
+        Node next = last.next;
+        return next != null && cursor.compareAndSet(last, next);
+    }
+
+    @Override
+    Event tryRead(Cursor cursor) {
+        while (true) {
+            Node last = cursor.get();
+            Node next = last.next;
+            if (next == null) {
+                return null;
+            }
+            if (next.event instanceof SpilledEvent spilled) {
+                Event event = readSpilled(cursor, last, next, spilled);
+                if (event != null) {
+                    return event;
+                }
+            } else if (cursor.compareAndSet(last, next)) {
+                cursor.lastRead = next.sequence;
+                return next.event;
+            }
+        }
+    }
+
+    private Event readSpilled(Cursor cursor, Node last, Node next, SpilledEvent spilled) {
+        // The segment is only released once every cursor moved past the event, so it must be held before moving
+        if (!spilled.segment().acquire()) {
+            throw new IllegalStateException("Spilled event " + next.sequence + " was already released");
+        }
+        Event event;
+        try {
+            if (!cursor.compareAndSet(last, next)) {
+                return null;
+            }
+            cursor.lastRead = next.sequence;
+            event = spilled.read();
+        } finally {
+            spilled.segment().releaseReader();
+        }
+        if (spill.isClosed() && spill.hasSegments()) {
+            releaseSpilled();
+        }
+        return event;
+    }
+
+    @Override
+    long lastRead(Cursor cursor) {
+        return cursor.lastRead;
+    }
+
+    /**
+     * The last node read.
+     */
+    static final class Cursor extends AtomicReference<Node> {
+        private volatile long lastRead = -1;
+
+        Cursor(Node node) {
+            super(node);
+        }
+    }
+
+    static final class Node {
+        private final long sequence;
+        private final Event event;
+        // The estimated heap taken up by the events up to and including this one
+        private final long heapBytes;
+        private volatile Node next;
+
+        Node(long sequence, Event event, long heapBytes) {
+            this.sequence = sequence;
+            this.event = event;
+            this.heapBytes = heapBytes;
+        }
+    }
+}
@@ -7,9 +7,16 @@ public interface QueueManager {
 
     EventQueue tap(String taskId);
 
+    /**
+     * Taps the queue of the task, starting with the retained events from the given sequence on.
+     *
+     * @return the tap, or {@code null} if the task has no queue
+     */
+    default EventQueue tap(String taskId, long fromSequence) {
+        return tap(taskId);
+    }
+
     void close(String taskId);
 
     EventQueue createOrTap(String taskId);
-
-    void awaitQueuePollerStart(EventQueue eventQueue) throws InterruptedException;
 }
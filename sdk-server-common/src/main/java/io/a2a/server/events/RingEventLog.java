@@ -0,0 +1,125 @@
+package io.a2a.server.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.a2a.spec.Event;
+
+/**
+ * {@link EventLog} stored in a preallocated ring. A slot is not reused until every cursor has moved past it,
+ * and the ring has room for the retained events on top of the capacity.
+ */
+class RingEventLog extends EventLog<RingEventLog.Cursor> {
+
+    private final int replayCapacity;
+    private final int mask;
+    private final AtomicReferenceArray<Event> slots;
+    // The sequence currently stored in each slot, written after the event so readers can tell
+    // a published slot apart from one that is still being written or has been reused
+    private final AtomicLongArray published;
+    private final long firstSequence;
+    private final AtomicLong claimed;
+
+    RingEventLog(EventQueueConfig config, EventQueueMetrics metrics, long firstSequence) {
+        super(config, metrics);
+        this.firstSequence = firstSequence;
+        this.claimed = new AtomicLong(firstSequence);
+        this.replayCapacity = config.replayCapacity();
+        int required = config.capacity() + replayCapacity;
+        int size = Integer.highestOneBit(required);
+        if (size < required) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    @Override
+    long tail() {
+        return claimed.get();
+    }
+
+    @Override
+    boolean append(long sequence, Event event) {
+        if (!claimed.compareAndSet(sequence, sequence + 1)) {
+            return false;
+        }
+        int index = index(sequence);
+        slots.set(index, event);
+        published.set(index, sequence);
+        return true;
+    }
+
+    @Override
+    Cursor newCursor(long fromSequence) {
+        long tail = claimed.get();
+        long oldest = Math.max(tail - replayCapacity, firstSequence);
+        return new Cursor(Math.min(Math.max(fromSequence, oldest), tail));
+    }
+
+    @Override
+    long position(Cursor cursor) {
+        return cursor.get();
+    }
+
+    @Override
+    Event peek(Cursor cursor) {
+        long sequence = cursor.get();
+        int index = index(sequence);
+        if (published.get(index) != sequence) {
+            return null;
+        }
+        Event event = slots.get(index);
+        return published.get(index) == sequence ? event : null;
+    }
+
+    @Override
+    boolean skip(Cursor cursor, long sequence) {
+        return cursor.compareAndSet(sequence, sequence + 1);
+    }
+
+    @Override
+    Event tryRead(Cursor cursor) {
+        while (true) {
+            long sequence = cursor.get();
+            int index = index(sequence);
+            if (published.get(index) != sequence) {
+                return null;
+            }
+            Event event = slots.get(index);
+            // Another consumer of the same buffer may have moved on and let the slot be reused
+            if (published.get(index) != sequence) {
+                continue;
+            }
+            if (cursor.compareAndSet(sequence, sequence + 1)) {
+                cursor.lastRead = sequence;
+                return event;
+            }
+        }
+    }
+
+    @Override
+    long lastRead(Cursor cursor) {
+        return cursor.lastRead;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    /**
+     * The sequence of the next event to read.
+     */
+    static final class Cursor extends AtomicLong {
+        private volatile long lastRead = -1;
+
+        Cursor(long sequence) {
+            super(sequence);
+        }
+    }
+}
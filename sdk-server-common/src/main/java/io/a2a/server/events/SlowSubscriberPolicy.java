@@ -0,0 +1,18 @@
+package io.a2a.server.events;
+
+/**
+ * What happens to a tap of an {@link EventQueue} which falls more than {@link EventQueueConfig#maxSubscriberLag()}
+ * events behind. In either case the producer and the other readers of the queue are not held up.
+ */
+public enum SlowSubscriberPolicy {
+    /**
+     * Close the tap, discarding its unread events. Its reader receives an {@link io.a2a.spec.InternalError}.
+     */
+    DETACH,
+    /**
+     * Discard the unread events of the tap and deliver a snapshot of the task in their place, as provided by
+     * {@link EventQueue#setSnapshotSupplier(java.util.function.Supplier)}. Taps without a snapshot supplier are
+     * detached.
+     */
+    SNAPSHOT
+}
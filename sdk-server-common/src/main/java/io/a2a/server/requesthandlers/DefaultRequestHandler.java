@@ -1,7 +1,6 @@
 package io.a2a.server.requesthandlers;
 
 import static io.a2a.server.util.async.AsyncUtils.convertingProcessor;
-import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
 import static io.a2a.server.util.async.AsyncUtils.processor;
 
 import java.util.ArrayList;
@@ -9,6 +8,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
@@ -23,6 +23,9 @@ import io.a2a.server.agentexecution.SimpleRequestContextBuilder;
 import io.a2a.server.events.EnhancedRunnable;
 import io.a2a.server.events.EventConsumer;
 import io.a2a.server.events.EventQueue;
+import io.a2a.server.events.EventSequences;
+import io.a2a.server.events.EventSizes;
+import io.a2a.server.events.NoTaskQueueException;
 import io.a2a.server.events.QueueManager;
 import io.a2a.server.events.TaskQueueExistsException;
 import io.a2a.server.tasks.PushNotificationConfigStore;
@@ -31,13 +34,20 @@ import io.a2a.server.tasks.ResultAggregator;
 import io.a2a.server.tasks.TaskManager;
 import io.a2a.server.tasks.TaskStore;
 import io.a2a.server.util.async.Internal;
+import io.a2a.server.util.async.SerialTaskExecutor;
+import io.a2a.server.util.async.StreamConfig;
+import io.a2a.server.util.async.StreamMetrics;
 import io.a2a.spec.DeleteTaskPushNotificationConfigParams;
 import io.a2a.spec.Event;
 import io.a2a.spec.EventKind;
 import io.a2a.spec.GetTaskPushNotificationConfigParams;
+import io.a2a.spec.GetTasksParams;
 import io.a2a.spec.InternalError;
+import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.ListTaskPushNotificationConfigParams;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.Message;
 import io.a2a.spec.MessageSendParams;
 import io.a2a.spec.PushNotificationConfig;
@@ -48,15 +58,22 @@ import io.a2a.spec.TaskNotFoundError;
 import io.a2a.spec.TaskPushNotificationConfig;
 import io.a2a.spec.TaskQueryParams;
 import io.a2a.spec.UnsupportedOperationError;
+import io.a2a.util.Assert;
+import io.a2a.util.Utils;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import mutiny.zero.ZeroPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @ApplicationScoped
 public class DefaultRequestHandler implements RequestHandler {
 
+    public static final int DEFAULT_LIST_PAGE_SIZE = 50;
+    public static final int MAX_LIST_PAGE_SIZE = 1000;
+    public static final int MAX_GET_TASKS = 1000;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRequestHandler.class);
 
     private final AgentExecutor agentExecutor;
@@ -69,17 +86,33 @@ public class DefaultRequestHandler implements RequestHandler {
     private final ConcurrentMap<String, CompletableFuture<Void>> runningAgents = new ConcurrentHashMap<>();
 
     private final Executor executor;
+    // Serializes the changes made to each task by the concurrent requests
+    private final SerialTaskExecutor serialExecutor;
+    private final StreamConfig streamConfig;
+    private final StreamMetrics streamMetrics = new StreamMetrics();
 
     @Inject
     public DefaultRequestHandler(AgentExecutor agentExecutor, TaskStore taskStore,
                                  QueueManager queueManager, PushNotificationConfigStore pushConfigStore,
                                  PushNotificationSender pushSender, @Internal Executor executor) {
+        this(agentExecutor, taskStore, queueManager, pushConfigStore, pushSender, executor, StreamConfig.DEFAULT);
+    }
+
+    /**
+     * @param streamConfig the sizing of the stages buffering the events streamed to each client
+     */
+    public DefaultRequestHandler(AgentExecutor agentExecutor, TaskStore taskStore,
+                                 QueueManager queueManager, PushNotificationConfigStore pushConfigStore,
+                                 PushNotificationSender pushSender, Executor executor, StreamConfig streamConfig) {
+        Assert.checkNotNullParam("streamConfig", streamConfig);
         this.agentExecutor = agentExecutor;
         this.taskStore = taskStore;
         this.queueManager = queueManager;
         this.pushConfigStore = pushConfigStore;
         this.pushSender = pushSender;
         this.executor = executor;
+        this.serialExecutor = new SerialTaskExecutor(executor);
+        this.streamConfig = streamConfig;
         // TODO In Python this is also a constructor parameter defaulting to this SimpleRequestContextBuilder
         //  implementation if the parameter is null. Skip that for now, since otherwise I get CDI errors, and
         //  I am unsure about the correct scope.
@@ -87,6 +120,13 @@ public class DefaultRequestHandler implements RequestHandler {
         this.requestContextBuilder = () -> new SimpleRequestContextBuilder(taskStore, false);
     }
 
+    /**
+     * @return the occupancy of the stages buffering the events streamed to the clients
+     */
+    public StreamMetrics getStreamMetrics() {
+        return streamMetrics;
+    }
+
     @Override
     public Task onGetTask(TaskQueryParams params, ServerCallContext context) throws JSONRPCError {
         LOGGER.debug("onGetTask {}", params.id());
@@ -95,25 +135,61 @@ public class DefaultRequestHandler implements RequestHandler {
             LOGGER.debug("No task found for {}. Throwing TaskNotFoundError", params.id());
             throw new TaskNotFoundError();
         }
-        if (params.historyLength() != null && task.getHistory() != null && params.historyLength() < task.getHistory().size()) {
+        task = limitHistory(task, params.historyLength());
+        LOGGER.debug("Task found {}", task);
+        return task;
+    }
+
+    @Override
+    public List<Task> onGetTasks(GetTasksParams params, ServerCallContext context) throws JSONRPCError {
+        LOGGER.debug("onGetTasks {}", params.ids());
+        if (params.ids().size() > MAX_GET_TASKS) {
+            throw new InvalidParamsError("At most " + MAX_GET_TASKS + " tasks can be requested at once");
+        }
+        List<Task> tasks = taskStore.getAll(params.ids());
+        List<Task> limited = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            limited.add(limitHistory(task, params.historyLength()));
+        }
+        return limited;
+    }
+
+    private static Task limitHistory(Task task, Integer historyLength) {
+        if (historyLength != null && task.getHistory() != null && historyLength < task.getHistory().size()) {
             List<Message> history;
-            if (params.historyLength() <= 0) {
+            if (historyLength <= 0) {
                 history = new ArrayList<>();
             } else {
                 history = task.getHistory().subList(
-                        task.getHistory().size() - params.historyLength(),
-                        task.getHistory().size() - 1);
+                        task.getHistory().size() - historyLength,
+                        task.getHistory().size());
             }
 
             task = new Task.Builder(task)
                     .history(history)
                     .build();
         }
-
-        LOGGER.debug("Task found {}", task);
         return task;
     }
 
+    @Override
+    public ListTasksResult onListTasks(ListTasksParams params, ServerCallContext context) throws JSONRPCError {
+        if (!taskStore.isListable()) {
+            throw new UnsupportedOperationError();
+        }
+        ListTasksParams.Builder query = params == null ? new ListTasksParams.Builder() : new ListTasksParams.Builder(params);
+        if (params == null || params.pageSize() == null) {
+            query.pageSize(DEFAULT_LIST_PAGE_SIZE);
+        } else if (params.pageSize() > MAX_LIST_PAGE_SIZE) {
+            query.pageSize(MAX_LIST_PAGE_SIZE);
+        }
+        try {
+            return taskStore.list(query.build());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParamsError(e.getMessage());
+        }
+    }
+
     @Override
     public Task onCancelTask(TaskIdParams params, ServerCallContext context) throws JSONRPCError {
         Task task = taskStore.get(params.id());
@@ -124,9 +200,10 @@ public class DefaultRequestHandler implements RequestHandler {
                 task.getId(),
                 task.getContextId(),
                 taskStore,
-                null);
+                null,
+                serialExecutor);
 
-        ResultAggregator resultAggregator = new ResultAggregator(taskManager, null);
+        ResultAggregator resultAggregator = new ResultAggregator(taskManager, null, streamConfig, streamMetrics);
 
         EventQueue queue = queueManager.tap(task.getId());
         if (queue == null) {
@@ -144,7 +221,7 @@ public class DefaultRequestHandler implements RequestHandler {
         Optional.ofNullable(runningAgents.get(task.getId()))
                 .ifPresent(cf -> cf.cancel(true));
 
-        EventConsumer consumer = new EventConsumer(queue);
+        EventConsumer consumer = new EventConsumer(queue, null, streamConfig, streamMetrics);
         EventKind type = resultAggregator.consumeAll(consumer);
         if (type instanceof Task tempTask) {
             return tempTask;
@@ -162,14 +239,14 @@ public class DefaultRequestHandler implements RequestHandler {
         LOGGER.debug("Request context taskId: {}", taskId);
 
         EventQueue queue = queueManager.createOrTap(taskId);
-        ResultAggregator resultAggregator = new ResultAggregator(mss.taskManager, null);
+        ResultAggregator resultAggregator = new ResultAggregator(mss.taskManager, null, streamConfig, streamMetrics);
 
         boolean interrupted = false;
 
         EnhancedRunnable producerRunnable = registerAndExecuteAgentAsync(taskId, mss.requestContext, queue);
         ResultAggregator.EventTypeAndInterrupt etai = null;
         try {
-            EventConsumer consumer = new EventConsumer(queue);
+            EventConsumer consumer = new EventConsumer(queue, null, streamConfig, streamMetrics);
 
             // This callback must be added before we start consuming. Otherwise,
             // any errors thrown by the producerRunnable are not picked up by the consumer
@@ -209,12 +286,13 @@ public class DefaultRequestHandler implements RequestHandler {
 
         AtomicReference<String> taskId = new AtomicReference<>(mss.requestContext.getTaskId());
         EventQueue queue = queueManager.createOrTap(taskId.get());
-        ResultAggregator resultAggregator = new ResultAggregator(mss.taskManager, null);
+        setSnapshotSupplier(queue, taskId.get());
+        ResultAggregator resultAggregator = new ResultAggregator(mss.taskManager, null, streamConfig, streamMetrics);
 
         EnhancedRunnable producerRunnable = registerAndExecuteAgentAsync(taskId.get(), mss.requestContext, queue);
 
         try {
-            EventConsumer consumer = new EventConsumer(queue);
+            EventConsumer consumer = new EventConsumer(queue, eventSequences(context), streamConfig, streamMetrics);
 
             // This callback must be added before we start consuming. Otherwise,
             // any errors thrown by the producerRunnable are not picked up by the consumer
@@ -222,7 +300,7 @@ public class DefaultRequestHandler implements RequestHandler {
             Flow.Publisher<Event> results = resultAggregator.consumeAndEmit(consumer);
 
             Flow.Publisher<Event> eventPublisher =
-                    processor(createTubeConfig(), results, ((errorConsumer, event) -> {
+                    processor(streamConfig, streamMetrics, results, EventSizes::estimate, ((errorConsumer, event) -> {
                 if (event instanceof Task createdTask) {
                     if (!Objects.equals(taskId.get(), createdTask.getId())) {
                         errorConsumer.accept(new InternalError("Task ID mismatch in agent response"));
@@ -247,10 +325,13 @@ public class DefaultRequestHandler implements RequestHandler {
 
                 }
                 if (pushSender != null && taskId.get() != null) {
-                    EventKind latest = resultAggregator.getCurrentResult();
-                    if (latest instanceof Task latestTask) {
-                        pushSender.sendNotification(latestTask);
-                    }
+                    // Sent once the event was applied to the task, without holding up the stream
+                    resultAggregator.whenProcessed().thenRun(() -> {
+                        EventKind latest = resultAggregator.getCurrentResult();
+                        if (latest instanceof Task latestTask) {
+                            pushSender.sendNotification(latestTask);
+                        }
+                    });
                 }
 
                 return true;
@@ -317,19 +398,42 @@ public class DefaultRequestHandler implements RequestHandler {
             throw new TaskNotFoundError();
         }
 
-        TaskManager taskManager = new TaskManager(task.getId(), task.getContextId(), taskStore, null);
-        ResultAggregator resultAggregator = new ResultAggregator(taskManager, null);
-        EventQueue queue = queueManager.tap(task.getId());
+        EventSequences sequences = eventSequences(context);
+        boolean resuming = sequences != null && sequences.getLastEventId() >= 0;
+        // A client resuming a stream which broke just before the task finished gets the events it missed from the
+        // replay window, which is kept for a while after the queue closed
+        if (task.getStatus().state().isFinal() && !resuming) {
+            return ZeroPublisher.fromItems(task);
+        }
+
+        TaskManager taskManager = new TaskManager(task.getId(), task.getContextId(), taskStore, null, serialExecutor);
+        ResultAggregator resultAggregator = new ResultAggregator(taskManager, null, streamConfig, streamMetrics);
+        EventQueue queue = resuming
+                ? queueManager.tap(task.getId(), sequences.getLastEventId() + 1)
+                : queueManager.tap(task.getId());
 
         if (queue == null) {
-            throw new TaskNotFoundError();
+            // Nothing is producing events for the task any more, so its current state is all there is to send
+            return ZeroPublisher.fromItems(task);
         }
 
-        EventConsumer consumer = new EventConsumer(queue);
+        setSnapshotSupplier(queue, task.getId());
+        EventConsumer consumer = new EventConsumer(queue, sequences, streamConfig, streamMetrics);
         Flow.Publisher<Event> results = resultAggregator.consumeAndEmit(consumer);
         return convertingProcessor(results, e -> (StreamingEventKind) e);
     }
 
+    // A subscriber which falls too far behind may get the stored task in place of the events it missed
+    private void setSnapshotSupplier(EventQueue queue, String taskId) {
+        if (taskId != null) {
+            queue.setSnapshotSupplier(() -> taskStore.get(taskId));
+        }
+    }
+
+    private static EventSequences eventSequences(ServerCallContext context) {
+        return context == null ? null : context.getEventSequences();
+    }
+
     @Override
     public List<TaskPushNotificationConfig> onListTaskPushNotificationConfig(
             ListTaskPushNotificationConfigParams params, ServerCallContext context) throws JSONRPCError {
@@ -377,21 +481,22 @@ public class DefaultRequestHandler implements RequestHandler {
             @Override
             public void run() {
                 agentExecutor.execute(requestContext, queue);
-                try {
-                    queueManager.awaitQueuePollerStart(queue);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
             }
         };
 
+        // Keeps the queue from being evicted while the agent runs, even if it does not enqueue anything for a while
+        queue.agentStarted();
         CompletableFuture<Void> cf = CompletableFuture.runAsync(runnable, executor)
                 .whenComplete((v, err) -> {
                     if (err != null) {
                         runnable.setError(err);
                     }
-                    queue.close();
+                    queue.agentDone();
+                    // Run the callbacks first so that consumers woken up by closing the queue see any error.
+                    // There is no need to wait for a consumer to start polling: the events enqueued so far
+                    // stay readable once the queue is closed, and callbacks added later are run immediately.
                     runnable.invokeDoneCallbacks();
+                    queue.close();
                 });
         runningAgents.put(taskId, cf);
         return runnable;
@@ -401,8 +506,12 @@ public class DefaultRequestHandler implements RequestHandler {
         // TODO the Python implementation waits for the producerRunnable
         runningAgents.get(taskId)
                 .whenComplete((v, t) -> {
-                    queueManager.close(taskId);
                     runningAgents.remove(taskId);
+                    try {
+                        queueManager.close(taskId);
+                    } catch (NoTaskQueueException e) {
+                        // The queue manager already evicted the queue
+                    }
                 });
     }
 
@@ -411,12 +520,18 @@ public class DefaultRequestHandler implements RequestHandler {
                 params.message().getTaskId(),
                 params.message().getContextId(),
                 taskStore,
-                params.message());
+                params.message(),
+                serialExecutor);
 
         Task task = taskManager.getTask();
         if (task != null) {
             LOGGER.debug("Found task updating with message {}", params.message());
-            task = taskManager.updateWithMessage(params.message(), task);
+            try {
+                // The agent is started with the updated task, so the request waits for the change to be applied
+                task = taskManager.updateWithMessage(params.message(), task).toCompletableFuture().join();
+            } catch (CompletionException e) {
+                Utils.rethrow(e.getCause());
+            }
 
             if (shouldAddPushInfo(params)) {
                 LOGGER.debug("Adding push info");
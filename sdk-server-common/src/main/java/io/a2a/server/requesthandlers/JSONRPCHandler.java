@@ -20,11 +20,16 @@ import io.a2a.spec.GetTaskPushNotificationConfigRequest;
 import io.a2a.spec.GetTaskPushNotificationConfigResponse;
 import io.a2a.spec.GetTaskRequest;
 import io.a2a.spec.GetTaskResponse;
+import io.a2a.spec.GetTasksRequest;
+import io.a2a.spec.GetTasksResponse;
 import io.a2a.spec.InternalError;
 import io.a2a.spec.InvalidRequestError;
 import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.ListTaskPushNotificationConfigRequest;
 import io.a2a.spec.ListTaskPushNotificationConfigResponse;
+import io.a2a.spec.ListTasksRequest;
+import io.a2a.spec.ListTasksResponse;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.PushNotificationNotSupportedError;
 import io.a2a.spec.SendMessageRequest;
 import io.a2a.spec.SendMessageResponse;
@@ -169,6 +174,28 @@ public class JSONRPCHandler {
         }
     }
 
+    public GetTasksResponse onGetTasks(GetTasksRequest request, ServerCallContext context) {
+        try {
+            List<Task> tasks = requestHandler.onGetTasks(request.getParams(), context);
+            return new GetTasksResponse(request.getId(), tasks);
+        } catch (JSONRPCError e) {
+            return new GetTasksResponse(request.getId(), e);
+        } catch (Throwable t) {
+            return new GetTasksResponse(request.getId(), new InternalError(t.getMessage()));
+        }
+    }
+
+    public ListTasksResponse onListTasks(ListTasksRequest request, ServerCallContext context) {
+        try {
+            ListTasksResult result = requestHandler.onListTasks(request.getParams(), context);
+            return new ListTasksResponse(request.getId(), result);
+        } catch (JSONRPCError e) {
+            return new ListTasksResponse(request.getId(), e);
+        } catch (Throwable t) {
+            return new ListTasksResponse(request.getId(), new InternalError(t.getMessage()));
+        }
+    }
+
     public ListTaskPushNotificationConfigResponse listPushNotificationConfig(
             ListTaskPushNotificationConfigRequest request, ServerCallContext context) {
         if ( !agentCard.capabilities().pushNotifications()) {
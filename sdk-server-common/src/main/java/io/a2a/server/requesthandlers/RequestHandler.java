@@ -7,8 +7,11 @@ import io.a2a.server.ServerCallContext;
 import io.a2a.spec.DeleteTaskPushNotificationConfigParams;
 import io.a2a.spec.EventKind;
 import io.a2a.spec.GetTaskPushNotificationConfigParams;
+import io.a2a.spec.GetTasksParams;
 import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.ListTaskPushNotificationConfigParams;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.MessageSendParams;
 import io.a2a.spec.StreamingEventKind;
 import io.a2a.spec.Task;
@@ -21,6 +24,14 @@ public interface RequestHandler {
             TaskQueryParams params,
             ServerCallContext context) throws JSONRPCError;
 
+    List<Task> onGetTasks(
+            GetTasksParams params,
+            ServerCallContext context) throws JSONRPCError;
+
+    ListTasksResult onListTasks(
+            ListTasksParams params,
+            ServerCallContext context) throws JSONRPCError;
+
     Task onCancelTask(
             TaskIdParams params,
             ServerCallContext context) throws JSONRPCError;
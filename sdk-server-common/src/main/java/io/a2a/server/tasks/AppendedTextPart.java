@@ -0,0 +1,69 @@
+package io.a2a.server.tasks;
+
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import io.a2a.spec.Part;
+import io.a2a.spec.TextPart;
+
+/**
+ * A {@link TextPart} grown by appending the text of the chunks streamed for an artifact.
+ * <p>
+ * The versions of the part share a single buffer, each one seeing the text up to its own length, so appending a
+ * chunk to the latest version is amortized O(1) instead of copying the whole text. The text of a version is only
+ * copied out of the buffer when it is asked for. Appending to an older version copies its text to a new buffer.
+ */
+@JsonTypeName("text")
+final class AppendedTextPart extends TextPart {
+    private final StringBuilder buffer;
+    private final int length;
+    private volatile String text;
+
+    private AppendedTextPart(StringBuilder buffer, int length, Map<String, Object> metadata) {
+        super("", metadata);
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * @return whether the part can be merged into the text part preceding it
+     */
+    static boolean canAppend(Part<?> previous, Part<?> part) {
+        return previous instanceof TextPart previousText && part instanceof TextPart text
+                && Objects.equals(previousText.getMetadata(), text.getMetadata());
+    }
+
+    /**
+     * @return a text part with the text of the chunk appended to the text of the part
+     */
+    static TextPart append(TextPart part, TextPart chunk) {
+        if (part instanceof AppendedTextPart appended) {
+            StringBuilder buffer = appended.buffer;
+            synchronized (buffer) {
+                // Only the latest version can append in place, the others would overwrite its text
+                if (buffer.length() == appended.length) {
+                    buffer.append(chunk.getText());
+                    return new AppendedTextPart(buffer, buffer.length(), part.getMetadata());
+                }
+            }
+        }
+        String text = part.getText();
+        StringBuilder buffer = new StringBuilder(Math.max(16, 2 * (text.length() + chunk.getText().length())))
+                .append(text)
+                .append(chunk.getText());
+        return new AppendedTextPart(buffer, buffer.length(), part.getMetadata());
+    }
+
+    @Override
+    public String getText() {
+        String current = text;
+        if (current == null) {
+            synchronized (buffer) {
+                current = buffer.substring(0, length);
+            }
+            text = current;
+        }
+        return current;
+    }
+}
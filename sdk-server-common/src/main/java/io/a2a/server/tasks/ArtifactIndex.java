@@ -0,0 +1,53 @@
+package io.a2a.server.tasks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Task;
+
+/**
+ * The positions of the artifacts of a task by id, so that {@link TaskManager} does not scan the artifacts for
+ * each chunk.
+ * <p>
+ * The index is kept for one artifacts list at a time. It is moved along when an artifact is replaced or added at
+ * the end, which does not move the other artifacts, and rebuilt when it is asked about any other list.
+ */
+final class ArtifactIndex {
+    private List<Artifact> artifacts;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    /**
+     * @return the index of the artifact with the id in the task, or {@code -1} if there is none
+     */
+    synchronized int indexOf(Task task, String artifactId) {
+        List<Artifact> current = task.getArtifacts();
+        if (current == null) {
+            return -1;
+        }
+        if (current != artifacts) {
+            positions.clear();
+            for (int i = 0; i < current.size(); i++) {
+                // The first artifact with the id wins, as with a scan
+                positions.putIfAbsent(current.get(i).artifactId(), i);
+            }
+            artifacts = current;
+        }
+        return positions.getOrDefault(artifactId, -1);
+    }
+
+    /**
+     * Moves the index from the artifacts of the task to the artifacts of the updated task, in which the artifact
+     * with the id was replaced or, if the index is {@code -1}, added at the end.
+     */
+    synchronized void updated(Task task, Task updated, String artifactId, int index) {
+        if (task.getArtifacts() != artifacts || updated.getArtifacts() == null) {
+            return;
+        }
+        if (index < 0) {
+            positions.put(artifactId, updated.getArtifacts().size() - 1);
+        }
+        artifacts = updated.getArtifacts();
+    }
+}
@@ -1,32 +1,457 @@
 package io.a2a.server.tasks;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
+import io.a2a.server.events.EventSizes;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
 
+/**
+ * Keeps the tasks in memory.
+ * <p>
+ * By default the store is unbounded. With an {@link InMemoryTaskStoreConfig} it evicts the least recently used
+ * tasks in a final or interrupted state beyond a maximum number of tasks or estimated bytes, and drops them once
+ * their time to live elapsed. Running tasks are never evicted, since their managers would lose them, so the store
+ * exceeds its bounds while the running tasks do. Expired tasks are not returned, and are purged at most every {@link #PURGE_INTERVAL}
+ * while tasks are being saved.
+ * <p>
+ * Lookups do not wait for the lock guarding the usage order; a lookup made while it is held does not count as a
+ * use, so the eviction order is only approximately the least recently used one under contention.
+ * <p>
+ * Tasks are indexed by context id, state and creation time, so {@link #list(ListTasksParams)} only visits the
+ * tasks of the most selective criterion. The creation time of a task is when it was first saved, in microseconds,
+ * made unique so that it also orders the tasks for paging.
+ * <p>
+ * The store is versioned: each save of a task increases its version, which {@link #compareAndSave(Task, long)}
+ * checks atomically.
+ */
 @ApplicationScoped
 public class InMemoryTaskStore implements TaskStore {
+    public static final Duration PURGE_INTERVAL = Duration.ofSeconds(10);
 
-    private final ConcurrentMap<String, Task> tasks = new ConcurrentHashMap<>();
+    // Expected version of a save which replaces any version
+    private static final long ANY_VERSION = -1;
+
+    private final ConcurrentMap<String, Entry> tasks = new ConcurrentHashMap<>();
+    private final InMemoryTaskStoreConfig config;
+    private final boolean bounded;
+    private final boolean expiring;
+    private final TaskStoreMetrics metrics = new TaskStoreMetrics();
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime() + PURGE_INTERVAL.toNanos());
+    // Indexes, updated while computing the entry of the task
+    private final AtomicLong lastCreated = new AtomicLong();
+    private final ConcurrentSkipListMap<Long, String> byCreation = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListSet<Long>> byContext = new ConcurrentHashMap<>();
+    private final Map<TaskState, ConcurrentSkipListSet<Long>> byState = new EnumMap<>(TaskState.class);
+    // Usage order of the evictable tasks of a bounded store, the running ones and the size of both, guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> usage = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Entry> running = new HashMap<>();
+    private long heldBytes;
+
+    public InMemoryTaskStore() {
+        this(InMemoryTaskStoreConfig.DEFAULT);
+    }
+
+    public InMemoryTaskStore(InMemoryTaskStoreConfig config) {
+        this.config = config;
+        this.bounded = config.isBounded();
+        this.expiring = config.finalTaskTtl() != null || config.interruptedTaskTtl() != null;
+        for (TaskState state : TaskState.values()) {
+            byState.put(state, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    public TaskStoreMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the number of tasks held, including expired ones which were not purged yet
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * @return the estimated size of the tasks held by a store with a maximum number of bytes, 0 otherwise
+     */
+    public long getHeldBytes() {
+        lock.lock();
+        try {
+            return heldBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
 
     @Override
     public void save(Task task) {
-        tasks.put(task.getId(), task);
+        save(task, ANY_VERSION);
+    }
+
+    @Override
+    public boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSave(Task task, long expectedVersion) {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Invalid expected version: " + expectedVersion);
+        }
+        return save(task, expectedVersion);
     }
 
     @Override
     public Task get(String taskId) {
-        return tasks.get(taskId);
+        Entry entry = lookup(taskId);
+        return entry == null ? null : entry.task;
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        Entry entry = lookup(taskId);
+        return entry == null ? null : new VersionedTask(entry.task, entry.version);
+    }
+
+    private boolean save(Task task, long expectedVersion) {
+        if (expiring) {
+            purgeIfDue();
+        }
+        long bytes = config.maxBytes() > 0 ? EventSizes.estimate(task) : 0;
+        long expiresAt = expiresAt(task);
+        if (!bounded) {
+            return put(task, bytes, expiresAt, expectedVersion) != null;
+        }
+        lock.lock();
+        try {
+            Entry entry = put(task, bytes, expiresAt, expectedVersion);
+            if (entry == null) {
+                return false;
+            }
+            Entry previous = untrack(task.getId());
+            (isEvictable(entry) ? usage : running).put(task.getId(), entry);
+            heldBytes += entry.bytes - (previous == null ? 0 : previous.bytes);
+            evict(task.getId());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry lookup(String taskId) {
+        Entry entry = tasks.get(taskId);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            if (remove(taskId, entry) != null) {
+                metrics.recordExpiration();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            metrics.recordMiss();
+            return null;
+        }
+        metrics.recordHit();
+        if (bounded && lock.tryLock()) {
+            try {
+                usage.get(taskId);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public List<Task> getAll(Collection<String> taskIds) {
+        List<Task> found = new ArrayList<>(taskIds.size());
+        long now = System.nanoTime();
+        for (String taskId : taskIds) {
+            Entry entry = tasks.get(taskId);
+            if (entry != null && entry.isExpired(now)) {
+                if (remove(taskId, entry) != null) {
+                    metrics.recordExpiration();
+                }
+                entry = null;
+            }
+            if (entry == null) {
+                metrics.recordMiss();
+            } else {
+                metrics.recordHit();
+                found.add(entry.task);
+            }
+        }
+        // Record the uses at once, in the order of the ids
+        if (bounded && !found.isEmpty() && lock.tryLock()) {
+            try {
+                for (Task task : found) {
+                    usage.get(task.getId());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return found;
     }
 
     @Override
     public void delete(String taskId) {
-        tasks.remove(taskId);
+        remove(taskId, null);
+    }
+
+    @Override
+    public boolean isListable() {
+        return true;
+    }
+
+    @Override
+    public ListTasksResult list(ListTasksParams params) {
+        long from = params.createdAfter() == null ? Long.MIN_VALUE : micros(params.createdAfter());
+        long to = params.createdBefore() == null ? Long.MAX_VALUE : micros(params.createdBefore());
+        if (params.pageToken() != null) {
+            try {
+                from = Math.max(from, Long.parseLong(params.pageToken()) + 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page token: " + params.pageToken());
+            }
+        }
+        if (from >= to) {
+            return new ListTasksResult(List.of(), null);
+        }
+        NavigableSet<Long> candidates;
+        if (params.contextId() != null) {
+            candidates = byContext.get(params.contextId());
+            if (candidates == null) {
+                return new ListTasksResult(List.of(), null);
+            }
+        } else if (params.state() != null) {
+            candidates = byState.get(params.state());
+        } else {
+            candidates = byCreation.navigableKeySet();
+        }
+        int pageSize = params.pageSize() == null ? Integer.MAX_VALUE : params.pageSize();
+        List<Task> page = new ArrayList<>(Math.min(pageSize, 64));
+        long last = 0;
+        long now = System.nanoTime();
+        for (long created : candidates.subSet(from, true, to, false)) {
+            String taskId = byCreation.get(created);
+            Entry entry = taskId == null ? null : tasks.get(taskId);
+            // The indexes may be a step behind or ahead of the entries
+            if (entry == null || entry.created != created || entry.isExpired(now) || !matches(entry.task, params)) {
+                continue;
+            }
+            if (page.size() == pageSize) {
+                return new ListTasksResult(Collections.unmodifiableList(page), Long.toString(last));
+            }
+            page.add(entry.task);
+            last = created;
+        }
+        return new ListTasksResult(Collections.unmodifiableList(page), null);
+    }
+
+    /**
+     * Removes the tasks whose time to live elapsed.
+     *
+     * @return the number of removed tasks
+     */
+    public int purgeExpired() {
+        long now = System.nanoTime();
+        nextPurge.set(now + PURGE_INTERVAL.toNanos());
+        int purged = 0;
+        for (Map.Entry<String, Entry> entry : tasks.entrySet()) {
+            if (entry.getValue().isExpired(now) && remove(entry.getKey(), entry.getValue()) != null) {
+                metrics.recordExpiration();
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    private void purgeIfDue() {
+        long due = nextPurge.get();
+        // Only one of the threads which find the purge due does it
+        if (System.nanoTime() - due >= 0 && nextPurge.compareAndSet(due, due + PURGE_INTERVAL.toNanos())) {
+            purgeExpired();
+        }
+    }
+
+    // Called while holding the lock
+    private void evict(String savedTaskId) {
+        Iterator<Entry> eldest = usage.values().iterator();
+        while (eldest.hasNext()
+                && ((config.maxTasks() > 0 && usage.size() + running.size() > config.maxTasks())
+                    || (config.maxBytes() > 0 && heldBytes > config.maxBytes()))) {
+            Entry entry = eldest.next();
+            if (entry.task.getId().equals(savedTaskId)) {
+                // The task just saved, which is the most recently used one, is kept even if it exceeds the bounds
+                return;
+            }
+            eldest.remove();
+            removeEntry(entry.task.getId(), entry);
+            heldBytes -= entry.bytes;
+            metrics.recordEviction();
+        }
+    }
+
+    /**
+     * Removes the entry of the task, if it is the expected one or none is expected.
+     *
+     * @return the removed entry, or {@code null} if none was removed
+     */
+    private Entry remove(String taskId, Entry expected) {
+        if (!bounded) {
+            return removeEntry(taskId, expected);
+        }
+        lock.lock();
+        try {
+            Entry removed = removeEntry(taskId, expected);
+            if (removed != null) {
+                untrack(taskId);
+                heldBytes -= removed.bytes;
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts an entry for the task, unless the version of the current one is not the expected one.
+     *
+     * @return the new entry, or {@code null} if none was put
+     */
+    private Entry put(Task task, long bytes, long expiresAt, long expectedVersion) {
+        Entry[] put = new Entry[1];
+        tasks.compute(task.getId(), (taskId, previous) -> {
+            // An expired task is gone, even if it was not purged yet
+            long version = previous == null || previous.isExpired(System.nanoTime()) ? 0 : previous.version;
+            if (expectedVersion != ANY_VERSION && expectedVersion != version) {
+                return previous;
+            }
+            Entry entry = new Entry(task, bytes, expiresAt, previous == null ? nextCreated() : previous.created,
+                    version + 1);
+            index(previous, entry);
+            put[0] = entry;
+            return entry;
+        });
+        return put[0];
+    }
+
+    // Called while holding the lock
+    private Entry untrack(String taskId) {
+        Entry entry = usage.remove(taskId);
+        return entry != null ? entry : running.remove(taskId);
+    }
+
+    private static boolean isEvictable(Entry entry) {
+        TaskState state = entry.task.getStatus().state();
+        return state.isFinal() || state == TaskState.INPUT_REQUIRED || state == TaskState.AUTH_REQUIRED;
+    }
+
+    private Entry removeEntry(String taskId, Entry expected) {
+        Entry[] removed = new Entry[1];
+        tasks.computeIfPresent(taskId, (id, entry) -> {
+            if (expected != null && entry != expected) {
+                return entry;
+            }
+            unindex(entry);
+            removed[0] = entry;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private void index(Entry previous, Entry entry) {
+        Task task = entry.task;
+        Task previousTask = previous == null ? null : previous.task;
+        if (previousTask == null) {
+            byCreation.put(entry.created, task.getId());
+        }
+        if (previousTask == null || !previousTask.getContextId().equals(task.getContextId())) {
+            if (previousTask != null) {
+                removeFromContext(previousTask.getContextId(), entry.created);
+            }
+            byContext.compute(task.getContextId(), (contextId, created) -> {
+                ConcurrentSkipListSet<Long> set = created == null ? new ConcurrentSkipListSet<>() : created;
+                set.add(entry.created);
+                return set;
+            });
+        }
+        TaskState state = task.getStatus().state();
+        if (previousTask == null || previousTask.getStatus().state() != state) {
+            if (previousTask != null) {
+                byState.get(previousTask.getStatus().state()).remove(entry.created);
+            }
+            byState.get(state).add(entry.created);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        byState.get(entry.task.getStatus().state()).remove(entry.created);
+        removeFromContext(entry.task.getContextId(), entry.created);
+        byCreation.remove(entry.created);
+    }
+
+    private void removeFromContext(String contextId, long created) {
+        byContext.computeIfPresent(contextId, (id, set) -> {
+            set.remove(created);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private long nextCreated() {
+        long now = micros(Instant.now());
+        return lastCreated.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
+    private static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+    }
+
+    private static boolean matches(Task task, ListTasksParams params) {
+        return (params.contextId() == null || params.contextId().equals(task.getContextId()))
+                && (params.state() == null || params.state() == task.getStatus().state());
+    }
+
+    private long expiresAt(Task task) {
+        TaskState state = task.getStatus().state();
+        Duration ttl;
+        if (state.isFinal()) {
+            ttl = config.finalTaskTtl();
+        } else if (state == TaskState.INPUT_REQUIRED || state == TaskState.AUTH_REQUIRED) {
+            ttl = config.interruptedTaskTtl();
+        } else {
+            ttl = null;
+        }
+        return ttl == null ? Long.MAX_VALUE : System.nanoTime() + ttl.toNanos();
+    }
+
+    private record Entry(Task task, long bytes, long expiresAt, long created, long version) {
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
     }
 }
@@ -0,0 +1,69 @@
+package io.a2a.server.tasks;
+
+import java.time.Duration;
+
+/**
+ * Bounds of an {@link InMemoryTaskStore}.
+ *
+ * @param maxTasks the maximum number of tasks held, or 0 for no maximum. The least recently used tasks in a final
+ * or interrupted state are evicted beyond it, running tasks are not
+ * @param maxBytes the maximum estimated size of the tasks held, or 0 for no maximum. The least recently used tasks
+ * in a final or interrupted state are evicted beyond it, running tasks are not
+ * @param finalTaskTtl how long a task in a final state is kept after it was saved, or {@code null} to keep it
+ * @param interruptedTaskTtl how long a task waiting for input or authentication is kept after it was saved, or
+ * {@code null} to keep it
+ */
+public record InMemoryTaskStoreConfig(int maxTasks, long maxBytes, Duration finalTaskTtl, Duration interruptedTaskTtl) {
+
+    public static final InMemoryTaskStoreConfig DEFAULT = new Builder().build();
+
+    public InMemoryTaskStoreConfig {
+        if (maxTasks < 0) {
+            throw new IllegalArgumentException("Max tasks must not be negative: " + maxTasks);
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max bytes must not be negative: " + maxBytes);
+        }
+        if (finalTaskTtl != null && finalTaskTtl.isNegative()) {
+            throw new IllegalArgumentException("Final task TTL must not be negative: " + finalTaskTtl);
+        }
+        if (interruptedTaskTtl != null && interruptedTaskTtl.isNegative()) {
+            throw new IllegalArgumentException("Interrupted task TTL must not be negative: " + interruptedTaskTtl);
+        }
+    }
+
+    boolean isBounded() {
+        return maxTasks > 0 || maxBytes > 0;
+    }
+
+    public static class Builder {
+        private int maxTasks;
+        private long maxBytes;
+        private Duration finalTaskTtl;
+        private Duration interruptedTaskTtl;
+
+        public Builder maxTasks(int maxTasks) {
+            this.maxTasks = maxTasks;
+            return this;
+        }
+
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder finalTaskTtl(Duration finalTaskTtl) {
+            this.finalTaskTtl = finalTaskTtl;
+            return this;
+        }
+
+        public Builder interruptedTaskTtl(Duration interruptedTaskTtl) {
+            this.interruptedTaskTtl = interruptedTaskTtl;
+            return this;
+        }
+
+        public InMemoryTaskStoreConfig build() {
+            return new InMemoryTaskStoreConfig(maxTasks, maxBytes, finalTaskTtl, interruptedTaskTtl);
+        }
+    }
+}
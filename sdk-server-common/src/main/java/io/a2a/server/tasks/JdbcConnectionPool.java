@@ -0,0 +1,200 @@
+package io.a2a.server.tasks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of connections used by the JDBC stores, which keeps the prepared statements of each connection
+ * so they are only prepared once.
+ * <p>
+ * A connection on which a statement failed is closed instead of being returned to the pool.
+ */
+public class JdbcConnectionPool implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+    private final DataSource dataSource;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    private JdbcConnectionPool(Builder builder) {
+        this.dataSource = builder.dataSource;
+        this.acquireTimeout = builder.acquireTimeout;
+        this.permits = new Semaphore(builder.maxSize, true);
+    }
+
+    /**
+     * Runs the work with a connection of the pool, in auto-commit mode unless the work changes it.
+     */
+    <T> T execute(JdbcWork<T> work) throws SQLException {
+        PooledConnection connection = acquire();
+        boolean healthy = false;
+        try {
+            T result = work.execute(connection);
+            healthy = true;
+            return result;
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    /**
+     * Runs the work in a transaction, which is committed if the work completes and rolled back otherwise.
+     */
+    <T> T transaction(JdbcWork<T> work) throws SQLException {
+        return execute(connection -> {
+            Connection jdbc = connection.connection;
+            jdbc.setAutoCommit(false);
+            try {
+                T result = work.execute(connection);
+                jdbc.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    jdbc.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        });
+    }
+
+    private PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeout + " waiting for a connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        PooledConnection connection = idle.pollFirst();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            return new PooledConnection(dataSource.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection connection, boolean healthy) {
+        if (healthy && !closed) {
+            // Most recently used first, so that surplus connections stay idle
+            idle.offerFirst(connection);
+        } else {
+            connection.close();
+        }
+        permits.release();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+
+    interface JdbcWork<T> {
+        T execute(PooledConnection connection) throws SQLException;
+    }
+
+    static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        /**
+         * @return the statement for the SQL, prepared on the first use on this connection
+         */
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+
+        void close() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.debug("Unable to close connection", e);
+            }
+        }
+    }
+
+    public static class Builder {
+        private DataSource dataSource;
+        private int maxSize = DEFAULT_MAX_SIZE;
+        private Duration acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+
+        public Builder dataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+            return this;
+        }
+
+        /**
+         * The maximum number of connections open at the same time.
+         */
+        public Builder maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * How long to wait for a connection when all of them are in use.
+         */
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public JdbcConnectionPool build() {
+            Assert.checkNotNullParam("dataSource", dataSource);
+            Assert.checkNotNullParam("acquireTimeout", acquireTimeout);
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+            }
+            return new JdbcConnectionPool(this);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.a2a.server.tasks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.a2a.spec.PushNotificationConfig;
+import io.a2a.util.Assert;
+import io.a2a.util.Utils;
+
+/**
+ * {@link PushNotificationConfigStore} persisting the configurations as JSON in a relational database, keyed by task
+ * id and configuration id.
+ */
+public class JdbcPushNotificationConfigStore implements PushNotificationConfigStore {
+
+    public static final String DEFAULT_TABLE_NAME = "a2a_push_notification_configs";
+
+    private final JdbcConnectionPool pool;
+    private final String tableName;
+    private final String selectSql;
+    private final String updateSql;
+    private final String insertSql;
+    private final String deleteSql;
+
+    private JdbcPushNotificationConfigStore(Builder builder) {
+        this.pool = builder.pool;
+        this.tableName = builder.tableName;
+        this.selectSql = "SELECT config_data FROM " + tableName + " WHERE task_id = ? ORDER BY created_order";
+        this.updateSql = "UPDATE " + tableName + " SET config_data = ? WHERE task_id = ? AND config_id = ?";
+        this.insertSql = "INSERT INTO " + tableName
+                + " (task_id, config_id, config_data, created_order) VALUES (?, ?, ?, ?)";
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE task_id = ? AND config_id = ?";
+    }
+
+    /**
+     * Creates the table of the store, unless it exists already.
+     */
+    public void createTable() {
+        JdbcSupport.createTable(pool, tableName, "CREATE TABLE " + tableName + " ("
+                + "task_id VARCHAR(255) NOT NULL, "
+                + "config_id VARCHAR(255) NOT NULL, "
+                + "config_data CLOB NOT NULL, "
+                + "created_order BIGINT NOT NULL, "
+                + "PRIMARY KEY (task_id, config_id))");
+    }
+
+    @Override
+    public void setInfo(String taskId, PushNotificationConfig notificationConfig) {
+        PushNotificationConfig.Builder builder = new PushNotificationConfig.Builder(notificationConfig);
+        if (notificationConfig.id() == null) {
+            builder.id(taskId);
+        }
+        PushNotificationConfig config = builder.build();
+        String json;
+        try {
+            json = Utils.OBJECT_MAPPER.writeValueAsString(config);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serialize push notification config " + config.id(), e);
+        }
+        try {
+            JdbcSupport.retryOnConflict(() -> pool.transaction(connection -> {
+                PreparedStatement update = connection.prepare(updateSql);
+                update.setString(1, json);
+                update.setString(2, taskId);
+                update.setString(3, config.id());
+                if (update.executeUpdate() == 0) {
+                    PreparedStatement insert = connection.prepare(insertSql);
+                    insert.setString(1, taskId);
+                    insert.setString(2, config.id());
+                    insert.setString(3, json);
+                    insert.setLong(4, System.currentTimeMillis());
+                    insert.executeUpdate();
+                }
+                return null;
+            }));
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to save push notification config " + config.id(), e);
+        }
+    }
+
+    @Override
+    public List<PushNotificationConfig> getInfo(String taskId) {
+        try {
+            List<String> rows = pool.execute(connection -> {
+                PreparedStatement select = connection.prepare(selectSql);
+                select.setString(1, taskId);
+                List<String> json = new ArrayList<>();
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        json.add(resultSet.getString(1));
+                    }
+                }
+                return json;
+            });
+            if (rows.isEmpty()) {
+                return null;
+            }
+            List<PushNotificationConfig> configs = new ArrayList<>(rows.size());
+            for (String json : rows) {
+                configs.add(Utils.OBJECT_MAPPER.readValue(json, PushNotificationConfig.class));
+            }
+            return configs;
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to get the push notification configs of task " + taskId, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the push notification configs of task " + taskId, e);
+        }
+    }
+
+    @Override
+    public void deleteInfo(String taskId, String configId) {
+        String id = configId == null ? taskId : configId;
+        try {
+            pool.execute(connection -> {
+                PreparedStatement delete = connection.prepare(deleteSql);
+                delete.setString(1, taskId);
+                delete.setString(2, id);
+                return delete.executeUpdate();
+            });
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to delete push notification config " + id, e);
+        }
+    }
+
+    public static class Builder {
+        private JdbcConnectionPool pool;
+        private String tableName = DEFAULT_TABLE_NAME;
+
+        public Builder pool(JdbcConnectionPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        public Builder tableName(String tableName) {
+            this.tableName = tableName;
+            return this;
+        }
+
+        public JdbcPushNotificationConfigStore build() {
+            Assert.checkNotNullParam("pool", pool);
+            Assert.checkNotNullParam("tableName", tableName);
+            return new JdbcPushNotificationConfigStore(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.a2a.server.tasks;
+
+/**
+ * Thrown when a JDBC store fails to access its database.
+ */
+public class JdbcStoreException extends RuntimeException {
+    public JdbcStoreException() {
+    }
+
+    public JdbcStoreException(String message) {
+        super(message);
+    }
+
+    public JdbcStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public JdbcStoreException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,71 @@
+package io.a2a.server.tasks;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Helpers shared by the JDBC stores.
+ */
+final class JdbcSupport {
+
+    // SQLSTATE class of integrity constraint violations, e.g. a duplicate key
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private JdbcSupport() {
+    }
+
+    /**
+     * Creates a table with the given statement, followed by any statements creating its indexes, unless a table
+     * with the name can already be queried.
+     */
+    static void createTable(JdbcConnectionPool pool, String tableName, String createSql, String... indexSqls) {
+        try {
+            pool.execute(connection -> {
+                try (Statement statement = connection.connection().createStatement()) {
+                    try {
+                        statement.execute("SELECT 1 FROM " + tableName + " WHERE 1 = 0");
+                        return null;
+                    } catch (SQLException e) {
+                        // The table does not exist yet
+                    }
+                    statement.execute(createSql);
+                    for (String indexSql : indexSqls) {
+                        statement.execute(indexSql);
+                    }
+                    return null;
+                }
+            });
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to create table " + tableName, e);
+        }
+    }
+
+    /**
+     * Runs the write again if it failed because another writer inserted the same row concurrently.
+     */
+    static <T> T retryOnConflict(Write<T> write) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.run();
+            } catch (SQLException e) {
+                if (attempt == MAX_ATTEMPTS || !isConstraintViolation(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static boolean isConstraintViolation(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current.getSQLState() != null && current.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    interface Write<T> {
+        T run() throws SQLException;
+    }
+}
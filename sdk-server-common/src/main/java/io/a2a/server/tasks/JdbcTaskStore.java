@@ -0,0 +1,454 @@
+package io.a2a.server.tasks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Task;
+import io.a2a.util.Assert;
+import io.a2a.util.Utils;
+
+/**
+ * {@link TaskStore} persisting tasks as JSON in a relational database, so that several server replicas can share
+ * them.
+ * <p>
+ * Writes are group committed: a save or delete waits until the write is committed, while the writes of the other
+ * threads which arrive during a commit are collected and committed together in the next batch, keeping only the
+ * latest version of each task. Upserts are done with an update, followed by an insert for the rows which did not
+ * exist, which works on any database. Drivers which do not report the update count of each statement in a batch
+ * have the unreported updates run again one at a time to find the missing rows.
+ * <p>
+ * The context id, state and creation time of each task are kept in indexed columns, so that
+ * {@link #list(ListTasksParams)} is answered by a query. The creation time is when the row was inserted, in
+ * microseconds; tasks created in the same microsecond are ordered by id.
+ * <p>
+ * The store is versioned: each row keeps the number of writes of the task, and
+ * {@link #compareAndSave(Task, long)} only updates the row if the number did not change, so that replicas updating
+ * the same task detect each other. Compare-and-save writes are not group committed, since their outcome depends on
+ * the row they find; a {@link WriteBehindTaskStore} in front of the store coalesces them into one write per flush.
+ */
+public class JdbcTaskStore implements TaskStore {
+
+    public static final String DEFAULT_TABLE_NAME = "a2a_tasks";
+    // Number of ids looked up by each query of getAll, padded so that a single statement is prepared
+    static final int SELECT_BATCH_SIZE = 50;
+
+    private final JdbcConnectionPool pool;
+    private final String tableName;
+    private final String selectSql;
+    private final String selectBatchSql;
+    private final String updateSql;
+    private final String compareAndUpdateSql;
+    private final String insertSql;
+    private final String deleteSql;
+    // Indexed by whether the context id and the state are filtered on
+    private final String[] listSql = new String[4];
+
+    // Guarded by this
+    private Batch open = new Batch();
+    private boolean flushing;
+
+    private JdbcTaskStore(Builder builder) {
+        this.pool = builder.pool;
+        this.tableName = builder.tableName;
+        this.selectSql = "SELECT task_data, version FROM " + tableName + " WHERE task_id = ?";
+        this.selectBatchSql = "SELECT task_id, task_data FROM " + tableName + " WHERE task_id IN ("
+                + String.join(", ", Collections.nCopies(SELECT_BATCH_SIZE, "?")) + ")";
+        this.updateSql = "UPDATE " + tableName + " SET context_id = ?, state = ?, task_data = ?, "
+                + "version = version + 1 WHERE task_id = ?";
+        this.compareAndUpdateSql = updateSql + " AND version = ?";
+        this.insertSql = "INSERT INTO " + tableName + " (task_id, context_id, state, created, task_data, version) "
+                + "VALUES (?, ?, ?, ?, ?, 1)";
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE task_id = ?";
+        for (int i = 0; i < listSql.length; i++) {
+            listSql[i] = "SELECT task_id, created, task_data FROM " + tableName + " WHERE "
+                    + ((i & 1) != 0 ? "context_id = ? AND " : "")
+                    + ((i & 2) != 0 ? "state = ? AND " : "")
+                    + "created >= ? AND created < ? AND (created > ? OR (created = ? AND task_id > ?))"
+                    + " ORDER BY created, task_id";
+        }
+    }
+
+    /**
+     * Creates the table of the store, unless it exists already.
+     */
+    public void createTable() {
+        JdbcSupport.createTable(pool, tableName, "CREATE TABLE " + tableName + " ("
+                        + "task_id VARCHAR(255) NOT NULL PRIMARY KEY, "
+                        + "context_id VARCHAR(255), "
+                        + "state VARCHAR(32) NOT NULL, "
+                        + "created BIGINT NOT NULL, "
+                        + "task_data CLOB NOT NULL, "
+                        + "version BIGINT NOT NULL)",
+                "CREATE INDEX " + tableName + "_created ON " + tableName + " (created, task_id)",
+                "CREATE INDEX " + tableName + "_context ON " + tableName + " (context_id, created, task_id)",
+                "CREATE INDEX " + tableName + "_state ON " + tableName + " (state, created, task_id)");
+    }
+
+    @Override
+    public void save(Task task) {
+        write(task.getId(), task);
+    }
+
+    @Override
+    public boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSave(Task task, long expectedVersion) {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Invalid expected version: " + expectedVersion);
+        }
+        String json = serialize(task);
+        try {
+            return pool.execute(connection -> {
+                if (expectedVersion == 0) {
+                    PreparedStatement insert = connection.prepare(insertSql);
+                    bindInsert(insert, task, json, Instant.now());
+                    try {
+                        insert.executeUpdate();
+                        return true;
+                    } catch (SQLException e) {
+                        if (JdbcSupport.isConstraintViolation(e)) {
+                            // Another writer created the task first
+                            return false;
+                        }
+                        throw e;
+                    }
+                }
+                PreparedStatement update = connection.prepare(compareAndUpdateSql);
+                bindUpdate(update, task, json);
+                update.setLong(5, expectedVersion);
+                return update.executeUpdate() == 1;
+            });
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to save task " + task.getId(), e);
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        VersionedTask versioned = getVersioned(taskId);
+        return versioned == null ? null : versioned.task();
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        try {
+            return pool.execute(connection -> {
+                PreparedStatement statement = connection.prepare(selectSql);
+                statement.setString(1, taskId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return null;
+                    }
+                    return new VersionedTask(readTask(taskId, resultSet.getString(1)), resultSet.getLong(2));
+                }
+            });
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to get task " + taskId, e);
+        }
+    }
+
+    private static Task readTask(String taskId, String json) {
+        try {
+            return Utils.OBJECT_MAPPER.readValue(json, Task.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read task " + taskId, e);
+        }
+    }
+
+    private static String serialize(Task task) {
+        try {
+            return Utils.OBJECT_MAPPER.writeValueAsString(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serialize task " + task.getId(), e);
+        }
+    }
+
+    @Override
+    public List<Task> getAll(Collection<String> taskIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(taskIds));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Task> found = new HashMap<>();
+        try {
+            Map<String, String> rows = pool.execute(connection -> {
+                Map<String, String> json = new HashMap<>();
+                PreparedStatement statement = connection.prepare(selectBatchSql);
+                for (int from = 0; from < ids.size(); from += SELECT_BATCH_SIZE) {
+                    List<String> batch = ids.subList(from, Math.min(from + SELECT_BATCH_SIZE, ids.size()));
+                    for (int i = 0; i < SELECT_BATCH_SIZE; i++) {
+                        // Repeating the first id for the unused parameters does not change the result
+                        statement.setString(i + 1, batch.get(i < batch.size() ? i : 0));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            json.put(resultSet.getString(1), resultSet.getString(2));
+                        }
+                    }
+                }
+                return json;
+            });
+            for (Map.Entry<String, String> row : rows.entrySet()) {
+                found.put(row.getKey(), Utils.OBJECT_MAPPER.readValue(row.getValue(), Task.class));
+            }
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to get " + ids.size() + " tasks", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read tasks " + ids, e);
+        }
+        List<Task> tasks = new ArrayList<>(found.size());
+        for (String taskId : taskIds) {
+            Task task = found.get(taskId);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String taskId) {
+        write(taskId, null);
+    }
+
+    @Override
+    public boolean isListable() {
+        return true;
+    }
+
+    @Override
+    public ListTasksResult list(ListTasksParams params) {
+        // The page token is the creation time and id of the last task of the previous page
+        String pageToken = params.pageToken();
+        int separator = pageToken == null ? -1 : pageToken.indexOf(':');
+        long after;
+        try {
+            after = pageToken == null ? Long.MIN_VALUE : Long.parseLong(pageToken.substring(0, Math.max(separator, 0)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken);
+        }
+        String afterId = pageToken == null ? "" : pageToken.substring(separator + 1);
+        long from = params.createdAfter() == null ? Long.MIN_VALUE : micros(params.createdAfter());
+        long to = params.createdBefore() == null ? Long.MAX_VALUE : micros(params.createdBefore());
+        String state = params.state() == null ? null : params.state().asString();
+        int pageSize = params.pageSize() == null ? Integer.MAX_VALUE : params.pageSize();
+        List<String> rows = new ArrayList<>();
+        String nextPageToken;
+        try {
+            nextPageToken = pool.execute(connection -> {
+                PreparedStatement statement = connection.prepare(
+                        listSql[(params.contextId() != null ? 1 : 0) | (state != null ? 2 : 0)]);
+                int index = 1;
+                if (params.contextId() != null) {
+                    statement.setString(index++, params.contextId());
+                }
+                if (state != null) {
+                    statement.setString(index++, state);
+                }
+                statement.setLong(index++, from);
+                statement.setLong(index++, to);
+                statement.setLong(index++, after);
+                statement.setLong(index++, after);
+                statement.setString(index, afterId);
+                // One more row tells whether there is a next page
+                statement.setMaxRows(pageSize == Integer.MAX_VALUE ? 0 : pageSize + 1);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    String token = null;
+                    while (resultSet.next()) {
+                        if (rows.size() == pageSize) {
+                            return token;
+                        }
+                        token = resultSet.getLong(2) + ":" + resultSet.getString(1);
+                        rows.add(resultSet.getString(3));
+                    }
+                    return null;
+                }
+            });
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to list tasks", e);
+        }
+        List<Task> tasks = new ArrayList<>(rows.size());
+        try {
+            for (String json : rows) {
+                tasks.add(Utils.OBJECT_MAPPER.readValue(json, Task.class));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read tasks", e);
+        }
+        return new ListTasksResult(Collections.unmodifiableList(tasks), nextPageToken);
+    }
+
+    private void write(String taskId, Task task) {
+        Batch batch;
+        synchronized (this) {
+            batch = open;
+            batch.writes.put(taskId, task);
+        }
+        while (true) {
+            Batch toFlush;
+            synchronized (this) {
+                boolean interrupted = false;
+                // The write is part of a batch now, so wait for its outcome even if interrupted
+                while (flushing && !batch.done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                if (batch.done) {
+                    if (batch.failure != null) {
+                        Utils.rethrow(batch.failure);
+                    }
+                    return;
+                }
+                // Nobody is flushing, so the batch is still open
+                flushing = true;
+                toFlush = open;
+                open = new Batch();
+            }
+            Throwable failure = null;
+            try {
+                flush(toFlush.writes);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                // Whatever happened, the writers waiting for the batch must not wait forever
+                synchronized (this) {
+                    toFlush.done = true;
+                    toFlush.failure = failure;
+                    flushing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void flush(Map<String, Task> writes) {
+        List<Task> saves = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (Map.Entry<String, Task> write : writes.entrySet()) {
+            if (write.getValue() == null) {
+                deletes.add(write.getKey());
+            } else {
+                saves.add(write.getValue());
+            }
+        }
+        List<String> json = new ArrayList<>(saves.size());
+        for (Task task : saves) {
+            json.add(serialize(task));
+        }
+        try {
+            JdbcSupport.retryOnConflict(() -> pool.transaction(connection -> {
+                if (!deletes.isEmpty()) {
+                    PreparedStatement delete = connection.prepare(deleteSql);
+                    for (String taskId : deletes) {
+                        delete.setString(1, taskId);
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+                }
+                if (saves.isEmpty()) {
+                    return null;
+                }
+                PreparedStatement update = connection.prepare(updateSql);
+                for (int i = 0; i < saves.size(); i++) {
+                    bindUpdate(update, saves.get(i), json.get(i));
+                    update.addBatch();
+                }
+                int[] updated = update.executeBatch();
+                PreparedStatement insert = null;
+                Instant created = Instant.now();
+                for (int i = 0; i < saves.size(); i++) {
+                    if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                        // Running the same update again tells whether the row exists
+                        bindUpdate(update, saves.get(i), json.get(i));
+                        updated[i] = update.executeUpdate();
+                    }
+                    if (updated[i] == 0) {
+                        if (insert == null) {
+                            insert = connection.prepare(insertSql);
+                        }
+                        bindInsert(insert, saves.get(i), json.get(i), created);
+                        insert.addBatch();
+                    }
+                }
+                if (insert != null) {
+                    insert.executeBatch();
+                }
+                return null;
+            }));
+        } catch (SQLException e) {
+            throw new JdbcStoreException("Unable to write " + writes.size() + " tasks", e);
+        }
+    }
+
+    private static void bindUpdate(PreparedStatement update, Task task, String json) throws SQLException {
+        update.setString(1, task.getContextId());
+        update.setString(2, task.getStatus().state().asString());
+        update.setString(3, json);
+        update.setString(4, task.getId());
+    }
+
+    private static void bindInsert(PreparedStatement insert, Task task, String json, Instant created)
+            throws SQLException {
+        insert.setString(1, task.getId());
+        insert.setString(2, task.getContextId());
+        insert.setString(3, task.getStatus().state().asString());
+        insert.setLong(4, micros(created));
+        insert.setString(5, json);
+    }
+
+    private static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+    }
+
+    private static final class Batch {
+        // The latest write of each task, null for a delete
+        private final Map<String, Task> writes = new LinkedHashMap<>();
+        private boolean done;
+        private Throwable failure;
+    }
+
+    public static class Builder {
+        private JdbcConnectionPool pool;
+        private String tableName = DEFAULT_TABLE_NAME;
+
+        public Builder pool(JdbcConnectionPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        public Builder tableName(String tableName) {
+            this.tableName = tableName;
+            return this;
+        }
+
+        public JdbcTaskStore build() {
+            Assert.checkNotNullParam("pool", pool);
+            Assert.checkNotNullParam("tableName", tableName);
+            return new JdbcTaskStore(this);
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package io.a2a.server.tasks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.a2a.server.util.MappedBuffers;
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskStatus;
+import io.a2a.util.Assert;
+import io.a2a.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TaskStore} which appends every saved task to a log of memory-mapped segment files.
+ * <p>
+ * An index in memory maps each task id to the location of its latest version, so {@link #get(String)} reads a
+ * single record and {@link #save(Task)} only appends one. On startup the segments are scanned in order to rebuild
+ * the index; a record which was only partly written when the process died fails its checksum and ends the scan of
+ * its segment. Writes reach the operating system as soon as they are copied to the mapping, so they survive the
+ * process crashing; {@link Builder#syncOnWrite(boolean)} also flushes each write to the device.
+ * <p>
+ * The incremental changes of a task, such as a status update or an appended artifact chunk, are appended as small
+ * delta records which {@link #get(String)} applies to the latest full version. Once a task has
+ * {@link Builder#maxDeltas(int)} deltas its next change is written as a full version again.
+ * <p>
+ * Superseded versions and deleted tasks leave garbage behind. A background compaction copies the live records of
+ * sealed segments with less than {@link Builder#compactionThreshold(double)} live data to the end of the log, and
+ * then deletes the segments. A deletion record only counts as live data, and is only copied, while an older segment
+ * still holds a version of the task which it hides.
+ * <p>
+ * A compacted segment is unmapped as soon as no reader copies from it any more, and {@link #close()} unmaps the
+ * remaining ones the same way, so that their mapped memory does not wait for the garbage collector.
+ */
+public class MappedLogTaskStore implements TaskStore, AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+    public static final int DEFAULT_MAX_DELTAS = 32;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedLogTaskStore.class);
+
+    private static final String SEGMENT_PREFIX = "tasks-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Payload length, checksum and type
+    private static final int HEADER_SIZE = 9;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte HISTORY = 3;
+    private static final byte ARTIFACT = 4;
+    private static final byte PARTS = 5;
+    private static final byte STATUS = 6;
+    private static final TypeReference<List<Message>> MESSAGES = new TypeReference<>() {};
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+    private final double compactionThreshold;
+    private final int maxDeltas;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private volatile boolean closed;
+    private final ScheduledExecutorService compactor;
+
+    private MappedLogTaskStore(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.syncOnWrite = builder.syncOnWrite;
+        this.compactionThreshold = builder.compactionThreshold;
+        this.maxDeltas = builder.maxDeltas;
+        Files.createDirectories(directory);
+        recover();
+        if (builder.compactionInterval == null) {
+            compactor = null;
+        } else {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "a2a-task-log-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = builder.compactionInterval.toMillis();
+            compactor.scheduleWithFixedDelay(this::compactQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        byte[] json = serialize(task, task.getId());
+        synchronized (this) {
+            checkOpen();
+            Location location = append(PUT, task.getId(), json, null);
+            release(index.put(task.getId(), location));
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        while (true) {
+            Location location = index.get(taskId);
+            if (location == null) {
+                return null;
+            }
+            Task task = read(taskId, location);
+            if (task != null) {
+                return task;
+            }
+            checkOpen();
+            // A segment was compacted away in the meantime, the task has moved
+        }
+    }
+
+    @Override
+    public void appendHistory(Task task, List<Message> messages) {
+        appendDelta(task, HISTORY, messages);
+    }
+
+    @Override
+    public void upsertArtifact(Task task, Artifact artifact) {
+        appendDelta(task, ARTIFACT, artifact);
+    }
+
+    @Override
+    public void appendParts(Task task, String artifactId, List<Part<?>> parts) {
+        appendDelta(task, PARTS, new Artifact.Builder()
+                .artifactId(artifactId)
+                .parts(parts)
+                .build());
+    }
+
+    @Override
+    public void updateStatus(Task task) {
+        appendDelta(task, STATUS, task.getStatus());
+    }
+
+    @Override
+    public void delete(String taskId) {
+        synchronized (this) {
+            checkOpen();
+            Location removed = index.remove(taskId);
+            if (removed != null) {
+                release(removed);
+                appendTombstone(taskId);
+            }
+        }
+    }
+
+    /**
+     * @return the number of tasks in the store
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Copies the live records of the sealed segments which are mostly garbage to the end of the log, and deletes
+     * those segments.
+     *
+     * @return the number of deleted segments
+     */
+    public synchronized int compact() {
+        if (closed) {
+            return 0;
+        }
+        int compacted = 0;
+        for (Segment segment : new ArrayList<>(segments)) {
+            if (segment == active || segment.liveBytes >= compactionThreshold * segment.position) {
+                continue;
+            }
+            segment.forEachRecord((type, taskId, offset) -> {
+                Location location = index.get(taskId);
+                if (type != DELETE && location != null && location.contains(segment, offset)) {
+                    // Deltas are folded into a full version, which must come after any of them in the log
+                    byte[] json = location.previous == null
+                            ? segment.readPayload(offset)
+                            : serialize(read(taskId, location), taskId);
+                    release(location);
+                    index.put(taskId, append(PUT, taskId, json, null));
+                } else if (type == DELETE && location == null && isHeldBefore(segment, taskId)) {
+                    // An older segment still holds a version of the task, which must stay deleted
+                    appendTombstone(taskId);
+                }
+            });
+            segments.remove(segment);
+            segment.release(true);
+            releaseTombstones(segment);
+            compacted++;
+        }
+        return compacted;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        active.buffer.force();
+        for (Segment segment : segments) {
+            segment.release(false);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Compacting the task log in {} failed", directory, e);
+        }
+    }
+
+    private void appendDelta(Task task, byte type, Object delta) {
+        byte[] json = serialize(delta, task.getId());
+        synchronized (this) {
+            checkOpen();
+            Location head = index.get(task.getId());
+            if (head != null && head.deltas < maxDeltas) {
+                index.put(task.getId(), append(type, task.getId(), json, head));
+                return;
+            }
+        }
+        save(task);
+    }
+
+    /**
+     * @return the task at the location, with its deltas applied, or {@code null} if a segment was deleted
+     */
+    private Task read(String taskId, Location head) {
+        Location[] chain = new Location[head.deltas + 1];
+        byte[][] payloads = new byte[chain.length][];
+        Location location = head;
+        for (int i = chain.length - 1; i >= 0; i--) {
+            chain[i] = location;
+            payloads[i] = location.segment.readPayload(location.offset);
+            if (payloads[i] == null) {
+                return null;
+            }
+            location = location.previous;
+        }
+        try {
+            Task task = Utils.OBJECT_MAPPER.readValue(payloads[0], Task.class);
+            for (int i = 1; i < chain.length; i++) {
+                task = switch (chain[i].type) {
+                    case HISTORY -> TaskUpdates.appendHistory(task, Utils.OBJECT_MAPPER.readValue(payloads[i], MESSAGES));
+                    case ARTIFACT -> TaskUpdates.upsertArtifact(task, Utils.OBJECT_MAPPER.readValue(payloads[i], Artifact.class));
+                    case PARTS -> {
+                        Artifact parts = Utils.OBJECT_MAPPER.readValue(payloads[i], Artifact.class);
+                        yield TaskUpdates.appendParts(task, parts.artifactId(), parts.parts());
+                    }
+                    case STATUS -> TaskUpdates.updateStatus(task, Utils.OBJECT_MAPPER.readValue(payloads[i], TaskStatus.class));
+                    default -> throw new IllegalStateException("Unknown record type " + chain[i].type);
+                };
+            }
+            return task;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read task " + taskId, e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Task store in " + directory + " is closed");
+        }
+    }
+
+    private static byte[] serialize(Object value, String taskId) {
+        try {
+            return Utils.OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serialize task " + taskId, e);
+        }
+    }
+
+    // Called while holding the lock
+    private Location append(byte type, String taskId, byte[] json, Location previous) {
+        byte[] id = taskId.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 2 + id.length + (json == null ? 0 : json.length);
+        int recordLength = HEADER_SIZE + payloadLength;
+        if (active.remaining() < recordLength) {
+            active.buffer.force();
+            active = newSegment(active.number + 1, recordLength);
+        }
+        int offset = active.write(type, id, json, payloadLength);
+        if (syncOnWrite) {
+            active.buffer.force(offset, recordLength);
+        }
+        if (type != DELETE) {
+            active.liveBytes += recordLength;
+        }
+        if (type == PUT) {
+            active.versions.add(taskId);
+        }
+        return new Location(active, offset, recordLength, type, previous);
+    }
+
+    // Called while holding the lock
+    private void appendTombstone(String taskId) {
+        Location location = append(DELETE, taskId, null, null);
+        if (isHeldBefore(location.segment, taskId)) {
+            location.segment.addTombstone(taskId, location.length);
+        }
+    }
+
+    /**
+     * @return whether a segment older than the given one holds a full version of the task
+     */
+    private boolean isHeldBefore(Segment segment, String taskId) {
+        for (Segment older : segments) {
+            if (older == segment) {
+                return false;
+            }
+            if (older.versions.contains(taskId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The deletion records which hid the versions of the deleted segment may no longer hide anything
+    private void releaseTombstones(Segment deleted) {
+        for (String taskId : deleted.versions) {
+            for (Segment segment : segments) {
+                if (segment.number > deleted.number && segment.tombstones.containsKey(taskId)
+                        && !isHeldBefore(segment, taskId)) {
+                    segment.liveBytes -= segment.tombstones.remove(taskId);
+                }
+            }
+        }
+    }
+
+    private void release(Location location) {
+        for (; location != null; location = location.previous) {
+            location.segment.liveBytes -= location.length;
+        }
+    }
+
+    private Segment newSegment(long number, int minimumSize) {
+        try {
+            Path file = directory.resolve(SEGMENT_PREFIX + String.format("%016d", number) + SEGMENT_SUFFIX);
+            Segment segment = new Segment(file, number, Math.max(segmentSize, minimumSize));
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create a task log segment in " + directory, e);
+        }
+    }
+
+    private synchronized void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long number = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(file, number, (int) Files.size(file));
+            segments.add(segment);
+            segment.forEachRecord((type, taskId, offset) -> {
+                if (type == DELETE) {
+                    release(index.remove(taskId));
+                    if (isHeldBefore(segment, taskId)) {
+                        segment.addTombstone(taskId, segment.recordLength(offset));
+                    }
+                } else if (type == PUT) {
+                    int length = segment.recordLength(offset);
+                    segment.liveBytes += length;
+                    segment.versions.add(taskId);
+                    release(index.put(taskId, new Location(segment, offset, length, type, null)));
+                } else {
+                    Location previous = index.get(taskId);
+                    // A delta of a deleted task is garbage
+                    if (previous != null) {
+                        int length = segment.recordLength(offset);
+                        segment.liveBytes += length;
+                        index.put(taskId, new Location(segment, offset, length, type, previous));
+                    }
+                }
+            });
+        }
+        active = segments.isEmpty() ? newSegment(0, 0) : segments.get(segments.size() - 1);
+        LOGGER.debug("Recovered {} tasks from {} segments in {}", index.size(), segments.size(), directory);
+    }
+
+    /**
+     * A record of a task, linked to the records it applies to if it is a delta.
+     */
+    private record Location(Segment segment, int offset, int length, byte type, Location previous, int deltas) {
+
+        Location(Segment segment, int offset, int length, byte type, Location previous) {
+            this(segment, offset, length, type, previous, previous == null ? 0 : previous.deltas + 1);
+        }
+
+        boolean contains(Segment segment, int offset) {
+            for (Location location = this; location != null; location = location.previous) {
+                if (location.segment == segment && location.offset == offset) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(byte type, String taskId, int offset);
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final long number;
+        private final MappedByteBuffer buffer;
+        // The readers copying from the buffer, which must not be unmapped under them
+        private final AtomicInteger readers = new AtomicInteger();
+        private final AtomicBoolean unmapped = new AtomicBoolean();
+        private volatile boolean released;
+        private volatile boolean deleteOnUnmap;
+        // Guarded by the store
+        private int position;
+        private long liveBytes;
+        // The tasks with a full version in the segment, live or not
+        private final Set<String> versions = new HashSet<>();
+        // The lengths of the deletion records which hide a version in an older segment, counted as live
+        private final Map<String, Integer> tombstones = new HashMap<>();
+
+        Segment(Path file, long number, int size) throws IOException {
+            this.file = file;
+            this.number = number;
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        void addTombstone(String taskId, int length) {
+            Integer previous = tombstones.put(taskId, length);
+            liveBytes += length - (previous == null ? 0 : previous);
+        }
+
+        int write(byte type, byte[] id, byte[] json, int payloadLength) {
+            int offset = position;
+            int index = offset + HEADER_SIZE;
+            buffer.putShort(index, (short) id.length);
+            buffer.put(index + 2, id);
+            if (json != null) {
+                buffer.put(index + 2 + id.length, json);
+            }
+            buffer.put(offset + 8, type);
+            buffer.putInt(offset + 4, checksum(offset, payloadLength));
+            // Written last, so a record is only seen once it is complete
+            buffer.putInt(offset, payloadLength);
+            position += HEADER_SIZE + payloadLength;
+            return offset;
+        }
+
+        int recordLength(int offset) {
+            return HEADER_SIZE + buffer.getInt(offset);
+        }
+
+        /**
+         * @return the serialized task or delta of the record at the offset, or {@code null} if the segment was
+         * released
+         */
+        byte[] readPayload(int offset) {
+            readers.incrementAndGet();
+            try {
+                if (released) {
+                    return null;
+                }
+                int payloadLength = buffer.getInt(offset);
+                int idLength = buffer.getShort(offset + HEADER_SIZE);
+                byte[] json = new byte[payloadLength - 2 - idLength];
+                buffer.get(offset + HEADER_SIZE + 2 + idLength, json);
+                return json;
+            } finally {
+                if (readers.decrementAndGet() == 0 && released) {
+                    unmap();
+                }
+            }
+        }
+
+        /**
+         * Visits the complete records of the segment, and moves the write position past the last one.
+         */
+        void forEachRecord(RecordVisitor visitor) {
+            int offset = 0;
+            while (offset + HEADER_SIZE <= buffer.capacity()) {
+                int payloadLength = buffer.getInt(offset);
+                if (payloadLength <= 0 || offset + HEADER_SIZE + payloadLength > buffer.capacity()
+                        || buffer.getInt(offset + 4) != checksum(offset, payloadLength)) {
+                    break;
+                }
+                int idLength = buffer.getShort(offset + HEADER_SIZE);
+                byte[] id = new byte[idLength];
+                buffer.get(offset + HEADER_SIZE + 2, id);
+                visitor.visit(buffer.get(offset + 8), new String(id, StandardCharsets.UTF_8), offset);
+                offset += HEADER_SIZE + payloadLength;
+            }
+            position = Math.max(position, offset);
+        }
+
+        private int checksum(int offset, int payloadLength) {
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset + 8, 1 + payloadLength));
+            return (int) crc.getValue();
+        }
+
+        /**
+         * Unmaps the segment once no reader copies from it any more, and then deletes its file if {@code delete}.
+         */
+        void release(boolean delete) {
+            deleteOnUnmap = delete;
+            released = true;
+            if (readers.get() == 0) {
+                unmap();
+            }
+        }
+
+        private void unmap() {
+            if (!unmapped.compareAndSet(false, true)) {
+                return;
+            }
+            MappedBuffers.unmap(buffer);
+            if (deleteOnUnmap) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete task log segment {}", file, e);
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private boolean syncOnWrite;
+        private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        private Duration compactionInterval = DEFAULT_COMPACTION_INTERVAL;
+        private int maxDeltas = DEFAULT_MAX_DELTAS;
+
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        public Builder segmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Whether to flush every write to the storage device, so that it also survives the machine crashing.
+         */
+        public Builder syncOnWrite(boolean syncOnWrite) {
+            this.syncOnWrite = syncOnWrite;
+            return this;
+        }
+
+        /**
+         * The fraction of live data below which a sealed segment is compacted.
+         */
+        public Builder compactionThreshold(double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        /**
+         * How often to compact, or {@code null} to only compact when {@link MappedLogTaskStore#compact()} is called.
+         */
+        public Builder compactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+            return this;
+        }
+
+        /**
+         * How many deltas a task may have before its next change is written as a full version, bounding the work
+         * of reading it. Zero always writes full versions.
+         */
+        public Builder maxDeltas(int maxDeltas) {
+            this.maxDeltas = maxDeltas;
+            return this;
+        }
+
+        /**
+         * Opens the store, recovering the tasks saved in the directory.
+         */
+        public MappedLogTaskStore build() throws IOException {
+            Assert.checkNotNullParam("directory", directory);
+            if (segmentSize <= HEADER_SIZE) {
+                throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+            }
+            if (compactionThreshold < 0 || compactionThreshold > 1) {
+                throw new IllegalArgumentException("Compaction threshold must be between 0 and 1: " + compactionThreshold);
+            }
+            if (maxDeltas < 0) {
+                throw new IllegalArgumentException("Max deltas must not be negative: " + maxDeltas);
+            }
+            return new MappedLogTaskStore(this);
+        }
+    }
+}
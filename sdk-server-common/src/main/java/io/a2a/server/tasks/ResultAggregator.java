@@ -1,15 +1,25 @@
 package io.a2a.server.tasks;
 
+import static io.a2a.server.util.async.AsyncUtils.completingProcessor;
 import static io.a2a.server.util.async.AsyncUtils.consumer;
+import static io.a2a.server.util.async.AsyncUtils.consumerAsync;
 import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
 import static io.a2a.server.util.async.AsyncUtils.processor;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import io.a2a.server.events.EventConsumer;
+import io.a2a.server.events.EventSizes;
+import io.a2a.server.util.async.StreamConfig;
+import io.a2a.server.util.async.StreamMetrics;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Event;
 import io.a2a.spec.EventKind;
@@ -18,15 +28,52 @@ import io.a2a.spec.Message;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskState;
 import io.a2a.spec.TaskStatusUpdateEvent;
+import io.a2a.util.Assert;
 import io.a2a.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Applies the events consumed for a request to its {@link TaskManager}, and keeps track of the result.
+ * <p>
+ * The events of a task are persisted once, by the aggregator consuming the task's main queue. An aggregator
+ * consuming a tap of the queue, e.g. for a resubscription, only applies the events to its own copy of the task, so
+ * that the writes to the store do not grow with the number of subscribers. The stream of the main queue keeps
+ * consuming it until the final event even if its subscriber cancels, so that the task is persisted whether or not
+ * the client which started it stays subscribed.
+ * <p>
+ * The events are handed to the task manager without waiting for them to be applied, so that a busy task does not
+ * hold up the thread delivering them, e.g. the agent's. The blocking requests wait for the changes once the events
+ * were consumed, and {@link #whenProcessed()} tells a stream when they were applied. If a change fails, e.g. because
+ * the store could not be written, the blocking requests fail with it, and the stream fails instead of passing on the
+ * next event or completing.
+ */
 public class ResultAggregator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultAggregator.class);
+
     private final TaskManager taskManager;
+    private final StreamConfig streamConfig;
+    private final StreamMetrics streamMetrics;
     private volatile Message message;
+    // The first change which could not be applied
+    private final AtomicReference<Throwable> processingFailure = new AtomicReference<>();
 
     public ResultAggregator(TaskManager taskManager, Message message) {
+        this(taskManager, message, StreamConfig.DEFAULT, new StreamMetrics());
+    }
+
+    /**
+     * @param streamConfig the sizing of the stream returned by {@link #consumeAndEmit(EventConsumer)}
+     * @param streamMetrics where the stream records its occupancy
+     */
+    public ResultAggregator(TaskManager taskManager, Message message, StreamConfig streamConfig,
+                            StreamMetrics streamMetrics) {
+        Assert.checkNotNullParam("streamConfig", streamConfig);
+        Assert.checkNotNullParam("streamMetrics", streamMetrics);
         this.taskManager = taskManager;
         this.message = message;
+        this.streamConfig = streamConfig;
+        this.streamMetrics = streamMetrics;
     }
 
     public EventKind getCurrentResult() {
@@ -36,21 +83,40 @@ public class ResultAggregator {
         return taskManager.getTask();
     }
 
+    /**
+     * @return a stage completed once the events consumed so far were applied to the task
+     */
+    public CompletionStage<Void> whenProcessed() {
+        return taskManager.whenProcessed();
+    }
+
     public Flow.Publisher<Event> consumeAndEmit(EventConsumer consumer) {
+        boolean persisting = !consumer.isTap();
+        taskManager.setPersisting(persisting);
         Flow.Publisher<Event> all = consumer.consumeAll();
 
-        return processor(createTubeConfig(), all, ((errorConsumer, event) -> {
+        BiFunction<Consumer<Throwable>, Event, Boolean> process = (errorConsumer, event) -> {
+            Throwable failure = processingFailure.get();
+            if (failure != null) {
+                errorConsumer.accept(failure);
+                return false;
+            }
             callTaskManagerProcess(event);
             return true;
-        }));
+        };
+        Flow.Publisher<Event> processed = persisting
+                ? completingProcessor(streamConfig, streamMetrics, all, EventSizes::estimate, process)
+                : processor(streamConfig, streamMetrics, all, EventSizes::estimate, process);
+        return subscriber -> processed.subscribe(new CompletingWhenProcessed(subscriber));
     }
 
     public EventKind consumeAll(EventConsumer consumer) {
         AtomicReference<EventKind> returnedEvent = new AtomicReference<>();
+        taskManager.setPersisting(!consumer.isTap());
         Flow.Publisher<Event> all = consumer.consumeAll();
         AtomicReference<Throwable> error = new AtomicReference<>();
         consumer(
-                createTubeConfig(),
+                createTubeConfig(streamConfig.bufferSize()),
                 all,
                 (event) -> {
                     if (event instanceof Message msg) {
@@ -63,7 +129,10 @@ public class ResultAggregator {
                     callTaskManagerProcess(event);
                     return true;
                 },
-                error::set);
+                error::set,
+                streamConfig.prefetch());
+        awaitProcessed();
+        rethrowProcessingFailure();
 
         if (returnedEvent.get() != null) {
             return returnedEvent.get();
@@ -72,12 +141,13 @@ public class ResultAggregator {
     }
 
     public EventTypeAndInterrupt consumeAndBreakOnInterrupt(EventConsumer consumer) throws JSONRPCError {
+        taskManager.setPersisting(!consumer.isTap());
         Flow.Publisher<Event> all = consumer.consumeAll();
         AtomicReference<Message> message = new AtomicReference<>();
         AtomicBoolean interrupted = new AtomicBoolean(false);
         AtomicReference<Throwable> errorRef = new AtomicReference<>();
         consumer(
-                createTubeConfig(),
+                createTubeConfig(streamConfig.bufferSize()),
                 all,
                 (event -> {
                     if (event instanceof Throwable t) {
@@ -107,33 +177,100 @@ public class ResultAggregator {
                     }
                     return true;
                 }),
-                errorRef::set);
+                errorRef::set,
+                streamConfig.prefetch());
+        awaitProcessed();
 
         Throwable error = errorRef.get();
         if (error != null) {
             Utils.rethrow(error);
         }
+        rethrowProcessingFailure();
 
         return new EventTypeAndInterrupt(
                 message.get() != null ? message.get() : taskManager.getTask(), interrupted.get());
     }
 
     private void continueConsuming(Flow.Publisher<Event> all) {
-        consumer(createTubeConfig(),
+        consumerAsync(createTubeConfig(streamConfig.bufferSize()),
                 all,
                 event -> {
                     callTaskManagerProcess(event);
                     return true;
                 },
-                t -> {});
+                t -> {},
+                streamConfig.prefetch());
     }
 
     private void callTaskManagerProcess(Event event) {
-         try {
-            taskManager.process(event);
-        } catch (A2AServerException e) {
-            // TODO Decide what to do in case of failure
-            e.printStackTrace();
+        taskManager.process(event).whenComplete((processed, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                LOGGER.error("Unable to apply {} to task {}", event.getClass().getSimpleName(),
+                        taskManager.getTaskId(), cause);
+                // A change which the task manager rejected carries the error to report
+                processingFailure.compareAndSet(null,
+                        cause instanceof A2AServerException && cause.getCause() instanceof JSONRPCError error
+                                ? error
+                                : cause);
+            }
+        });
+    }
+
+    private void rethrowProcessingFailure() {
+        Throwable failure = processingFailure.get();
+        if (failure != null) {
+            Utils.rethrow(failure);
+        }
+    }
+
+    // Only called by the request threads, which wait for the result anyway
+    private void awaitProcessed() {
+        try {
+            taskManager.whenProcessed().toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Never completed exceptionally, the failures are reported for each event
+        }
+    }
+
+    /**
+     * Passes the events of the stream on, and only completes it once they were applied to the task, failing it
+     * instead if any of them could not be.
+     */
+    private class CompletingWhenProcessed implements Flow.Subscriber<Event> {
+        private final Flow.Subscriber<? super Event> downstream;
+
+        CompletingWhenProcessed(Flow.Subscriber<? super Event> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(Event event) {
+            downstream.onNext(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            taskManager.whenProcessed().whenComplete((processed, ignored) -> {
+                Throwable failure = processingFailure.get();
+                if (failure != null) {
+                    downstream.onError(failure);
+                } else {
+                    downstream.onComplete();
+                }
+            });
         }
     }
 
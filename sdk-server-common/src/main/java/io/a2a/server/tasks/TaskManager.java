@@ -3,22 +3,44 @@ package io.a2a.server.tasks;
 import static io.a2a.spec.TaskState.SUBMITTED;
 import static io.a2a.util.Assert.checkNotNullParam;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
+import io.a2a.server.util.async.SerialTaskExecutor;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Artifact;
 import io.a2a.spec.Event;
 import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.Message;
-import io.a2a.spec.Part;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskArtifactUpdateEvent;
+import io.a2a.spec.TaskNotFoundError;
 import io.a2a.spec.TaskStatus;
 import io.a2a.spec.TaskStatusUpdateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Applies the events of a task to the task in the {@link TaskStore}.
+ * <p>
+ * Several managers may apply events to the same task concurrently. With a {@linkplain TaskStore#isVersioned()
+ * versioned} store each change is saved with {@link TaskStore#compareAndSave(Task, long)}, and if another manager
+ * saved the task in the meantime the change is applied again to the latest version of the task, so that no change
+ * is lost. Other stores are told about the incremental changes, the last save of a task winning.
+ * <p>
+ * A manager which is not {@linkplain #setPersisting(boolean) persisting} applies the events to its current task
+ * without saving it, for the subscribers of a task whose events are already persisted by another manager.
+ * <p>
+ * Given a {@link SerialTaskExecutor}, the managers of a task apply their changes to it one at a time, in the
+ * order they were made, instead of racing each other. A change then waits for its turn without holding up the
+ * thread which made it: {@link #process(Event)} and {@link #updateWithMessage(Message, Task)} return once the change
+ * is queued, and {@link #whenProcessed()} tells when the changes made so far were applied.
+ */
 public class TaskManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskManager.class);
@@ -28,13 +50,37 @@ public class TaskManager {
     private final TaskStore taskStore;
     private final Message initialMessage;
     private volatile Task currentTask;
+    // Version of the current task in a versioned store, 0 if it was not saved
+    private volatile long version;
+    private volatile boolean persisting = true;
+    private final ArtifactIndex artifactIndex = new ArtifactIndex();
+    private final SerialTaskExecutor serialExecutor;
+    // Completes once the changes made so far were applied, whether they failed or not
+    private final AtomicReference<CompletableFuture<Void>> processed =
+            new AtomicReference<>(CompletableFuture.completedFuture(null));
 
     public TaskManager(String taskId, String contextId, TaskStore taskStore, Message initialMessage) {
+        this(taskId, contextId, taskStore, initialMessage, null);
+    }
+
+    /**
+     * @param serialExecutor runs the changes of each task one at a time, may be null to apply them right away
+     */
+    public TaskManager(String taskId, String contextId, TaskStore taskStore, Message initialMessage,
+                       SerialTaskExecutor serialExecutor) {
         checkNotNullParam("taskStore", taskStore);
         this.taskId = taskId;
         this.contextId = contextId;
         this.taskStore = taskStore;
         this.initialMessage = initialMessage;
+        this.serialExecutor = serialExecutor;
+    }
+
+    /**
+     * Sets whether the events are saved to the store, or only applied to the current task.
+     */
+    void setPersisting(boolean persisting) {
+        this.persisting = persisting;
     }
 
     String getTaskId() {
@@ -52,6 +98,14 @@ public class TaskManager {
         if (currentTask != null) {
             return currentTask;
         }
+        if (taskStore.isVersioned()) {
+            VersionedTask stored = taskStore.getVersioned(taskId);
+            if (stored != null) {
+                version = stored.version();
+                currentTask = stored.task();
+            }
+            return currentTask;
+        }
         currentTask = taskStore.get(taskId);
         return currentTask;
     }
@@ -63,104 +117,115 @@ public class TaskManager {
 
     Task saveTaskEvent(TaskStatusUpdateEvent event) throws A2AServerException {
         checkIdsAndUpdateIfNecessary(event.getTaskId(), event.getContextId());
-        Task task = ensureTask(event.getTaskId(), event.getContextId());
-
-
-        Task.Builder builder = new Task.Builder(task)
-                .status(event.getStatus());
-
-        if (task.getStatus().message() != null) {
-            List<Message> newHistory = task.getHistory() == null ? new ArrayList<>() : new ArrayList<>(task.getHistory());
-            newHistory.add(task.getStatus().message());
-            builder.history(newHistory);
-        }
-
-        task = builder.build();
-        return saveTask(task);
+        return update(null, event.getTaskId(), event.getContextId(),
+                task -> TaskUpdates.updateStatus(task, event.getStatus()), taskStore::updateStatus);
     }
 
     Task saveTaskEvent(TaskArtifactUpdateEvent event) throws A2AServerException {
         checkIdsAndUpdateIfNecessary(event.getTaskId(), event.getContextId());
-        Task task = ensureTask(event.getTaskId(), event.getContextId());
-
-        // Append artifacts
-        List<Artifact> artifacts = task.getArtifacts() == null ? new ArrayList<>() : new ArrayList<>(task.getArtifacts());
 
         Artifact newArtifact = event.getArtifact();
         String artifactId = newArtifact.artifactId();
         boolean appendParts = event.isAppend() != null && event.isAppend();
 
-        Artifact existingArtifact = null;
-        int existingArtifactIndex = -1;
-
-        for (int i = 0; i < artifacts.size(); i++) {
-            Artifact curr = artifacts.get(i);
-            if (curr.artifactId() != null && curr.artifactId().equals(artifactId)) {
-                existingArtifact = curr;
-                existingArtifactIndex = i;
-                break;
+        return update(null, event.getTaskId(), event.getContextId(), task -> {
+            int index = artifactIndex.indexOf(task, artifactId);
+            boolean exists = index >= 0;
+            if (!appendParts) {
+                // This represents the first chunk for this artifact, replacing any existing artifact entirely
+                LOGGER.debug("{} artifact at id {} for task {}", exists ? "Replacing" : "Adding", artifactId, taskId);
+                Task updated = TaskUpdates.upsertArtifact(task, newArtifact, index);
+                artifactIndex.updated(task, updated, artifactId, index);
+                return updated;
+            } else if (exists) {
+                LOGGER.debug("Appending parts to artifact id {} for task {}", artifactId, taskId);
+                Task updated = TaskUpdates.appendParts(task, index, newArtifact.parts());
+                artifactIndex.updated(task, updated, artifactId, index);
+                return updated;
+            } else {
+                // We received a chunk to append, but we don't have an existing artifact.
+                // We will ignore this chunk
+                LOGGER.warn(
+                        "Received append=true for nonexistent artifact index for artifact {} in task {}. Ignoring chunk.",
+                        artifactId, taskId);
+                return task;
             }
-        }
-
-        if (!appendParts) {
-            // This represents the first chunk for this artifact index
-            if (existingArtifactIndex >= 0) {
-                // Replace the existing artifact entirely with the new artifact
-                LOGGER.debug("Replacing artifact at id {} for task {}", artifactId, taskId);
-                artifacts.set(existingArtifactIndex, newArtifact);
+        }, task -> {
+            if (appendParts) {
+                taskStore.appendParts(task, artifactId, newArtifact.parts());
             } else {
-                // Append the new artifact since no artifact with this id/index exists yet
-                LOGGER.debug("Adding artifact at id {} for task {}", artifactId, taskId);
-                artifacts.add(newArtifact);
+                taskStore.upsertArtifact(task, newArtifact);
             }
-
-        } else if (existingArtifact != null) {
-            // Append new parts to the existing artifact's parts list
-            // Do this to a copy
-            LOGGER.debug("Appending parts to artifact id {} for task {}", artifactId, taskId);
-            List<Part<?>> parts = new ArrayList<>(existingArtifact.parts());
-            parts.addAll(newArtifact.parts());
-            Artifact updated = new Artifact.Builder(existingArtifact)
-                    .parts(parts)
-                    .build();
-            artifacts.set(existingArtifactIndex, updated);
-        } else {
-            // We received a chunk to append, but we don't have an existing artifact.
-            // We will ignore this chunk
-            LOGGER.warn(
-                    "Received append=true for nonexistent artifact index for artifact {} in task {}. Ignoring chunk.",
-                    artifactId, taskId);
-        }
-
-        task = new Task.Builder(task)
-                .artifacts(artifacts)
-                .build();
-
-        return saveTask(task);
+        });
     }
 
-    public Event process(Event event) throws A2AServerException {
+    /**
+     * Applies the event to the task, after the changes made before.
+     *
+     * @return the event, once it was applied
+     */
+    public CompletionStage<Event> process(Event event) {
+        CompletionStage<Task> applied;
         if (event instanceof Task task) {
-            saveTask(task);
+            applied = serially(task.getId(), () -> saveTask(task));
         } else if (event instanceof TaskStatusUpdateEvent taskStatusUpdateEvent) {
-            saveTaskEvent(taskStatusUpdateEvent);
+            applied = serially(taskStatusUpdateEvent.getTaskId(), () -> saveTaskEvent(taskStatusUpdateEvent));
         } else if (event instanceof TaskArtifactUpdateEvent taskArtifactUpdateEvent) {
-            saveTaskEvent(taskArtifactUpdateEvent);
+            applied = serially(taskArtifactUpdateEvent.getTaskId(), () -> saveTaskEvent(taskArtifactUpdateEvent));
+        } else {
+            return CompletableFuture.completedFuture(event);
         }
-        return event;
+        return applied.thenApply(task -> event);
     }
 
-    public Task updateWithMessage(Message message, Task task) {
-        List<Message> history = task.getHistory() == null ? new ArrayList<>() : new ArrayList<>(task.getHistory());
-        if (task.getStatus().message() != null) {
-            history.add(task.getStatus().message());
+    /**
+     * @return a stage completed once the changes made so far were applied, whether they failed or not
+     */
+    public CompletionStage<Void> whenProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Appends the message to the history of the task, after the changes made before.
+     *
+     * @return the updated task
+     */
+    public CompletionStage<Task> updateWithMessage(Message message, Task task) {
+        return serially(task.getId(), () -> {
+            // The status message moved to the history is the one of the version the change is applied to
+            AtomicReference<List<Message>> appended = new AtomicReference<>();
+            return update(task, task.getId(), task.getContextId(),
+                    current -> {
+                        List<Message> messages = current.getStatus().message() != null
+                                ? List.of(current.getStatus().message(), message)
+                                : List.of(message);
+                        appended.set(messages);
+                        return TaskUpdates.appendHistory(current, messages);
+                    },
+                    current -> taskStore.appendHistory(current, appended.get()));
+        });
+    }
+
+    /**
+     * Runs the change after the other changes of the task if the manager has a serial executor, and otherwise right
+     * away.
+     */
+    private <T> CompletionStage<T> serially(String changedTaskId, Callable<T> change) {
+        CompletableFuture<T> result;
+        if (serialExecutor != null) {
+            result = serialExecutor.submit(changedTaskId, change).toCompletableFuture();
+        } else {
+            result = new CompletableFuture<>();
+            try {
+                result.complete(change.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
         }
-        history.add(message);
-        task = new Task.Builder(task)
-                .history(history)
-                .build();
-        saveTask(task);
-        return task;
+        CompletableFuture<Void> applied = result.handle((value, failure) -> null);
+        processed.accumulateAndGet(applied,
+                (previous, next) -> previous.isDone() ? next : CompletableFuture.allOf(previous, next));
+        return result;
     }
 
     private void checkIdsAndUpdateIfNecessary(String eventTaskId, String eventContextId) throws A2AServerException {
@@ -177,6 +242,60 @@ public class TaskManager {
         }
     }
 
+    /**
+     * Applies the change to the task, or to the current one if it is {@code null}, and saves the result unless the
+     * change returned the task itself.
+     *
+     * @param write writes the changed task to a store which is not versioned
+     */
+    private Task update(Task task, String eventTaskId, String eventContextId, UnaryOperator<Task> change,
+                        Consumer<Task> write) throws A2AServerException {
+        if (!persisting || !taskStore.isVersioned()) {
+            Task base = task != null ? task : ensureTask(eventTaskId, eventContextId);
+            Task updated = change.apply(base);
+            if (persisting && updated != base) {
+                write.accept(updated);
+            }
+            return setCurrentTask(updated);
+        }
+        Task base = task != null ? task : currentTask;
+        if (base == null) {
+            base = latest(eventTaskId, eventContextId);
+        }
+        while (true) {
+            Task updated = change.apply(base);
+            // A new task is saved even if the change did nothing
+            if (updated == base && version > 0) {
+                return setCurrentTask(updated);
+            }
+            if (taskStore.compareAndSave(updated, version)) {
+                version++;
+                return setCurrentTask(updated);
+            }
+            // Another manager saved the task in the meantime, apply the change to its latest version
+            LOGGER.debug("Task {} was saved concurrently, applying the change again", eventTaskId);
+            base = latest(eventTaskId, eventContextId);
+        }
+    }
+
+    /**
+     * @return the latest version of the task in the versioned store, or a new task if it was never saved
+     * @throws A2AServerException if the task was saved and is no longer in the store, since recreating it would lose
+     * its history and artifacts
+     */
+    private Task latest(String eventTaskId, String eventContextId) throws A2AServerException {
+        VersionedTask stored = taskStore.getVersioned(eventTaskId);
+        if (stored == null) {
+            if (version > 0) {
+                throw new A2AServerException("Task " + eventTaskId + " was removed from the task store while it was "
+                        + "being updated", new TaskNotFoundError());
+            }
+            return createTask(eventTaskId, eventContextId);
+        }
+        version = stored.version();
+        return stored.task();
+    }
+
     private Task ensureTask(String eventTaskId, String eventContextId) {
         Task task = currentTask;
         if (task != null) {
@@ -201,7 +320,23 @@ public class TaskManager {
     }
 
     private Task saveTask(Task task) {
-        taskStore.save(task);
+        if (!persisting) {
+            return setCurrentTask(task);
+        }
+        if (!taskStore.isVersioned()) {
+            taskStore.save(task);
+            return setCurrentTask(task);
+        }
+        // The task of the event replaces the stored one whatever its version
+        while (!taskStore.compareAndSave(task, version)) {
+            VersionedTask stored = taskStore.getVersioned(task.getId());
+            version = stored == null ? 0 : stored.version();
+        }
+        version++;
+        return setCurrentTask(task);
+    }
+
+    private Task setCurrentTask(Task task) {
         if (taskId == null) {
             taskId = task.getId();
             contextId = task.getContextId();
@@ -1,11 +1,125 @@
 package io.a2a.server.tasks;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
 import io.a2a.spec.Task;
 
+/**
+ * Stores tasks by id.
+ * <p>
+ * Besides saving a whole task, a store is told about the incremental changes made while a task runs. Each of them
+ * receives the task as it is after the change, and by default saves it; a store which can apply the change itself
+ * only needs to write the change.
+ * <p>
+ * A versioned store also counts the saves of each task, so that concurrent writers of a task can detect each
+ * other with {@link #compareAndSave(Task, long)} instead of overwriting each other's changes.
+ */
 public interface TaskStore {
     void save(Task task);
 
     Task get(String taskId);
 
     void delete(String taskId);
+
+    /**
+     * @return whether the store keeps a version of each task which {@link #compareAndSave(Task, long)} checks, which
+     * is not the case by default
+     */
+    default boolean isVersioned() {
+        return false;
+    }
+
+    /**
+     * Gets the task with its version, which is 1 after it was first saved and increases by one with each save or
+     * incremental change. A store which is not versioned returns the task with version 0.
+     *
+     * @return the task, or {@code null} if it does not exist
+     */
+    default VersionedTask getVersioned(String taskId) {
+        Task task = get(taskId);
+        return task == null ? null : new VersionedTask(task, 0);
+    }
+
+    /**
+     * Saves the task if the version of the stored task is still the expected one, 0 meaning that the task must not
+     * exist yet. The version of the task is then one more than the expected one.
+     * <p>
+     * A store which is not versioned saves the task whatever the expected version.
+     *
+     * @return whether the task was saved
+     */
+    default boolean compareAndSave(Task task, long expectedVersion) {
+        save(task);
+        return true;
+    }
+
+    /**
+     * Gets the tasks with the ids, in the order of the ids, leaving out the ones which do not exist.
+     * <p>
+     * By default each task is looked up by itself; a store which can look up several tasks at once, e.g. in a
+     * single query, should do so.
+     */
+    default List<Task> getAll(Collection<String> taskIds) {
+        List<Task> tasks = new ArrayList<>(taskIds.size());
+        for (String taskId : taskIds) {
+            Task task = get(taskId);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Saves the task after the messages were appended to its history.
+     */
+    default void appendHistory(Task task, List<Message> messages) {
+        save(task);
+    }
+
+    /**
+     * Saves the task after the artifact replaced the one with the same id, or was added if there was none.
+     */
+    default void upsertArtifact(Task task, Artifact artifact) {
+        save(task);
+    }
+
+    /**
+     * Saves the task after the parts were appended to its artifact with the id.
+     */
+    default void appendParts(Task task, String artifactId, List<Part<?>> parts) {
+        save(task);
+    }
+
+    /**
+     * Saves the task after its status was set, moving the message of the previous status, if any, to the history.
+     */
+    default void updateStatus(Task task) {
+        save(task);
+    }
+
+    /**
+     * @return whether the store can {@link #list(ListTasksParams)} its tasks, which is not the case by default
+     */
+    default boolean isListable() {
+        return false;
+    }
+
+    /**
+     * Lists the tasks matching the parameters, oldest first, returning at most {@link ListTasksParams#pageSize()}
+     * of them, or all of them if it is {@code null}. Must only be called if the store {@link #isListable()}.
+     *
+     * @throws UnsupportedOperationException if the store is not listable
+     * @throws IllegalArgumentException if the page token was not returned by this store
+     */
+    default ListTasksResult list(ListTasksParams params) {
+        throw new UnsupportedOperationException("Listing tasks is not supported by " + getClass().getName());
+    }
 }
@@ -0,0 +1,58 @@
+package io.a2a.server.tasks;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the lookups of an {@link InMemoryTaskStore}, and for the tasks it evicted.
+ */
+public class TaskStoreMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @return the number of lookups which found the task
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups which did not find the task
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of tasks evicted to stay within the maximum number of tasks or bytes
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of tasks removed because their time to live elapsed
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordExpiration() {
+        expirations.increment();
+    }
+}
@@ -0,0 +1,108 @@
+package io.a2a.server.tasks;
+
+import java.util.List;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TextPart;
+import io.a2a.util.PersistentList;
+
+/**
+ * The incremental changes of a task, shared by {@link TaskManager} and the stores replaying them.
+ * <p>
+ * The history, artifacts and parts are {@link PersistentList}s, so each change shares the unchanged elements with
+ * the previous version of the task instead of copying them. Appended text parts are merged into the text part
+ * preceding them with an {@link AppendedTextPart}, so streaming many text chunks to an artifact keeps it a single
+ * part.
+ */
+final class TaskUpdates {
+
+    private TaskUpdates() {
+    }
+
+    static Task appendHistory(Task task, List<Message> messages) {
+        return new Task.Builder(task)
+                .history(persistent(task.getHistory()).plusAll(messages))
+                .build();
+    }
+
+    static Task updateStatus(Task task, TaskStatus status) {
+        Task.Builder builder = new Task.Builder(task)
+                .status(status);
+        Message previous = task.getStatus().message();
+        if (previous != null) {
+            builder.history(persistent(task.getHistory()).plus(previous));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the index of the artifact with the id in the task, or {@code -1} if there is none
+     */
+    static int indexOfArtifact(Task task, String artifactId) {
+        List<Artifact> artifacts = task.getArtifacts();
+        if (artifacts != null) {
+            for (int i = 0; i < artifacts.size(); i++) {
+                if (artifactId.equals(artifacts.get(i).artifactId())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    static Task upsertArtifact(Task task, Artifact artifact) {
+        return upsertArtifact(task, artifact, indexOfArtifact(task, artifact.artifactId()));
+    }
+
+    /**
+     * @param index the index of the artifact with the same id in the task, or {@code -1} if there is none
+     */
+    static Task upsertArtifact(Task task, Artifact artifact, int index) {
+        PersistentList<Artifact> artifacts = persistent(task.getArtifacts());
+        return new Task.Builder(task)
+                .artifacts(index >= 0 ? artifacts.with(index, artifact) : artifacts.plus(artifact))
+                .build();
+    }
+
+    /**
+     * @return the task with the parts appended to its artifact with the id, or the task itself if it has no such
+     * artifact
+     */
+    static Task appendParts(Task task, String artifactId, List<Part<?>> parts) {
+        return appendParts(task, indexOfArtifact(task, artifactId), parts);
+    }
+
+    /**
+     * @param index the index of the artifact in the task, or {@code -1} if there is none
+     */
+    static Task appendParts(Task task, int index, List<Part<?>> parts) {
+        if (index < 0) {
+            return task;
+        }
+        Artifact existing = task.getArtifacts().get(index);
+        PersistentList<Part<?>> merged = PersistentList.copyOf(existing.parts());
+        for (Part<?> part : parts) {
+            int last = merged.size() - 1;
+            if (last >= 0 && AppendedTextPart.canAppend(merged.get(last), part)) {
+                merged = merged.with(last, AppendedTextPart.append((TextPart) merged.get(last), (TextPart) part));
+            } else {
+                merged = merged.plus(part);
+            }
+        }
+        Artifact updated = new Artifact.Builder(existing)
+                .parts(merged)
+                .build();
+        return new Task.Builder(task)
+                .artifacts(persistent(task.getArtifacts()).with(index, updated))
+                .build();
+    }
+
+    // Task and Artifact keep their lists persistent, so this only copies lists built elsewhere
+    private static <T> PersistentList<T> persistent(List<T> list) {
+        return list == null ? PersistentList.empty() : PersistentList.copyOf(list);
+    }
+}
@@ -0,0 +1,350 @@
+package io.a2a.server.tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.a2a.spec.Task;
+import io.a2a.util.Utils;
+
+/**
+ * {@link TaskStore} which keeps the active tasks as objects, and the tasks in a final state serialized in direct
+ * buffers outside the heap.
+ * <p>
+ * Finished tasks are rarely read again, but as objects they retain their whole graph of messages, parts and
+ * metadata. Once a task reaches a final state it is serialized, deflated unless {@link Builder#compress(boolean)}
+ * is disabled, and appended to an arena of {@link Builder#arenaSize(int)} bytes; {@link #get(String)} only
+ * deserializes it again when it is asked for. An arena is released once none of its tasks are left, and
+ * {@link #compact()} moves the tasks out of the arenas which are mostly garbage.
+ * <p>
+ * The store is versioned: each save of a task increases its version, which {@link #compareAndSave(Task, long)}
+ * checks atomically. A finished task is serialized into its arena before the comparison, and the space is released
+ * again if the comparison fails.
+ */
+public class TieredTaskStore implements TaskStore {
+
+    public static final int DEFAULT_ARENA_SIZE = 8 * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    // Expected version of a save which replaces any version
+    private static final long ANY_VERSION = -1;
+
+    private final int arenaSize;
+    private final boolean compress;
+    private final double compactionThreshold;
+    // An active task as an object, or a finished one as the slot it is serialized in
+    private final Map<String, Entry> tasks = new ConcurrentHashMap<>();
+    // Updated while computing the entry of the task
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+    // Guarded by this
+    private final List<Arena> arenas = new ArrayList<>();
+    private Arena current;
+
+    private TieredTaskStore(Builder builder) {
+        this.arenaSize = builder.arenaSize;
+        this.compress = builder.compress;
+        this.compactionThreshold = builder.compactionThreshold;
+    }
+
+    @Override
+    public void save(Task task) {
+        save(task, ANY_VERSION);
+    }
+
+    @Override
+    public boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSave(Task task, long expectedVersion) {
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Invalid expected version: " + expectedVersion);
+        }
+        return save(task, expectedVersion);
+    }
+
+    @Override
+    public Task get(String taskId) {
+        Entry entry = tasks.get(taskId);
+        return entry == null ? null : read(taskId, entry);
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        Entry entry = tasks.get(taskId);
+        return entry == null ? null : new VersionedTask(read(taskId, entry), entry.version());
+    }
+
+    @Override
+    public void delete(String taskId) {
+        Entry entry = tasks.remove(taskId);
+        if (entry != null) {
+            count(entry, -1);
+            if (entry instanceof Slot slot) {
+                release(slot);
+            }
+        }
+    }
+
+    private boolean save(Task task, long expectedVersion) {
+        Slot slot = null;
+        if (task.getStatus().state().isFinal()) {
+            byte[] json = serialize(task);
+            byte[] data = compress ? deflate(json) : json;
+            // Allocated up front, since the arenas are not locked while computing the entry
+            synchronized (this) {
+                slot = allocate(data, compress ? json.length : -1, 0);
+            }
+        }
+        Slot serialized = slot;
+        // The entry put and the one it replaced
+        Entry[] put = new Entry[2];
+        tasks.compute(task.getId(), (taskId, previous) -> {
+            long version = previous == null ? 0 : previous.version();
+            if (expectedVersion != ANY_VERSION && expectedVersion != version) {
+                return previous;
+            }
+            Entry entry = serialized != null ? serialized.withVersion(version + 1) : new Active(task, version + 1);
+            if (previous != null) {
+                count(previous, -1);
+            }
+            count(entry, 1);
+            put[0] = entry;
+            put[1] = previous;
+            return entry;
+        });
+        if (put[0] == null) {
+            if (serialized != null) {
+                release(serialized);
+            }
+            return false;
+        }
+        if (put[1] instanceof Slot previous) {
+            release(previous);
+        }
+        return true;
+    }
+
+    private void count(Entry entry, int delta) {
+        (entry instanceof Slot ? finishedCount : activeCount).addAndGet(delta);
+    }
+
+    /**
+     * @return the number of tasks held as objects
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return the number of tasks held serialized
+     */
+    public int getFinishedCount() {
+        return finishedCount.get();
+    }
+
+    /**
+     * @return the capacity of the direct buffers holding the serialized tasks
+     */
+    public synchronized long getOffHeapBytes() {
+        long bytes = 0;
+        for (Arena arena : arenas) {
+            bytes += arena.buffer.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Moves the serialized tasks out of the full arenas whose live data is below the compaction threshold, which
+     * releases those arenas.
+     *
+     * @return the number of released arenas
+     */
+    public synchronized int compact() {
+        List<Arena> sparse = new ArrayList<>();
+        for (Arena arena : arenas) {
+            if (arena != current && arena.liveBytes < compactionThreshold * arena.position) {
+                sparse.add(arena);
+            }
+        }
+        if (sparse.isEmpty()) {
+            return 0;
+        }
+        for (Map.Entry<String, Entry> entry : tasks.entrySet()) {
+            if (entry.getValue() instanceof Slot slot && sparse.contains(slot.arena)) {
+                Slot moved = allocate(slot.bytes(), slot.rawLength, slot.version);
+                if (tasks.replace(entry.getKey(), slot, moved)) {
+                    release(slot);
+                } else {
+                    release(moved);
+                }
+            }
+        }
+        arenas.removeAll(sparse);
+        return sparse.size();
+    }
+
+    // Called while holding the lock
+    private Slot allocate(byte[] data, int rawLength, long version) {
+        if (current == null || current.buffer.capacity() - current.position < data.length) {
+            current = new Arena(Math.max(arenaSize, data.length));
+            arenas.add(current);
+        }
+        int offset = current.position;
+        current.buffer.put(offset, data);
+        current.position += data.length;
+        current.liveBytes += data.length;
+        return new Slot(current, offset, data.length, rawLength, version);
+    }
+
+    private synchronized void release(Slot slot) {
+        Arena arena = slot.arena;
+        arena.liveBytes -= slot.length;
+        // The buffer is freed once the slots being read from it are unreachable too
+        if (arena.liveBytes == 0 && arena != current) {
+            arenas.remove(arena);
+        }
+    }
+
+    private static Task read(String taskId, Entry entry) {
+        if (entry instanceof Active active) {
+            return active.task;
+        }
+        Slot slot = (Slot) entry;
+        byte[] data = slot.bytes();
+        try {
+            byte[] json = slot.rawLength < 0 ? data : inflate(data, slot.rawLength);
+            return Utils.OBJECT_MAPPER.readValue(json, Task.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read task " + taskId, e);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Unable to inflate task " + taskId, e);
+        }
+    }
+
+    private static byte[] serialize(Task task) {
+        try {
+            return Utils.OBJECT_MAPPER.writeValueAsBytes(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serialize task " + task.getId(), e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] chunk = new byte[Math.min(data.length + 64, 8192)];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated data");
+                }
+                length += inflated;
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Arena {
+        private final ByteBuffer buffer;
+        // Guarded by the store
+        private int position;
+        private long liveBytes;
+
+        Arena(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+
+    private sealed interface Entry permits Active, Slot {
+        long version();
+    }
+
+    private record Active(Task task, long version) implements Entry {
+    }
+
+    /**
+     * A serialized task, deflated unless {@code rawLength} is negative.
+     */
+    private record Slot(Arena arena, int offset, int length, int rawLength, long version) implements Entry {
+
+        Slot withVersion(long version) {
+            return new Slot(arena, offset, length, rawLength, version);
+        }
+
+        byte[] bytes() {
+            byte[] data = new byte[length];
+            // Absolute reads do not touch the position of the shared buffer
+            arena.buffer.get(offset, data);
+            return data;
+        }
+    }
+
+    public static class Builder {
+        private int arenaSize = DEFAULT_ARENA_SIZE;
+        private boolean compress = true;
+        private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+        public Builder arenaSize(int arenaSize) {
+            this.arenaSize = arenaSize;
+            return this;
+        }
+
+        /**
+         * Whether to deflate the serialized tasks, trading some CPU on save and get for less memory.
+         */
+        public Builder compress(boolean compress) {
+            this.compress = compress;
+            return this;
+        }
+
+        /**
+         * The fraction of live data below which {@link TieredTaskStore#compact()} moves the tasks out of an arena.
+         */
+        public Builder compactionThreshold(double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        public TieredTaskStore build() {
+            if (arenaSize <= 0) {
+                throw new IllegalArgumentException("Arena size must be positive: " + arenaSize);
+            }
+            if (compactionThreshold < 0 || compactionThreshold > 1) {
+                throw new IllegalArgumentException("Compaction threshold must be between 0 and 1: " + compactionThreshold);
+            }
+            return new TieredTaskStore(this);
+        }
+    }
+}
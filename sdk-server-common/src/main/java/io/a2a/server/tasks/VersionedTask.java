@@ -0,0 +1,12 @@
+package io.a2a.server.tasks;
+
+import io.a2a.spec.Task;
+
+/**
+ * A task as stored by a {@link TaskStore}, with the version it was stored with.
+ *
+ * @param task the stored task
+ * @param version the number of times the task was saved since it was created, at least 1 for a stored task
+ */
+public record VersionedTask(Task task, long version) {
+}
@@ -0,0 +1,456 @@
+package io.a2a.server.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Task;
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TaskStore} which keeps the latest version of each saved task in memory and writes it to another store
+ * later, so that the many saves of a task while its events are processed cost a single write.
+ * <p>
+ * Reads are served from the pending versions first. The pending versions are written every
+ * {@link Builder#flushInterval(Duration)}, as soon as more than {@link Builder#maxPendingTasks(int)} tasks are
+ * pending, and on {@link #close()}. A task which reaches a final state is handed to the flusher right away, ahead of
+ * the other pending versions, so the thread saving it does not wait for the delegate; a deleted task is deleted
+ * from the delegate immediately. If writing a version fails it stays pending and is written again with the next
+ * flush. The writes of a task are serialized by a lock striped over the task ids, so a slow write only holds up the
+ * tasks sharing its stripe.
+ * <p>
+ * The store can {@link #list(ListTasksParams)} its tasks if the delegate can. Listing flushes the pending versions
+ * first, so that the delegate finds the tasks which were not written yet.
+ * <p>
+ * The store is versioned if the delegate is. Compare-and-save checks the version of the pending version of the
+ * task, so the saves of a task coalesce whether they are versioned or not; only the first compare-and-save since
+ * the task was last written reads the version of the delegate. The pending version is then written with a
+ * compare-and-save against that version of the delegate, and if another writer saved the task in the meantime it
+ * is dropped, logged and counted by {@link #getConflictCount()}, since the store cannot apply the changes again.
+ * Because the coalesced saves are written as one, the versions reported for a task are the versions of the
+ * delegate plus the saves coalesced so far, so that they never go back to a version a writer may still hold.
+ */
+public class WriteBehindTaskStore implements TaskStore, AutoCloseable {
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_MAX_PENDING_TASKS = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindTaskStore.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final TaskStore delegate;
+    private final int maxPendingTasks;
+    private final Map<String, Task> pending = new ConcurrentHashMap<>();
+    // Held while writing a task to the delegate, so that an older version never overwrites a newer one or a delete
+    private final ReentrantLock[] writeLocks = new ReentrantLock[LOCK_STRIPES];
+    // The tasks in a final state, written by the flusher before any other pending version
+    private final Queue<String> urgent = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    // The versions of the tasks saved with compare-and-save, guarded by the write locks
+    private final Map<String, Versions> versions = new ConcurrentHashMap<>();
+
+    private WriteBehindTaskStore(Builder builder) {
+        this.delegate = builder.delegate;
+        this.maxPendingTasks = builder.maxPendingTasks;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "a2a-task-store-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (builder.flushInterval != null) {
+            long interval = builder.flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        if (delegate.isVersioned()) {
+            ReentrantLock lock = writeLock(task.getId());
+            lock.lock();
+            try {
+                // The save counts as a version of a pending compare-and-save
+                Versions taskVersions = versions.get(task.getId());
+                if (taskVersions != null && taskVersions.base >= 0) {
+                    taskVersions.version++;
+                }
+                putPending(task);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            putPending(task);
+        }
+        scheduleWrite(task);
+    }
+
+    private void putPending(Task task) {
+        if (pending.put(task.getId(), task) != null) {
+            coalesced.increment();
+        }
+    }
+
+    private void scheduleWrite(Task task) {
+        if (task.getStatus().state().isFinal()) {
+            urgent.add(task.getId());
+            try {
+                flusher.execute(this::writeUrgentQuietly);
+            } catch (RejectedExecutionException e) {
+                // Closed, so there is no flusher to hand the write to
+                write(task.getId());
+            }
+        } else if (pending.size() > maxPendingTasks && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        Task task = pending.get(taskId);
+        return task != null ? task : delegate.get(taskId);
+    }
+
+    @Override
+    public List<Task> getAll(Collection<String> taskIds) {
+        Map<String, Task> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String taskId : taskIds) {
+            Task task = pending.get(taskId);
+            if (task != null) {
+                found.put(taskId, task);
+            } else {
+                missing.add(taskId);
+            }
+        }
+        // Look up the tasks which are not pending with a single call to the delegate
+        if (!missing.isEmpty()) {
+            for (Task task : delegate.getAll(missing)) {
+                found.putIfAbsent(task.getId(), task);
+            }
+        }
+        List<Task> tasks = new ArrayList<>(found.size());
+        for (String taskId : taskIds) {
+            Task task = found.get(taskId);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String taskId) {
+        ReentrantLock lock = writeLock(taskId);
+        lock.lock();
+        try {
+            pending.remove(taskId);
+            versions.remove(taskId);
+            delegate.delete(taskId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isVersioned() {
+        return delegate.isVersioned();
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        if (!delegate.isVersioned()) {
+            Task task = get(taskId);
+            return task == null ? null : new VersionedTask(task, 0);
+        }
+        ReentrantLock lock = writeLock(taskId);
+        lock.lock();
+        try {
+            Task task = pending.get(taskId);
+            Versions taskVersions = versions.get(taskId);
+            if (task != null && taskVersions != null && taskVersions.base >= 0) {
+                return new VersionedTask(task, taskVersions.version);
+            }
+            // A pending save which is not versioned is written first, so that the version of the delegate counts it
+            write(taskId);
+            VersionedTask stored = delegate.getVersioned(taskId);
+            return stored == null || taskVersions == null
+                    ? stored
+                    : new VersionedTask(stored.task(), stored.version() + taskVersions.offset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean compareAndSave(Task task, long expectedVersion) {
+        if (!delegate.isVersioned()) {
+            save(task);
+            return true;
+        }
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Invalid expected version: " + expectedVersion);
+        }
+        ReentrantLock lock = writeLock(task.getId());
+        lock.lock();
+        try {
+            Versions taskVersions = versions.computeIfAbsent(task.getId(), taskId -> new Versions());
+            if (taskVersions.base < 0) {
+                // Compare with the version of the delegate, once it counts any pending save
+                write(task.getId());
+                VersionedTask stored = delegate.getVersioned(task.getId());
+                long current = stored == null ? 0 : stored.version() + taskVersions.offset;
+                if (current != expectedVersion) {
+                    return false;
+                }
+                taskVersions.base = stored == null ? 0 : stored.version();
+                taskVersions.version = expectedVersion;
+            } else if (taskVersions.version != expectedVersion) {
+                return false;
+            }
+            taskVersions.version++;
+            putPending(task);
+        } finally {
+            lock.unlock();
+        }
+        scheduleWrite(task);
+        return true;
+    }
+
+    @Override
+    public boolean isListable() {
+        return delegate.isListable();
+    }
+
+    @Override
+    public ListTasksResult list(ListTasksParams params) {
+        flush();
+        ListTasksResult result = delegate.list(params);
+        // Versions saved since the flush are newer than the listed ones
+        List<Task> tasks = new ArrayList<>(result.tasks().size());
+        for (Task task : result.tasks()) {
+            Task pendingTask = pending.get(task.getId());
+            if (pendingTask == null) {
+                tasks.add(task);
+            } else if (params.state() == null || params.state() == pendingTask.getStatus().state()) {
+                tasks.add(pendingTask);
+            }
+        }
+        return new ListTasksResult(Collections.unmodifiableList(tasks), result.nextPageToken());
+    }
+
+    /**
+     * Writes all pending versions to the delegate.
+     *
+     * @throws RuntimeException the first failure to write a version, after trying to write all of them
+     */
+    public void flush() {
+        RuntimeException failure = writeUrgent(null);
+        for (String taskId : pending.keySet()) {
+            try {
+                write(taskId);
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+            // Don't keep the tasks which reached a final state in the meantime waiting for the whole flush
+            failure = writeUrgent(failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the number of tasks with a version which has not been written yet
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of saves superseded by a later save before they were written
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of versions written to the delegate
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * @return the number of pending versions dropped because another writer saved the task since their version
+     */
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void write(String taskId) {
+        ReentrantLock lock = writeLock(taskId);
+        lock.lock();
+        try {
+            // Read under the lock, so that a version written concurrently is never older than this one
+            Task task = pending.get(taskId);
+            if (task == null) {
+                return;
+            }
+            Versions taskVersions = versions.get(taskId);
+            if (taskVersions == null || taskVersions.base < 0) {
+                delegate.save(task);
+            } else if (delegate.compareAndSave(task, taskVersions.base)) {
+                // The delegate counted the coalesced saves as one
+                taskVersions.offset = taskVersions.version - (taskVersions.base + 1);
+                taskVersions.base = -1;
+            } else {
+                conflict(task, taskVersions);
+                return;
+            }
+            written.increment();
+            // Keep the version pending if it was superseded in the meantime
+            pending.remove(taskId, task);
+            if (taskVersions != null && task.getStatus().state().isFinal()) {
+                // Nothing updates a task in a final state any more
+                versions.remove(taskId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void conflict(Task task, Versions taskVersions) {
+        LOGGER.warn("Task {} was saved by another writer since version {}, dropping its pending version",
+                task.getId(), taskVersions.base);
+        conflicts.increment();
+        pending.remove(task.getId(), task);
+        taskVersions.base = -1;
+        VersionedTask stored = delegate.getVersioned(task.getId());
+        if (stored != null) {
+            // The writers holding a version of the dropped one must not find it again
+            taskVersions.offset = Math.max(taskVersions.offset, taskVersions.version + 1 - stored.version());
+        }
+    }
+
+    private RuntimeException writeUrgent(RuntimeException failure) {
+        String taskId;
+        while ((taskId = urgent.poll()) != null) {
+            try {
+                write(taskId);
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        return failure;
+    }
+
+    private void writeUrgentQuietly() {
+        RuntimeException failure = writeUrgent(null);
+        if (failure != null) {
+            LOGGER.warn("Unable to write tasks in a final state, retrying with the next flush", failure);
+        }
+    }
+
+    private ReentrantLock writeLock(String taskId) {
+        int hash = taskId.hashCode();
+        return writeLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private static RuntimeException addFailure(RuntimeException failure, RuntimeException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to write {} pending tasks, retrying with the next flush", pending.size(), e);
+        }
+    }
+
+    /**
+     * The versions of a task saved with compare-and-save.
+     */
+    private static final class Versions {
+        // Added to the version of the delegate, for the coalesced saves it counted as one
+        private long offset;
+        // The version of the delegate the pending version was compared against, -1 if it is not versioned
+        private long base = -1;
+        // The version of the pending version
+        private long version;
+    }
+
+    public static class Builder {
+        private TaskStore delegate;
+        private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+        private int maxPendingTasks = DEFAULT_MAX_PENDING_TASKS;
+
+        public Builder delegate(TaskStore delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * How often the pending versions are written, or {@code null} to only write them when there are too many
+         * and when {@link WriteBehindTaskStore#flush()} is called.
+         */
+        public Builder flushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * How many tasks may have a pending version before they are written without waiting for the interval.
+         */
+        public Builder maxPendingTasks(int maxPendingTasks) {
+            this.maxPendingTasks = maxPendingTasks;
+            return this;
+        }
+
+        public WriteBehindTaskStore build() {
+            Assert.checkNotNullParam("delegate", delegate);
+            if (maxPendingTasks < 0) {
+                throw new IllegalArgumentException("Max pending tasks must not be negative: " + maxPendingTasks);
+            }
+            return new WriteBehindTaskStore(this);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.a2a.server.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unmaps memory-mapped buffers as soon as they are no longer needed, rather than when they are garbage collected.
+ * A buffer must not be accessed once it is unmapped, so callers make sure that no thread still reads it.
+ */
+public final class MappedBuffers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedBuffers.class);
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * @return {@code true} if the buffer was unmapped, {@code false} if it is left to the garbage collector
+     */
+    public static boolean unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return false;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            return true;
+        } catch (Throwable e) {
+            LOGGER.warn("Unable to unmap a mapped buffer, leaving it to the garbage collector", e);
+            return false;
+        }
+    }
+
+    // There is no public API to unmap a buffer before it is garbage collected
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Unable to unmap buffers explicitly, leaving them to the garbage collector", e);
+            return null;
+        }
+    }
+}
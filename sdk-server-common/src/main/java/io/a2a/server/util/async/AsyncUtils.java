@@ -1,240 +1,555 @@
 package io.a2a.server.util.async;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Flow;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import io.a2a.util.Assert;
 import mutiny.zero.BackpressureStrategy;
-import mutiny.zero.Tube;
 import mutiny.zero.TubeConfiguration;
-import mutiny.zero.ZeroPublisher;
 import mutiny.zero.operators.Transform;
 
 public class AsyncUtils {
 
-    private static final int DEFAULT_TUBE_BUFFER_SIZE = 256;
+    public static final int DEFAULT_PREFETCH = 32;
 
     public static TubeConfiguration createTubeConfig() {
-        return createTubeConfig(DEFAULT_TUBE_BUFFER_SIZE);
+        return createTubeConfig(StreamConfig.DEFAULT_BUFFER_SIZE);
     }
 
     public static TubeConfiguration createTubeConfig(int bufferSize) {
         return new TubeConfiguration()
                 .withBackpressureStrategy(BackpressureStrategy.BUFFER)
-                .withBufferSize(256);
+                .withBufferSize(bufferSize);
     }
 
+    /**
+     * Consumes the source, returning once the source completes or fails, or {@code nextFunction} returns {@code false}.
+     */
     public static <T> void consumer(
             TubeConfiguration config,
             Flow.Publisher<T> source,
             Function<T, Boolean> nextFunction,
             Consumer<Throwable> errorConsumer) {
+        consumer(config, source, nextFunction, errorConsumer, DEFAULT_PREFETCH);
+    }
 
-        BiFunction<Consumer<Throwable>, T, Boolean> nextBiFunction = new BiFunction<Consumer<Throwable>, T, Boolean>() {
-            @Override
-            public Boolean apply(Consumer<Throwable> throwableConsumer, T t) {
-                return nextFunction.apply(t);
-            }
-        };
-
-        ZeroPublisher.create(config, tube -> {
-            source.subscribe(new ConsumingSubscriber<>(nextBiFunction, errorConsumer));
-        })
-                .subscribe(new Flow.Subscriber<Object>() {
-                    private Flow.Subscription subscription;
-
-                    @Override
-                    public void onSubscribe(Flow.Subscription subscription) {
-                        this.subscription = subscription;
-                        subscription.request(1);
-                    }
+    /**
+     * Consumes the source, returning once the source completes or fails, or {@code nextFunction} returns {@code false}.
+     *
+     * @param prefetch how many items to request from the source ahead of consuming them
+     */
+    public static <T> void consumer(
+            TubeConfiguration config,
+            Flow.Publisher<T> source,
+            Function<T, Boolean> nextFunction,
+            Consumer<Throwable> errorConsumer,
+            int prefetch) {
+        try {
+            consumerAsync(config, source, nextFunction, errorConsumer, prefetch).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Errors are reported to the errorConsumer
+        }
+    }
 
-                    @Override
-                    public void onNext(Object item) {
-                        subscription.request(1);
-                    }
+    /**
+     * Consumes the source without waiting for it.
+     *
+     * @return a future completed once the source completes or fails, or {@code nextFunction} returns {@code false}
+     */
+    public static <T> CompletableFuture<Void> consumerAsync(
+            TubeConfiguration config,
+            Flow.Publisher<T> source,
+            Function<T, Boolean> nextFunction,
+            Consumer<Throwable> errorConsumer) {
+        return consumerAsync(config, source, nextFunction, errorConsumer, DEFAULT_PREFETCH);
+    }
 
-                    @Override
-                    public void onError(Throwable throwable) {
-                        subscription.cancel();
-                    }
+    /**
+     * Consumes the source without waiting for it.
+     *
+     * @param prefetch how many items to request from the source ahead of consuming them
+     * @return a future completed once the source completes or fails, or {@code nextFunction} returns {@code false}
+     */
+    public static <T> CompletableFuture<Void> consumerAsync(
+            TubeConfiguration config,
+            Flow.Publisher<T> source,
+            Function<T, Boolean> nextFunction,
+            Consumer<Throwable> errorConsumer,
+            int prefetch) {
+        Assert.checkNotNullParam("nextFunction", nextFunction);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        source.subscribe(new ConsumingSubscriber<>(
+                (throwableConsumer, t) -> nextFunction.apply(t), errorConsumer, done, prefetch));
+        return done;
+    }
 
-                    @Override
-                    public void onComplete() {
-                        subscription.cancel();
-                    }
-                });
+    public static <T> Flow.Publisher<T> processor(
+            TubeConfiguration config,
+            Flow.Publisher<T> source,
+            BiFunction<Consumer<Throwable>, T, Boolean> nextFunction) {
+        return processor(config, source, nextFunction, DEFAULT_PREFETCH);
     }
 
+    /**
+     * Processes the items of the source, holding at most {@code config.getBufferSize()} of them for a slow
+     * subscriber.
+     *
+     * @param prefetch how many items to request from the source ahead of processing them
+     */
     public static <T> Flow.Publisher<T> processor(
             TubeConfiguration config,
             Flow.Publisher<T> source,
+            BiFunction<Consumer<Throwable>, T, Boolean> nextFunction,
+            int prefetch) {
+        StreamConfig streamConfig = new StreamConfig.Builder()
+                .bufferSize(config.getBufferSize())
+                .prefetch(Math.min(prefetch, config.getBufferSize()))
+                .maxBufferedBytes(0)
+                .build();
+        return processor(streamConfig, new StreamMetrics(), source, item -> 0, nextFunction);
+    }
+
+    /**
+     * Processes the items of the source, holding them until the subscriber requests them. Once the stage holds
+     * {@link StreamConfig#bufferSize()} items, or {@link StreamConfig#maxBufferedBytes()} as estimated by
+     * {@code sizer}, it stops requesting items from the source until the subscriber catches up.
+     */
+    public static <T> Flow.Publisher<T> processor(
+            StreamConfig config,
+            StreamMetrics metrics,
+            Flow.Publisher<T> source,
+            ToLongFunction<? super T> sizer,
             BiFunction<Consumer<Throwable>, T, Boolean> nextFunction) {
+        Assert.checkNotNullParam("config", config);
+        Assert.checkNotNullParam("metrics", metrics);
+        Assert.checkNotNullParam("sizer", sizer);
+        return subscriber -> source.subscribe(
+                new ProcessingSubscriber<>(subscriber, config, metrics, sizer, nextFunction, false));
+    }
 
-        return ZeroPublisher.create(config, tube -> {
-            source.subscribe(new ProcessingSubscriber<>(tube, nextFunction));
-        });
+    /**
+     * Processes the items of the source like {@link #processor(StreamConfig, StreamMetrics, Flow.Publisher,
+     * ToLongFunction, BiFunction)}, except that the source is consumed to its end even if the subscriber cancels.
+     * From then on the items are still processed, and dropped instead of held, so that processing with side effects
+     * does not depend on the subscriber staying.
+     */
+    public static <T> Flow.Publisher<T> completingProcessor(
+            StreamConfig config,
+            StreamMetrics metrics,
+            Flow.Publisher<T> source,
+            ToLongFunction<? super T> sizer,
+            BiFunction<Consumer<Throwable>, T, Boolean> nextFunction) {
+        Assert.checkNotNullParam("config", config);
+        Assert.checkNotNullParam("metrics", metrics);
+        Assert.checkNotNullParam("sizer", sizer);
+        return subscriber -> source.subscribe(
+                new ProcessingSubscriber<>(subscriber, config, metrics, sizer, nextFunction, true));
     }
 
+    /**
+     * Converts the items of the source. Demand is passed through to the source, and no buffering is involved.
+     */
     public static <T, N> Flow.Publisher<N> convertingProcessor(Flow.Publisher<T> source, Function<T, N> converterFunction) {
         return new Transform<>(source, converterFunction);
     }
 
-
+    /**
+     * Requests {@code prefetch} items up front, then requests more in a batch once only a quarter of them is still
+     * outstanding, instead of requesting each item after the previous one. The items are delivered one at a time, so
+     * the same error consumer is handed to {@code nextFunction} for all of them.
+     */
     private static abstract class AbstractSubscriber<T> implements Flow.Subscriber<T> {
         private Flow.Subscription subscription;
         private final BiFunction<Consumer<Throwable>, T, Boolean> nextFunction;
-        private final Consumer<T> publishNextConsumer;
-        private final Consumer<Throwable> failureOrCompleteConsumer;
+        private final Consumer<Throwable> errorConsumer = this::onError;
+        private final int prefetch;
+        private final int replenish;
+        private int consumed;
+        private boolean done;
 
-        protected AbstractSubscriber(
-                BiFunction<Consumer<Throwable>, T, Boolean> nextFunction,
-                Consumer<T> publishNextConsumer,
-                Consumer<Throwable> failureOrCompleteConsumer) {
+        protected AbstractSubscriber(BiFunction<Consumer<Throwable>, T, Boolean> nextFunction, int prefetch) {
             Assert.checkNotNullParam("nextFunction", nextFunction);
+            if (prefetch <= 0) {
+                throw new IllegalArgumentException("Prefetch must be positive: " + prefetch);
+            }
             this.nextFunction = nextFunction;
-            this.publishNextConsumer = publishNextConsumer != null ? publishNextConsumer : t -> {};
-            this.failureOrCompleteConsumer = failureOrCompleteConsumer != null ? failureOrCompleteConsumer : t -> {};
+            this.prefetch = prefetch;
+            this.replenish = prefetch - (prefetch >> 2);
         }
 
         @Override
         public void onSubscribe(Flow.Subscription subscription) {
             this.subscription = subscription;
-            this.subscription.request(1);
+            subscribed(subscription);
         }
 
         @Override
         public void onNext(T item) {
-            AtomicReference<Throwable> errorRaised = new AtomicReference<>();
-
-            Consumer<Throwable> errorConsumer = t -> {
-                        errorRaised.set(t);
-                        onError(t);
-            };
+            if (done) {
+                return;
+            }
             boolean continueProcessing = false;
-            if (errorRaised.get() == null) {
-                try {
-                    continueProcessing = nextFunction.apply(errorConsumer, item);
-                } catch (Throwable t) {
-                    errorConsumer.accept(t);
-                }
+            try {
+                continueProcessing = nextFunction.apply(errorConsumer, item);
+            } catch (Throwable t) {
+                onError(t);
             }
-            if (!continueProcessing || errorRaised.get() != null) {
+            if (done) {
+                // The error consumer was called
+                return;
+            }
+            if (!continueProcessing) {
+                done = true;
                 subscription.cancel();
-            } else {
-                if (publishNextConsumer != null) {
-                    publishNextConsumer.accept(item);
-                }
-                subscription.request(1);
+                terminated();
+                return;
             }
+            publish(item);
         }
 
-
         @Override
         public void onError(Throwable throwable) {
-            subscription.cancel();
-            if (failureOrCompleteConsumer != null) {
-                failureOrCompleteConsumer.accept(throwable);
+            if (done) {
+                return;
             }
+            done = true;
+            subscription.cancel();
+            finish(throwable);
+            terminated();
         }
 
         @Override
         public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
             subscription.cancel();
-            if (failureOrCompleteConsumer != null) {
-                failureOrCompleteConsumer.accept(null);
+            finish(null);
+            terminated();
+        }
+
+        protected void subscribed(Flow.Subscription subscription) {
+            subscription.request(prefetch);
+        }
+
+        /**
+         * Called with each item {@code nextFunction} accepted.
+         */
+        protected void publish(T item) {
+            if (++consumed == replenish) {
+                consumed = 0;
+                subscription.request(replenish);
             }
         }
+
+        /**
+         * Called once the source failed, or completed if {@code failure} is {@code null}.
+         */
+        protected abstract void finish(Throwable failure);
+
+        protected void terminated() {
+        }
     }
 
     private static class ConsumingSubscriber<T> extends AbstractSubscriber<T> {
+        private final Consumer<Throwable> failureOrCompleteConsumer;
+        private final CompletableFuture<Void> done;
+
         public ConsumingSubscriber(BiFunction<Consumer<Throwable>, T, Boolean> nextFunction,
-                                   Consumer<Throwable> failureOrCompleteConsumer) {
-            super(nextFunction, null, failureOrCompleteConsumer);
+                                   Consumer<Throwable> failureOrCompleteConsumer,
+                                   CompletableFuture<Void> done,
+                                   int prefetch) {
+            super(nextFunction, prefetch);
+            this.failureOrCompleteConsumer = failureOrCompleteConsumer;
+            this.done = done;
         }
-    }
 
-    private static class ProcessingSubscriber<T> extends AbstractSubscriber<T> {
-        private Flow.Subscription subscription;
-        private final Tube<T> tube;
-
-        public ProcessingSubscriber(Tube<T> tube, BiFunction<Consumer<Throwable>, T, Boolean> nextFunction) {
-            super(
-                    nextFunction,
-                    tube::send,
-                    t -> {
-                        if (t == null) {
-                            tube.complete();
-                        } else {
-                            tube.fail(t);
-                        }
-                    }
-            );
-            Assert.checkNotNullParam("tube", tube);
-            this.tube = tube;
+        @Override
+        protected void finish(Throwable failure) {
+            if (failureOrCompleteConsumer != null) {
+                failureOrCompleteConsumer.accept(failure);
+            }
+        }
+
+        @Override
+        protected void terminated() {
+            done.complete(null);
         }
     }
 
-    private static class ConvertingProcessingSubscriber<T, N> implements Flow.Subscriber<T> {
-        private Flow.Subscription subscription;
-        private Tube<N> tube;
-        private final BiFunction<Consumer<Throwable>, T, N> converterBiFunction;
+    /**
+     * Holds the processed items until the subscriber requests them, and only requests more from the source while it
+     * holds fewer items than the buffer size and the byte budget allow. The requests are batched like for the other
+     * subscribers; with a byte budget the first item is requested alone, and the later batches are shrunk to the
+     * budget left using the average size of the items seen so far. A failure of the source is passed on after the
+     * items held before it.
+     * <p>
+     * Signals may arrive concurrently from the source and the subscriber, so only one thread drains at a time and
+     * the others just record that another pass is needed. The items are held in a ring sized from the buffer size,
+     * along with their size, so that each item is sized once and holding it does not allocate.
+     */
+    private static class ProcessingSubscriber<T> extends AbstractSubscriber<T> implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> downstream;
+        private final StreamConfig config;
+        private final StreamMetrics metrics;
+        private final ToLongFunction<? super T> sizer;
+        private final boolean completeSource;
+        private final HeldItems<T> items;
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger held = new AtomicInteger();
+        private final AtomicLong heldBytes = new AtomicLong();
+        // Requested from the source and not received yet
+        private final AtomicInteger awaited = new AtomicInteger();
+        // Written by the source only
+        private volatile long seenItems;
+        private volatile long seenBytes;
+        private volatile Flow.Subscription upstream;
+        private volatile boolean sourceDone;
+        private volatile Throwable failure;
+        private volatile boolean cancelled;
+        private volatile long invalidRequest;
+        // Only accessed while draining
+        private boolean blocked;
+        private boolean signalled;
+
+        ProcessingSubscriber(Flow.Subscriber<? super T> downstream, StreamConfig config, StreamMetrics metrics,
+                             ToLongFunction<? super T> sizer, BiFunction<Consumer<Throwable>, T, Boolean> nextFunction,
+                             boolean completeSource) {
+            super(nextFunction, config.prefetch());
+            this.downstream = downstream;
+            this.config = config;
+            this.metrics = metrics;
+            this.sizer = sizer;
+            this.completeSource = completeSource;
+            this.items = new HeldItems<>(config.bufferSize());
+        }
 
-        public ConvertingProcessingSubscriber(Tube<N> tube, Function<T, N> converterFunction) {
-            Assert.checkNotNullParam("tube", tube);
-            Assert.checkNotNullParam("converterFunction", converterFunction);
-            this.tube = tube;
-            this.converterBiFunction = (throwableConsumer, t) -> converterFunction.apply(t);
+        @Override
+        protected void subscribed(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            drain();
         }
 
-        public ConvertingProcessingSubscriber(Tube<N> tube, BiFunction<Consumer<Throwable>, T, N> converterBiFunction) {
-            Assert.checkNotNullParam("tube", tube);
-            Assert.checkNotNullParam("converterBiFunction", converterBiFunction);
-            this.tube = tube;
-            this.converterBiFunction = converterBiFunction;
+        @Override
+        protected void publish(T item) {
+            long size = sizer.applyAsLong(item);
+            seenItems++;
+            seenBytes += size;
+            awaited.decrementAndGet();
+            if (!items.offer(item, size)) {
+                onError(new IllegalStateException("The source sent more items than requested"));
+                return;
+            }
+            int count = held.incrementAndGet();
+            heldBytes.addAndGet(size);
+            metrics.recordBuffered(size, count);
+            drain();
         }
 
         @Override
-        public void onSubscribe(Flow.Subscription subscription) {
-            this.subscription = subscription;
-            this.subscription.request(1);
+        protected void finish(Throwable failure) {
+            this.failure = failure;
         }
 
         @Override
-        public void onNext(T item) {
-            AtomicBoolean errorRaised = new AtomicBoolean(false);
-            Consumer<Throwable> errorConsumer = t -> {
-                        errorRaised.set(true);
-                        onError(t);
-            };
+        protected void terminated() {
+            sourceDone = true;
+            drain();
+        }
 
-            N converted = null;
-            try {
-                converted = converterBiFunction.apply(errorConsumer, item);
-            } catch (Throwable t) {
-                errorConsumer.accept(t);
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = n;
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (completeSource) {
+                // Request the rest of the source, whose items are processed and then dropped
+                upstream.request(Long.MAX_VALUE);
+            } else {
+                upstream.cancel();
+            }
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (!signalled) {
+                    drainOnce();
+                } else if (cancelled) {
+                    discard();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void drainOnce() {
+            if (invalidRequest != 0) {
+                signalled = true;
+                upstream.cancel();
+                discard();
+                downstream.onError(new IllegalArgumentException("Requested a non-positive number of items: " + invalidRequest));
+                return;
+            }
+            long demand = requested.get();
+            long emitted = 0;
+            while (emitted != demand && !cancelled) {
+                T item = items.peek();
+                if (item == null) {
+                    break;
+                }
+                long size = items.peekSize();
+                items.remove();
+                held.decrementAndGet();
+                heldBytes.addAndGet(-size);
+                metrics.recordEmitted(size);
+                downstream.onNext(item);
+                emitted++;
+            }
+            if (emitted != 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if (cancelled) {
+                signalled = true;
+                discard();
+            } else if (sourceDone) {
+                if (items.peek() == null) {
+                    signalled = true;
+                    if (failure != null) {
+                        downstream.onError(failure);
+                    } else {
+                        downstream.onComplete();
+                    }
+                }
+            } else {
+                requestMore();
+            }
+        }
+
+        private void requestMore() {
+            int prefetch = config.prefetch();
+            int awaiting = awaited.get();
+            if (awaiting > prefetch >> 2) {
+                // Enough items are on their way
                 return;
             }
-            if (!errorRaised.get()) {
-                tube.send(converted);
-                subscription.request(1);
+            int count = held.get();
+            int room = Math.min(config.bufferSize() - count, prefetch) - awaiting;
+            long maxBytes = config.maxBufferedBytes();
+            long seen = seenItems;
+            if (maxBytes > 0 && seen == 0) {
+                // Learn the size of the items before requesting a batch of them
+                room = Math.min(room, 1);
+            } else if (maxBytes > 0) {
+                long bytes = heldBytes.get();
+                if (bytes >= maxBytes) {
+                    room = 0;
+                } else {
+                    // Expect the requested items to be about as large as the ones seen so far
+                    long average = Math.max(1, seenBytes / seen);
+                    room = (int) Math.min(room, (maxBytes - bytes) / average - awaiting);
+                    if (room <= 0 && count == 0 && awaiting == 0) {
+                        room = 1;
+                    }
+                }
+            }
+            if (room <= 0) {
+                if (awaiting == 0 && !blocked) {
+                    blocked = true;
+                    metrics.recordBlocked();
+                }
+                return;
             }
+            blocked = false;
+            awaited.addAndGet(room);
+            upstream.request(room);
         }
 
-        @Override
-        public void onError(Throwable throwable) {
-            subscription.cancel();
-            tube.fail(throwable);
+        private void discard() {
+            while (items.peek() != null) {
+                long size = items.peekSize();
+                items.remove();
+                held.decrementAndGet();
+                heldBytes.addAndGet(-size);
+                metrics.recordDropped(size);
+            }
         }
+    }
 
-        @Override
-        public void onComplete() {
-            subscription.cancel();
-            tube.complete();
+    /**
+     * A ring of items and their sizes, offered by a single producer and taken by a single consumer at a time. The
+     * size of an item is written before the item itself is published, and a slot is only reused once the consumer
+     * cleared it.
+     */
+    private static final class HeldItems<T> {
+        private final AtomicReferenceArray<T> slots;
+        private final long[] sizes;
+        // Only accessed by the producer
+        private int tail;
+        // Only accessed by the consumer
+        private int head;
+
+        HeldItems(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+            sizes = new long[capacity];
+        }
+
+        /**
+         * @return {@code false} if the ring is full
+         */
+        boolean offer(T item, long size) {
+            if (slots.get(tail) != null) {
+                return false;
+            }
+            sizes[tail] = size;
+            slots.lazySet(tail, item);
+            tail = next(tail);
+            return true;
+        }
+
+        /**
+         * @return the oldest item, or {@code null} if there is none
+         */
+        T peek() {
+            return slots.get(head);
+        }
+
+        /**
+         * @return the size of the item returned by {@link #peek()}
+         */
+        long peekSize() {
+            return sizes[head];
+        }
+
+        void remove() {
+            slots.lazySet(head, null);
+            head = next(head);
+        }
+
+        private int next(int index) {
+            return index == sizes.length - 1 ? 0 : index + 1;
         }
     }
 }
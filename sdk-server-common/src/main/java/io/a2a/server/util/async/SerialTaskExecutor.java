@@ -0,0 +1,196 @@
+package io.a2a.server.util.async;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the work submitted for each task one at a time, in the order it was submitted, on a shared executor.
+ * <p>
+ * Each active task has a mailbox, which is drained by at most one thread at a time, while the work of different
+ * tasks runs in parallel. Submitting only uses atomic operations: a mailbox counts its pending work, and is removed
+ * once it is empty by marking it dead, so that a later submission creates a new one. A thread draining a mailbox
+ * runs at most {@link #MAX_BATCH} works before handing it back to the executor, so that busy tasks do not starve
+ * the others.
+ * <p>
+ * Submitting never waits for the work of a task: {@link #submit(String, Callable)} runs the work on the calling
+ * thread when the task's mailbox is idle, and otherwise queues it and returns, its result completing once it ran.
+ * The result of a work completes after the mailbox accounted for it, so once the results of all the works
+ * submitted for a task completed, the task is no longer {@linkplain #getActiveTaskCount() active}.
+ */
+public class SerialTaskExecutor {
+
+    public static final int MAX_BATCH = 64;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerialTaskExecutor.class);
+    private static final int DEAD = -1;
+
+    private final Executor executor;
+    private final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public SerialTaskExecutor(Executor executor) {
+        Assert.checkNotNullParam("executor", executor);
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the work on the executor once the work submitted before for the task has run.
+     */
+    public void execute(String taskId, Runnable work) {
+        mailbox(taskId, work, false);
+    }
+
+    /**
+     * Runs the work once the work submitted before for the task has run, without waiting for it. Work submitted
+     * from the work of the same task runs after it, like any other.
+     *
+     * @return the result of the work, completed on the thread which ran it
+     */
+    public <T> CompletionStage<T> submit(String taskId, Callable<T> work) {
+        Call<T> call = new Call<>(work);
+        mailbox(taskId, call, true);
+        return call.result;
+    }
+
+    /**
+     * @return the number of tasks with pending work
+     */
+    public int getActiveTaskCount() {
+        return mailboxes.size();
+    }
+
+    private void mailbox(String taskId, Runnable work, boolean inline) {
+        Assert.checkNotNullParam("taskId", taskId);
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(taskId, Mailbox::new);
+            if (mailbox.offer(work, inline)) {
+                return;
+            }
+            // The mailbox emptied and died in the meantime
+            mailboxes.remove(taskId, mailbox);
+        }
+    }
+
+    /**
+     * A submitted work, whose result is completed by the mailbox once it accounted for the work.
+     */
+    private static final class Call<T> implements Runnable {
+        private final Callable<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+        private Throwable failure;
+
+        Call(Callable<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            try {
+                value = work.call();
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    private final class Mailbox implements Runnable {
+        private final String taskId;
+        private final Queue<Runnable> works = new ConcurrentLinkedQueue<>();
+        // The number of works submitted and not run yet, or DEAD once the mailbox was removed
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Mailbox(String taskId) {
+            this.taskId = taskId;
+        }
+
+        /**
+         * @return whether the work was added, which it is not once the mailbox is dead
+         */
+        boolean offer(Runnable work, boolean inline) {
+            int count;
+            do {
+                count = pending.get();
+                if (count == DEAD) {
+                    return false;
+                }
+            } while (!pending.compareAndSet(count, count + 1));
+            works.offer(work);
+            if (count == 0) {
+                // The mailbox was idle, so this thread starts draining it
+                if (inline) {
+                    drain(work);
+                } else {
+                    executor.execute(this);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            drain(null);
+        }
+
+        /**
+         * Runs the pending works, until the given one has run if it is not {@code null}.
+         */
+        private void drain(Runnable until) {
+            for (int ran = 1; ; ran++) {
+                Runnable work = next();
+                try {
+                    work.run();
+                } catch (Throwable t) {
+                    LOGGER.warn("Work for task {} failed", taskId, t);
+                }
+                // The last work kills the mailbox, so that a new submission creates another one
+                boolean last = pending.compareAndSet(1, DEAD);
+                if (last) {
+                    mailboxes.remove(taskId, this);
+                }
+                // Completed before the next work of the mailbox runs, so that what depends on it sees them in order
+                if (work instanceof Call<?> call) {
+                    call.complete();
+                }
+                if (last) {
+                    return;
+                }
+                // More works were submitted, and only this thread takes the count down
+                pending.decrementAndGet();
+                if (work == until || ran == MAX_BATCH) {
+                    executor.execute(this);
+                    return;
+                }
+            }
+        }
+
+        private Runnable next() {
+            while (true) {
+                Runnable work = works.poll();
+                if (work != null) {
+                    return work;
+                }
+                // The work was counted, and is about to be added by the thread submitting it
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
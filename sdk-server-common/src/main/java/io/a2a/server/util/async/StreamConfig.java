@@ -0,0 +1,71 @@
+package io.a2a.server.util.async;
+
+/**
+ * Sizing of the stages which buffer the events of a stream between its source and a slow subscriber.
+ *
+ * @param bufferSize the maximum number of events held by a stage, including the ones it requested and did not
+ * receive yet
+ * @param prefetch how many events a stage requests from the previous one ahead of passing them on, at most
+ * {@code bufferSize}
+ * @param maxBufferedBytes the estimated size of the events a stage may hold before it stops requesting more, or 0
+ * for no limit. A stage holding no events always requests at least one, however large
+ */
+public record StreamConfig(int bufferSize, int prefetch, long maxBufferedBytes) {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 4 * 1024 * 1024;
+
+    public static final StreamConfig DEFAULT = new Builder().build();
+
+    public StreamConfig {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        if (prefetch <= 0 || prefetch > bufferSize) {
+            throw new IllegalArgumentException(
+                    "Prefetch must be between 1 and the buffer size " + bufferSize + ": " + prefetch);
+        }
+        if (maxBufferedBytes < 0) {
+            throw new IllegalArgumentException("Max buffered bytes must not be negative: " + maxBufferedBytes);
+        }
+    }
+
+    public static class Builder {
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private Integer prefetch;
+        private long maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+
+        public Builder() {
+        }
+
+        public Builder(StreamConfig config) {
+            this.bufferSize = config.bufferSize;
+            this.prefetch = config.prefetch;
+            this.maxBufferedBytes = config.maxBufferedBytes;
+        }
+
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Defaults to {@link AsyncUtils#DEFAULT_PREFETCH}, or the buffer size if it is smaller.
+         */
+        public Builder prefetch(int prefetch) {
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        public Builder maxBufferedBytes(long maxBufferedBytes) {
+            this.maxBufferedBytes = maxBufferedBytes;
+            return this;
+        }
+
+        public StreamConfig build() {
+            int batch = prefetch == null ? Math.min(AsyncUtils.DEFAULT_PREFETCH, bufferSize) : prefetch;
+            return new StreamConfig(bufferSize, batch, maxBufferedBytes);
+        }
+    }
+}
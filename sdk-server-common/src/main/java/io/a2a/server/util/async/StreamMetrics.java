@@ -0,0 +1,90 @@
+package io.a2a.server.util.async;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Occupancy of the stages buffering the events of a set of streams, and how often they had to hold back or discard
+ * events.
+ * <p>
+ * {@link io.a2a.server.requesthandlers.DefaultRequestHandler} shares one instance between all the streams it
+ * creates, including the stages draining the event queues, which record through the public methods.
+ */
+public class StreamMetrics {
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder bufferedBytes = new LongAdder();
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAccumulator maxBuffered = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @return the number of events currently held by the stages
+     */
+    public long getBuffered() {
+        return buffered.sum();
+    }
+
+    /**
+     * @return the estimated size of the events currently held by the stages
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes.sum();
+    }
+
+    /**
+     * @return the largest number of events a single stage held at once
+     */
+    public long getMaxBuffered() {
+        return maxBuffered.get();
+    }
+
+    /**
+     * @return the number of events passed on to the next stage or subscriber
+     */
+    public long getEmitted() {
+        return emitted.sum();
+    }
+
+    /**
+     * @return the number of times a stage stopped requesting events because it held
+     * {@link StreamConfig#bufferSize()} events or {@link StreamConfig#maxBufferedBytes()}, or stopped draining an
+     * event queue because the subscriber had not requested the events waiting in it
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return the number of held events discarded because the subscriber cancelled
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records an event held by a stage, which now holds {@code held} events.
+     */
+    public void recordBuffered(long bytes, int held) {
+        buffered.increment();
+        bufferedBytes.add(bytes);
+        maxBuffered.accumulate(held);
+    }
+
+    public void recordEmitted(long bytes) {
+        buffered.decrement();
+        bufferedBytes.add(-bytes);
+        emitted.increment();
+    }
+
+    public void recordBlocked() {
+        blocked.increment();
+    }
+
+    public void recordDropped(long bytes) {
+        buffered.decrement();
+        bufferedBytes.add(-bytes);
+        dropped.increment();
+    }
+}
@@ -11,6 +11,8 @@ import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.a2a.server.util.async.StreamConfig;
+import io.a2a.server.util.async.StreamMetrics;
 import io.a2a.spec.A2AError;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Artifact;
@@ -147,6 +149,143 @@ public class EventConsumerTest {
         }
     }
 
+    @Test
+    public void testAgentErrorSeenWhenCallbackAddedAfterAgentDone() throws Exception {
+        RuntimeException failure = new RuntimeException("Agent failed");
+        EnhancedRunnable agentRunnable = new EnhancedRunnable() {
+            @Override
+            public void run() {
+            }
+        };
+        agentRunnable.setError(failure);
+        agentRunnable.invokeDoneCallbacks();
+        eventQueue.close();
+
+        agentRunnable.addDoneCallback(eventConsumer.createAgentRunnableDoneCallback());
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        eventConsumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Event item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertSame(failure, error.get());
+    }
+
+    @Test
+    public void testCancellingForgetsTheRecordedSequences() {
+        EventSequences sequences = new EventSequences();
+        EventConsumer consumer = new EventConsumer(eventQueue, sequences);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            events.add(new TaskStatusUpdateEvent.Builder()
+                    .taskId("task-123")
+                    .contextId("session-xyz")
+                    .status(new TaskStatus(TaskState.WORKING))
+                    .isFinal(false)
+                    .build());
+        }
+        events.forEach(eventQueue::enqueueEvent);
+
+        List<Event> received = new ArrayList<>();
+        consumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(2);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                received.add(item);
+                if (received.size() == 2) {
+                    // The client went away before the events were written
+                    subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertEquals(2, received.size());
+        assertEquals(-1, sequences.remove(events.get(0)));
+        assertEquals(-1, sequences.remove(events.get(1)));
+    }
+
+    @Test
+    public void testConsumeAllRecordsTheStreamMetrics() {
+        StreamMetrics metrics = new StreamMetrics();
+        EventConsumer consumer = new EventConsumer(eventQueue, null, StreamConfig.DEFAULT, metrics);
+        List<Event> received = new ArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        consumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        for (int i = 0; i < 2; i++) {
+            eventQueue.enqueueEvent(new TaskStatusUpdateEvent.Builder()
+                    .taskId("task-123")
+                    .contextId("session-xyz")
+                    .status(new TaskStatus(TaskState.WORKING))
+                    .isFinal(false)
+                    .build());
+        }
+
+        // The second event waits in the queue until the subscriber requests it
+        assertEquals(1, received.size());
+        assertEquals(1, metrics.getEmitted());
+        assertEquals(1, metrics.getMaxBuffered());
+        assertEquals(1, metrics.getBlocked());
+        assertEquals(0, metrics.getBuffered());
+        assertEquals(0, metrics.getBufferedBytes());
+
+        subscription.get().request(1);
+        assertEquals(2, received.size());
+        assertEquals(2, metrics.getEmitted());
+        assertEquals(0, metrics.getBuffered());
+        assertEquals(0, metrics.getDropped());
+    }
+
     @Test
     public void testConsumeUntilMessage() throws Exception {
         List<Event> events = List.of(
@@ -1,12 +1,23 @@
 package io.a2a.server.events;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import io.a2a.spec.Artifact;
 import io.a2a.spec.Event;
+import io.a2a.spec.InternalError;
 import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.Message;
 import io.a2a.spec.Task;
@@ -19,6 +30,7 @@ import io.a2a.spec.TextPart;
 import io.a2a.util.Utils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class EventQueueTest {
 
@@ -113,4 +125,409 @@ public class EventQueueTest {
             assertSame(event, dequeuedEvent);
         }
     }
+
+    @Test
+    public void testBlockTimesOutWhenFull() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(1)
+                    .overflowPolicy(EventQueueOverflowPolicy.BLOCK)
+                    .blockTimeout(Duration.ofMillis(50))
+                    .build());
+            Event event = statusUpdate(TaskState.WORKING, false);
+            queue.enqueueEvent(event);
+
+            assertThrows(EventQueueOverflowException.class, () -> queue.enqueueEvent(statusUpdate(TaskState.WORKING, false)));
+            assertEquals(1, queue.getMetrics().getBlocked());
+            assertEquals(1, queue.getMetrics().getBlockTimeouts());
+            assertSame(event, queue.dequeueEvent(-1));
+            assertNull(queue.dequeueEvent(-1));
+        }
+    }
+
+    @Test
+    public void testDropOldestWhenFull() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(2)
+                    .overflowPolicy(EventQueueOverflowPolicy.DROP_OLDEST)
+                    .maxSubscriberLag(0)
+                    .build());
+            EventQueue child = queue.tap();
+            List<Event> events = List.of(
+                    statusUpdate(TaskState.SUBMITTED, false),
+                    statusUpdate(TaskState.WORKING, false),
+                    statusUpdate(TaskState.COMPLETED, true));
+            events.forEach(queue::enqueueEvent);
+
+            for (EventQueue q : List.of(queue, child)) {
+                assertSame(events.get(1), q.dequeueEvent(-1));
+                assertSame(events.get(2), q.dequeueEvent(-1));
+                assertNull(q.dequeueEvent(-1));
+            }
+            assertEquals(3, queue.getMetrics().getEnqueued());
+            assertTrue(queue.getMetrics().getDropped() > 0);
+        }
+    }
+
+    @Test
+    public void testCoalesceLatestStatusWhenFull() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(2)
+                    .overflowPolicy(EventQueueOverflowPolicy.COALESCE_LATEST_STATUS)
+                    .blockTimeout(Duration.ofMillis(50))
+                    .build());
+            Event working = statusUpdate(TaskState.WORKING, false);
+            Event artifact = new TaskArtifactUpdateEvent.Builder()
+                    .taskId("task-123")
+                    .contextId("session-xyz")
+                    .artifact(new Artifact.Builder()
+                            .artifactId("11")
+                            .parts(new TextPart("text"))
+                            .build())
+                    .build();
+            Event inputRequired = statusUpdate(TaskState.INPUT_REQUIRED, false);
+
+            queue.enqueueEvent(working);
+            queue.enqueueEvent(artifact);
+            queue.enqueueEvent(inputRequired);
+            // Only status updates can be coalesced, so this one has to wait for room
+            assertThrows(EventQueueOverflowException.class, () -> queue.enqueueEvent(artifact));
+
+            assertSame(artifact, queue.dequeueEvent(-1));
+            assertSame(inputRequired, queue.dequeueEvent(-1));
+            assertNull(queue.dequeueEvent(-1));
+            assertEquals(1, queue.getMetrics().getCoalesced());
+        }
+    }
+
+    @Test
+    public void testFailTaskWhenFull() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(1)
+                    .overflowPolicy(EventQueueOverflowPolicy.FAIL_TASK)
+                    .maxSubscriberLag(0)
+                    .build());
+            EventQueue child = queue.tap();
+            Event working = statusUpdate(TaskState.WORKING, false);
+            queue.enqueueEvent(working);
+
+            assertThrows(EventQueueOverflowException.class, () -> queue.enqueueEvent(statusUpdate(TaskState.WORKING, false)));
+            assertEquals(1, queue.getMetrics().getFailedTasks());
+
+            for (EventQueue q : List.of(queue, child)) {
+                assertSame(working, q.dequeueEvent(-1));
+                TaskStatusUpdateEvent failed = assertInstanceOf(TaskStatusUpdateEvent.class, q.dequeueEvent(-1));
+                assertEquals(TaskState.FAILED, failed.getStatus().state());
+                assertTrue(failed.isFinal());
+                assertEquals("task-123", failed.getTaskId());
+                assertThrows(EventQueueClosedException.class, () -> q.dequeueEvent(-1));
+            }
+        }
+    }
+
+    @Test
+    public void testTapsReadSharedLogIndependently() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(4)
+                    .build());
+            Event first = statusUpdate(TaskState.SUBMITTED, false);
+            queue.enqueueEvent(first);
+            EventQueue slow = queue.tap();
+            EventQueue fast = queue.tap();
+            List<Event> events = List.of(
+                    statusUpdate(TaskState.WORKING, false),
+                    statusUpdate(TaskState.INPUT_REQUIRED, false),
+                    statusUpdate(TaskState.COMPLETED, true));
+
+            for (Event event : events) {
+                queue.enqueueEvent(event);
+                assertSame(event, fast.dequeueEvent(-1));
+            }
+            assertNull(fast.dequeueEvent(-1));
+
+            assertSame(first, queue.dequeueEvent(-1));
+            for (Event event : events) {
+                assertSame(event, queue.dequeueEvent(-1));
+                assertSame(event, slow.dequeueEvent(-1));
+            }
+            assertNull(queue.dequeueEvent(-1));
+            assertNull(slow.dequeueEvent(-1));
+        }
+    }
+
+    @Test
+    public void testTapFromSequenceReplaysRetainedEvents() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(4)
+                    .replayCapacity(3)
+                    .build());
+            List<Event> events = List.of(
+                    statusUpdate(TaskState.SUBMITTED, false),
+                    statusUpdate(TaskState.WORKING, false),
+                    statusUpdate(TaskState.INPUT_REQUIRED, false),
+                    statusUpdate(TaskState.WORKING, false),
+                    statusUpdate(TaskState.WORKING, false));
+            for (int i = 0; i < events.size(); i++) {
+                queue.enqueueEvent(events.get(i));
+                assertSame(events.get(i), queue.dequeueEvent(-1));
+                assertEquals(i, queue.getLastSequence());
+            }
+
+            EventQueue resumed = queue.tap(3);
+            assertSame(events.get(3), resumed.dequeueEvent(-1));
+            assertEquals(3, resumed.getLastSequence());
+            assertSame(events.get(4), resumed.dequeueEvent(-1));
+            assertNull(resumed.dequeueEvent(-1));
+
+            // Only the latest three events are retained, so the tap starts with the snapshot of the task
+            EventQueue oldest = queue.tap(0);
+            Event snapshot = statusUpdate(TaskState.WORKING, false);
+            oldest.setSnapshotSupplier(() -> snapshot);
+            assertSame(snapshot, oldest.dequeueEvent(-1));
+            assertEquals(-1, oldest.getLastSequence());
+            assertSame(events.get(2), oldest.dequeueEvent(-1));
+            assertEquals(2, oldest.getLastSequence());
+
+            queue.close();
+            EventQueue afterClose = queue.tap(4);
+            assertSame(events.get(4), afterClose.dequeueEvent(-1));
+            assertThrows(EventQueueClosedException.class, () -> afterClose.dequeueEvent(-1));
+        }
+    }
+
+    @Test
+    public void testDrainReturnsAvailableEventsUpToMax() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(backend);
+            assertTrue(queue.drain(10).isEmpty());
+
+            List<Event> events = List.of(
+                    statusUpdate(TaskState.SUBMITTED, false),
+                    statusUpdate(TaskState.WORKING, false),
+                    statusUpdate(TaskState.COMPLETED, true));
+            events.forEach(queue::enqueueEvent);
+            assertEquals(events.subList(0, 2), queue.drain(2));
+            assertEquals(1, queue.getLastSequence());
+            assertEquals(events.subList(2, 3), queue.drain(10));
+            assertEquals(2, queue.getLastSequence());
+
+            queue.close();
+            assertThrows(EventQueueClosedException.class, () -> queue.drain(10));
+        }
+    }
+
+    @Test
+    public void testDequeueAsyncCompletesWhenEventEnqueued() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(backend);
+            Event available = statusUpdate(TaskState.SUBMITTED, false);
+            queue.enqueueEvent(available);
+            assertSame(available, queue.dequeueAsync().toCompletableFuture().getNow(null));
+
+            CompletableFuture<Event> pending = queue.dequeueAsync().toCompletableFuture();
+            assertFalse(pending.isDone());
+            Event event = statusUpdate(TaskState.WORKING, false);
+            queue.enqueueEvent(event);
+            assertSame(event, pending.getNow(null));
+
+            // A cancelled dequeue does not take events
+            CompletableFuture<Event> cancelled = queue.dequeueAsync().toCompletableFuture();
+            cancelled.cancel(false);
+            Event next = statusUpdate(TaskState.COMPLETED, true);
+            queue.enqueueEvent(next);
+            assertSame(next, queue.dequeueEvent(-1));
+
+            CompletableFuture<Event> closed = queue.dequeueAsync().toCompletableFuture();
+            queue.close();
+            ExecutionException e = assertThrows(ExecutionException.class, closed::get);
+            assertInstanceOf(EventQueueClosedException.class, e.getCause());
+        }
+    }
+
+    @Test
+    public void testSlowTapIsDetachedWithoutHoldingUpProducer() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(4)
+                    .maxSubscriberLag(2)
+                    .blockTimeout(Duration.ofMillis(50))
+                    .build());
+            EventQueue slow = queue.tap();
+            EventQueue healthy = queue.tap();
+            for (int i = 0; i < 10; i++) {
+                Event event = statusUpdate(TaskState.WORKING, false);
+                queue.enqueueEvent(event);
+                assertSame(event, queue.dequeueEvent(-1));
+                assertSame(event, healthy.dequeueEvent(-1));
+            }
+
+            assertTrue(slow.isClosed());
+            assertInstanceOf(InternalError.class, slow.dequeueEvent(-1));
+            assertThrows(EventQueueClosedException.class, () -> slow.dequeueEvent(-1));
+            assertFalse(healthy.isClosed());
+            assertEquals(1, queue.getMetrics().getDetachedSubscribers());
+            assertEquals(0, queue.getMetrics().getBlocked());
+        }
+    }
+
+    @Test
+    public void testSlowTapSkipsToSnapshot() throws Exception {
+        for (EventQueueBackend backend : EventQueueBackend.values()) {
+            EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                    .backend(backend)
+                    .capacity(4)
+                    .maxSubscriberLag(2)
+                    .slowSubscriberPolicy(SlowSubscriberPolicy.SNAPSHOT)
+                    .build());
+            Task snapshot = Utils.unmarshalFrom(MINIMAL_TASK, Task.TYPE_REFERENCE);
+            EventQueue slow = queue.tap();
+            slow.setSnapshotSupplier(() -> snapshot);
+            List<Event> events = List.of(
+                    statusUpdate(TaskState.SUBMITTED, false),
+                    statusUpdate(TaskState.WORKING, false),
+                    statusUpdate(TaskState.INPUT_REQUIRED, false),
+                    statusUpdate(TaskState.WORKING, false));
+            for (Event event : events) {
+                queue.enqueueEvent(event);
+                assertSame(event, queue.dequeueEvent(-1));
+            }
+
+            // The first two events were skipped when the third was enqueued
+            assertSame(snapshot, slow.dequeueEvent(-1));
+            assertEquals(-1, slow.getLastSequence());
+            assertSame(events.get(2), slow.dequeueEvent(-1));
+            assertSame(events.get(3), slow.dequeueEvent(-1));
+            assertNull(slow.dequeueEvent(-1));
+            assertFalse(slow.isClosed());
+            assertEquals(1, queue.getMetrics().getSnapshotSubscribers());
+        }
+    }
+
+    @Test
+    public void testSpillsEventsBeyondThreshold(@TempDir Path spillDirectory) throws Exception {
+        EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                .spillThresholdBytes(4096)
+                .spillDirectory(spillDirectory)
+                // Retained events stay on heap too
+                .replayCapacity(0)
+                .build());
+        EventQueue tap = queue.tap();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new TaskArtifactUpdateEvent.Builder()
+                    .taskId("task-123")
+                    .contextId("session-xyz")
+                    .artifact(new Artifact.Builder()
+                            .artifactId("artifact-" + i)
+                            .parts(new TextPart("x".repeat(1000)))
+                            .build())
+                    .build());
+        }
+        events.forEach(queue::enqueueEvent);
+        assertTrue(queue.getMetrics().getSpilledEvents() > 0);
+
+        for (EventQueue q : List.of(queue, tap)) {
+            for (int i = 0; i < events.size(); i++) {
+                TaskArtifactUpdateEvent read = assertInstanceOf(TaskArtifactUpdateEvent.class, q.dequeueEvent(-1));
+                assertEquals("artifact-" + i, read.getArtifact().artifactId());
+                assertEquals(i, q.getLastSequence());
+            }
+            assertNull(q.dequeueEvent(-1));
+        }
+        // Events enqueued once the readers caught up are kept on heap again
+        long spilled = queue.getMetrics().getSpilledEvents();
+        Event event = statusUpdate(TaskState.COMPLETED, true);
+        queue.enqueueEvent(event);
+        assertSame(event, queue.dequeueEvent(-1));
+        assertEquals(spilled, queue.getMetrics().getSpilledEvents());
+    }
+
+    @Test
+    public void testUnmapsSpillOnceClosedAndRead(@TempDir Path spillDirectory) throws Exception {
+        EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                .spillThresholdBytes(4096)
+                .spillDirectory(spillDirectory)
+                .replayCapacity(0)
+                .build());
+        EventQueue tap = queue.tap();
+        for (int i = 0; i < 10; i++) {
+            queue.enqueueEvent(artifactUpdate(i));
+        }
+        // The first segment is sized from the threshold rather than the maximum segment size
+        assertEquals(EventSpill.MIN_SEGMENT_SIZE, queue.getMetrics().getMappedSpillBytes());
+
+        while (queue.dequeueEvent(-1) != null) {
+            // Only the tap still needs the spilled events
+        }
+        queue.close();
+        assertEquals(EventSpill.MIN_SEGMENT_SIZE, queue.getMetrics().getMappedSpillBytes());
+        for (int i = 0; i < 10; i++) {
+            TaskArtifactUpdateEvent read = assertInstanceOf(TaskArtifactUpdateEvent.class, tap.dequeueEvent(-1));
+            assertEquals("artifact-" + i, read.getArtifact().artifactId());
+        }
+        assertEquals(0, queue.getMetrics().getMappedSpillBytes());
+    }
+
+    @Test
+    public void testUnmapsRetainedSpillOnceDiscarded(@TempDir Path spillDirectory) throws Exception {
+        EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                .spillThresholdBytes(4096)
+                .spillDirectory(spillDirectory)
+                .replayCapacity(20)
+                .build());
+        for (int i = 0; i < 10; i++) {
+            queue.enqueueEvent(artifactUpdate(i));
+        }
+        while (queue.dequeueEvent(-1) != null) {
+            // Drain the main queue
+        }
+        queue.close();
+        // The replay window still holds the spilled events
+        assertTrue(queue.getMetrics().getMappedSpillBytes() > 0);
+        EventQueue replay = queue.tap(0);
+        TaskArtifactUpdateEvent read = assertInstanceOf(TaskArtifactUpdateEvent.class, replay.dequeueEvent(-1));
+        assertEquals("artifact-0", read.getArtifact().artifactId());
+
+        replay.close();
+        replay.discard();
+        assertTrue(queue.getMetrics().getMappedSpillBytes() > 0);
+        // The replaying tap still reads the events it had not read yet
+        for (int i = 1; i < 10; i++) {
+            read = assertInstanceOf(TaskArtifactUpdateEvent.class, replay.dequeueEvent(-1));
+            assertEquals("artifact-" + i, read.getArtifact().artifactId());
+        }
+        assertEquals(0, queue.getMetrics().getMappedSpillBytes());
+    }
+
+    private static TaskArtifactUpdateEvent artifactUpdate(int index) {
+        return new TaskArtifactUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .artifact(new Artifact.Builder()
+                        .artifactId("artifact-" + index)
+                        .parts(new TextPart("x".repeat(1000)))
+                        .build())
+                .build();
+    }
+
+    private static TaskStatusUpdateEvent statusUpdate(TaskState state, boolean isFinal) {
+        return new TaskStatusUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(state))
+                .isFinal(isFinal)
+                .build();
+    }
 }
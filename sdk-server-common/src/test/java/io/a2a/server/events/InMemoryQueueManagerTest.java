@@ -0,0 +1,212 @@
+package io.a2a.server.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+
+import io.a2a.spec.Event;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TaskStatusUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryQueueManagerTest {
+
+    @Test
+    public void testReapEvictsClosedAndDrainedQueues() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager(
+                EventQueueConfig.DEFAULT, InMemoryQueueManager.DEFAULT_IDLE_TIMEOUT, Duration.ZERO);
+        queueManager.stopReaping();
+        EventQueue closed = queueManager.createOrTap("closed");
+        EventQueue terminated = queueManager.createOrTap("terminated");
+        EventQueue working = queueManager.createOrTap("working");
+        closed.close();
+        terminated.enqueueEvent(statusUpdate("terminated", TaskState.COMPLETED, true));
+        working.enqueueEvent(statusUpdate("working", TaskState.WORKING, false));
+
+        // The final event of the terminated task has not been read yet
+        assertEquals(1, queueManager.reap());
+        assertNull(queueManager.get("closed"));
+        assertSame(terminated, queueManager.get("terminated"));
+        assertSame(working, queueManager.get("working"));
+
+        assertTrue(terminated.dequeueEvent(-1) instanceof TaskStatusUpdateEvent);
+        terminated.close();
+        assertEquals(1, queueManager.reap());
+        assertNull(queueManager.get("terminated"));
+        assertSame(working, queueManager.get("working"));
+        assertEquals(2, queueManager.getMetrics().getEvictedQueues());
+    }
+
+    @Test
+    public void testReapEvictsIdleQueues() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager(EventQueueConfig.DEFAULT, Duration.ofMillis(50));
+        queueManager.stopReaping();
+        EventQueue idle = queueManager.createOrTap("idle");
+        Thread.sleep(100);
+        EventQueue active = queueManager.createOrTap("active");
+
+        assertEquals(1, queueManager.reap());
+
+        assertNull(queueManager.get("idle"));
+        assertTrue(idle.isClosed());
+        assertSame(active, queueManager.get("active"));
+    }
+
+    @Test
+    public void testReapKeepsIdleQueuesWithARunningAgentOrReader() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager(EventQueueConfig.DEFAULT, Duration.ofMillis(50));
+        queueManager.stopReaping();
+        EventQueue running = queueManager.createOrTap("running");
+        running.agentStarted();
+        EventQueue read = queueManager.createOrTap("read");
+        CompletionStage<Event> next = queueManager.tap("read").dequeueAsync();
+        Thread.sleep(100);
+
+        assertEquals(0, queueManager.reap());
+        assertSame(running, queueManager.get("running"));
+        assertSame(read, queueManager.get("read"));
+
+        running.agentDone();
+        next.toCompletableFuture().cancel(false);
+        Thread.sleep(100);
+        assertEquals(2, queueManager.reap());
+        assertNull(queueManager.get("running"));
+        assertNull(queueManager.get("read"));
+    }
+
+    @Test
+    public void testReapsInTheBackground() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager(EventQueueConfig.DEFAULT, Duration.ofMillis(50));
+        try {
+            EventQueue idle = queueManager.createOrTap("idle");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!idle.isClosed() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(idle.isClosed());
+            assertNull(queueManager.get("idle"));
+        } finally {
+            queueManager.stopReaping();
+        }
+    }
+
+    @Test
+    public void testClosedQueueKeepsItsReplayWindowForTheRetention() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager(
+                EventQueueConfig.DEFAULT, InMemoryQueueManager.DEFAULT_IDLE_TIMEOUT, Duration.ofMillis(100));
+        queueManager.stopReaping();
+        EventQueue queue = queueManager.createOrTap("task");
+        TaskStatusUpdateEvent working = statusUpdate("task", TaskState.WORKING, false);
+        TaskStatusUpdateEvent completed = statusUpdate("task", TaskState.COMPLETED, true);
+        queue.enqueueEvent(working);
+        queue.enqueueEvent(completed);
+        queue.dequeueEvent(-1);
+        queue.dequeueEvent(-1);
+        queue.close();
+        queueManager.close("task");
+
+        // A client which only received the first event resumes after it
+        assertEquals(0, queueManager.reap());
+        EventQueue resumed = queueManager.tap("task", 1);
+        assertSame(completed, resumed.dequeueEvent(-1));
+
+        Thread.sleep(150);
+        assertEquals(1, queueManager.reap());
+        assertNull(queueManager.get("task"));
+    }
+
+    @Test
+    public void testCreateOrTapReplacesClosedQueue() {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager();
+        EventQueue queue = queueManager.createOrTap("task");
+        queue.close();
+
+        assertNull(queueManager.tap("task"));
+        EventQueue replacement = queueManager.createOrTap("task");
+        assertNotSame(queue, replacement);
+        assertSame(replacement, queueManager.get("task"));
+    }
+
+    @Test
+    public void testResumesAcrossQueueReplacement() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager();
+        queueManager.stopReaping();
+        EventQueue queue = queueManager.createOrTap("task");
+        queue.enqueueEvent(statusUpdate("task", TaskState.WORKING, false));
+        queue.enqueueEvent(statusUpdate("task", TaskState.INPUT_REQUIRED, false));
+        queue.dequeueEvent(-1);
+        queue.dequeueEvent(-1);
+        queue.close();
+
+        // The sequences of the task continue in the queue replacing the closed one
+        EventQueue replacement = queueManager.createOrTap("task");
+        TaskStatusUpdateEvent working = statusUpdate("task", TaskState.WORKING, false);
+        replacement.enqueueEvent(working);
+        assertSame(working, replacement.dequeueEvent(-1));
+        assertEquals(2, replacement.getLastSequence());
+
+        // A client which received both events of the closed queue resumes with the new one
+        EventQueue upToDate = queueManager.tap("task", 2);
+        upToDate.setSnapshotSupplier(() -> statusUpdate("task", TaskState.WORKING, false));
+        assertSame(working, upToDate.dequeueEvent(-1));
+        assertEquals(2, upToDate.getLastSequence());
+
+        // A client which missed an event of the closed queue gets the snapshot of the task first
+        TaskStatusUpdateEvent snapshot = statusUpdate("task", TaskState.WORKING, false);
+        EventQueue behind = queueManager.tap("task", 1);
+        behind.setSnapshotSupplier(() -> snapshot);
+        assertSame(snapshot, behind.dequeueEvent(-1));
+        assertSame(working, behind.dequeueEvent(-1));
+        assertEquals(2, behind.getLastSequence());
+
+        // The sequences also continue once the queue was removed
+        queueManager.close("task");
+        assertNull(queueManager.get("task"));
+        EventQueue recreated = queueManager.createOrTap("task");
+        recreated.enqueueEvent(statusUpdate("task", TaskState.COMPLETED, true));
+        recreated.dequeueEvent(-1);
+        assertEquals(3, recreated.getLastSequence());
+    }
+
+    @Test
+    public void testGauges() throws Exception {
+        InMemoryQueueManager queueManager = new InMemoryQueueManager();
+        EventQueue first = queueManager.createOrTap("first");
+        EventQueue second = queueManager.createOrTap("second");
+        EventQueue tap = queueManager.tap("first");
+        for (int i = 0; i < 3; i++) {
+            first.enqueueEvent(statusUpdate("first", TaskState.WORKING, false));
+        }
+        second.enqueueEvent(statusUpdate("second", TaskState.WORKING, false));
+        assertEquals(2, queueManager.getQueueCount());
+        assertEquals(4, queueManager.getBufferedEventCount());
+
+        // Events stay buffered until every tap has read them
+        for (int i = 0; i < 3; i++) {
+            first.dequeueEvent(-1);
+        }
+        assertEquals(4, queueManager.getBufferedEventCount());
+        for (int i = 0; i < 3; i++) {
+            tap.dequeueEvent(-1);
+        }
+        assertEquals(1, queueManager.getBufferedEventCount());
+
+        queueManager.close("first");
+        assertEquals(1, queueManager.getQueueCount());
+    }
+
+    private static TaskStatusUpdateEvent statusUpdate(String taskId, TaskState state, boolean isFinal) {
+        return new TaskStatusUpdateEvent.Builder()
+                .taskId(taskId)
+                .contextId("session-xyz")
+                .status(new TaskStatus(state))
+                .isFinal(isFinal)
+                .build();
+    }
+}
@@ -0,0 +1,184 @@
+package io.a2a.server.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.a2a.spec.Event;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TaskStatusUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+public class RingEventLogTest {
+
+    @Test
+    public void testEnqueueAndDequeueInOrder() throws Exception {
+        EventQueue queue = EventQueue.create(EventQueueBackend.RING_BUFFER);
+        List<Event> events = events(10);
+        events.forEach(queue::enqueueEvent);
+
+        for (Event event : events) {
+            assertSame(event, queue.dequeueEvent(-1));
+        }
+        assertNull(queue.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testDequeueWaitsForEvent() throws Exception {
+        EventQueue queue = EventQueue.create(EventQueueBackend.RING_BUFFER);
+        Event event = events(1).get(0);
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.enqueueEvent(event);
+        });
+        producer.start();
+
+        assertSame(event, queue.dequeueEvent(5000));
+        producer.join();
+    }
+
+    @Test
+    public void testTapReceivesEventsEnqueuedAfterTap() throws Exception {
+        EventQueue queue = EventQueue.create(EventQueueBackend.RING_BUFFER);
+        List<Event> events = events(3);
+
+        queue.enqueueEvent(events.get(0));
+        EventQueue child = queue.tap();
+        queue.enqueueEvent(events.get(1));
+        child.enqueueEvent(events.get(2));
+
+        assertSame(events.get(0), queue.dequeueEvent(-1));
+        assertSame(events.get(1), queue.dequeueEvent(-1));
+        assertSame(events.get(2), queue.dequeueEvent(-1));
+
+        assertSame(events.get(1), child.dequeueEvent(-1));
+        assertSame(events.get(2), child.dequeueEvent(-1));
+        assertNull(child.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testCloseDrainsRemainingEvents() throws Exception {
+        EventQueue queue = EventQueue.create(EventQueueBackend.RING_BUFFER);
+        EventQueue child = queue.tap();
+        Event event = events(1).get(0);
+        queue.enqueueEvent(event);
+
+        child.close();
+        queue.enqueueEvent(events(1).get(0));
+
+        assertSame(event, queue.dequeueEvent(-1));
+        assertSame(event, child.dequeueEvent(-1));
+        assertThrows(EventQueueClosedException.class, () -> queue.dequeueEvent(-1));
+        assertThrows(EventQueueClosedException.class, () -> child.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testProducerBlocksUntilSlowestTapCatchesUp() throws Exception {
+        EventQueue queue = EventQueue.create(new EventQueueConfig.Builder()
+                .backend(EventQueueBackend.RING_BUFFER)
+                .maxSubscriberLag(0)
+                .build());
+        EventQueue child = queue.tap();
+        List<Event> events = events(1001);
+        for (int i = 0; i < 1000; i++) {
+            queue.enqueueEvent(events.get(i));
+            assertSame(events.get(i), queue.dequeueEvent(-1));
+        }
+
+        AtomicBoolean enqueued = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            queue.enqueueEvent(events.get(1000));
+            enqueued.set(true);
+        });
+        producer.start();
+        producer.join(200);
+        assertFalse(enqueued.get());
+
+        assertSame(events.get(0), child.dequeueEvent(-1));
+        producer.join(5000);
+        assertTrue(enqueued.get());
+        assertSame(events.get(1000), queue.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testConcurrentProducersAndConsumers() throws Exception {
+        EventQueue queue = EventQueue.create(EventQueueBackend.RING_BUFFER);
+        int producers = 4;
+        int perProducer = 5000;
+        List<Event> events = events(producers * perProducer);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            List<Event> slice = events.subList(p * perProducer, (p + 1) * perProducer);
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                slice.forEach(queue::enqueueEvent);
+            }));
+        }
+        Set<Event> received = new HashSet<>();
+        List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < 2; c++) {
+            consumers.add(new Thread(() -> {
+                while (true) {
+                    try {
+                        Event event = queue.dequeueEvent(50);
+                        if (event != null) {
+                            synchronized (received) {
+                                received.add(event);
+                            }
+                        }
+                    } catch (EventQueueClosedException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        consumers.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        queue.close();
+        for (Thread thread : consumers) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals(events.size(), received.size());
+    }
+
+    private static List<Event> events(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new TaskStatusUpdateEvent.Builder()
+                    .taskId("task-" + i)
+                    .contextId("session-xyz")
+                    .status(new TaskStatus(TaskState.WORKING))
+                    .isFinal(false)
+                    .build());
+        }
+        return events;
+    }
+}
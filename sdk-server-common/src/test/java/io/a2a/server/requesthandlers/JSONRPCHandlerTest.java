@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -55,14 +56,23 @@ import io.a2a.spec.GetTaskPushNotificationConfigRequest;
 import io.a2a.spec.GetTaskPushNotificationConfigResponse;
 import io.a2a.spec.GetTaskRequest;
 import io.a2a.spec.GetTaskResponse;
+import io.a2a.spec.GetTasksParams;
+import io.a2a.spec.GetTasksRequest;
+import io.a2a.spec.GetTasksResponse;
 import io.a2a.spec.InternalError;
+import io.a2a.spec.InvalidParamsError;
+import io.a2a.spec.InvalidParamsJsonMappingException;
 import io.a2a.spec.InvalidRequestError;
 import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.ListTaskPushNotificationConfigParams;
 import io.a2a.spec.ListTaskPushNotificationConfigRequest;
 import io.a2a.spec.ListTaskPushNotificationConfigResponse;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksRequest;
+import io.a2a.spec.ListTasksResponse;
 import io.a2a.spec.Message;
 import io.a2a.spec.MessageSendParams;
+import io.a2a.spec.NonStreamingJSONRPCRequest;
 import io.a2a.spec.PushNotificationConfig;
 import io.a2a.spec.PushNotificationNotSupportedError;
 import io.a2a.spec.SendMessageRequest;
@@ -177,6 +187,76 @@ public class JSONRPCHandlerTest {
         assertNull(response.getResult());
     }
 
+    @Test
+    public void testOnGetTasks() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        taskStore.save(MINIMAL_TASK);
+        taskStore.save(new Task.Builder(MINIMAL_TASK).id("task-456").build());
+
+        GetTasksRequest request = new GetTasksRequest("1",
+                new GetTasksParams(List.of("task-456", "nonexistent", MINIMAL_TASK.getId())));
+        GetTasksResponse response = handler.onGetTasks(request, callContext);
+        assertNull(response.getError());
+        assertEquals(List.of("task-456", MINIMAL_TASK.getId()),
+                response.getResult().stream().map(Task::getId).toList());
+
+        List<Message> history = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            history.add(new Message.Builder(MESSAGE).messageId("message-" + i).build());
+        }
+        taskStore.save(new Task.Builder(MINIMAL_TASK).history(history).build());
+        request = new GetTasksRequest("2", new GetTasksParams(List.of(MINIMAL_TASK.getId()), 2, null));
+        response = handler.onGetTasks(request, callContext);
+        assertNull(response.getError());
+        // The latest messages are kept
+        assertEquals(List.of("message-1", "message-2"),
+                response.getResult().get(0).getHistory().stream().map(Message::getMessageId).toList());
+    }
+
+    @Test
+    public void testGetTasksRequestWithoutParams() {
+        assertThrows(IllegalArgumentException.class, () -> new GetTasksRequest("1", null));
+        InvalidParamsJsonMappingException e = assertThrows(InvalidParamsJsonMappingException.class,
+                () -> Utils.OBJECT_MAPPER.readValue("{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": \"tasks/getAll\"}",
+                        NonStreamingJSONRPCRequest.class));
+        assertEquals(1, e.getId());
+        assertEquals(GetTasksRequest.METHOD, new GetTasksRequest.Builder()
+                .params(new GetTasksParams(List.of(MINIMAL_TASK.getId())))
+                .build()
+                .getMethod());
+    }
+
+    @Test
+    public void testOnListTasksPagesThroughContext() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        for (int i = 0; i < 3; i++) {
+            taskStore.save(new Task.Builder(MINIMAL_TASK).id("task-" + i).build());
+        }
+        taskStore.save(new Task.Builder(MINIMAL_TASK).id("other").contextId("other-context").build());
+
+        ListTasksParams params = new ListTasksParams.Builder()
+                .contextId(MINIMAL_TASK.getContextId())
+                .pageSize(2)
+                .build();
+        ListTasksResponse response = handler.onListTasks(new ListTasksRequest("1", params), callContext);
+        assertNull(response.getError());
+        assertEquals(List.of("task-0", "task-1"), response.getResult().tasks().stream().map(Task::getId).toList());
+        assertNotNull(response.getResult().nextPageToken());
+
+        params = new ListTasksParams.Builder(params)
+                .pageToken(response.getResult().nextPageToken())
+                .build();
+        response = handler.onListTasks(new ListTasksRequest("2", params), callContext);
+        assertEquals(List.of("task-2"), response.getResult().tasks().stream().map(Task::getId).toList());
+        assertNull(response.getResult().nextPageToken());
+
+        params = new ListTasksParams.Builder()
+                .pageToken("not-a-token")
+                .build();
+        response = handler.onListTasks(new ListTasksRequest("3", params), callContext);
+        assertInstanceOf(InvalidParamsError.class, response.getError());
+    }
+
     @Test
     public void testOnCancelTaskSuccess() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
@@ -356,7 +436,7 @@ public class JSONRPCHandlerTest {
     }
 
     @Test
-    public void testOnMessageStreamNewMessageSuccess() {
+    public void testOnMessageStreamNewMessageSuccess() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
         agentExecutorExecute = (context, eventQueue) -> {
             eventQueue.enqueueEvent(context.getTask() != null ? context.getTask() : context.getMessage());
@@ -387,20 +467,22 @@ public class JSONRPCHandlerTest {
             public void onNext(SendStreamingMessageResponse item) {
                 results.add(item.getResult());
                 subscription.request(1);
-                latch.countDown();
             }
 
             @Override
             public void onError(Throwable throwable) {
                 subscription.cancel();
+                latch.countDown();
             }
 
             @Override
             public void onComplete() {
                 subscription.cancel();
+                latch.countDown();
             }
         });
 
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
         // The Python implementation has several events emitted since it uses mocks. Also, in the
         // implementation, a Message is considered a 'final' Event in EventConsumer.consumeAll()
         // so there would be no more Events.
@@ -942,6 +1024,158 @@ public class JSONRPCHandlerTest {
         assertInstanceOf(TaskNotFoundError.class, results.get(0).getError());
     }
 
+    @Test
+    public void testOnResubscribeFinishedTaskReturnsTask() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        Task completed = new Task.Builder(MINIMAL_TASK)
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .build();
+        taskStore.save(completed);
+        Task inputRequired = new Task.Builder(MINIMAL_TASK)
+                .id("task-456")
+                .status(new TaskStatus(TaskState.INPUT_REQUIRED))
+                .build();
+        taskStore.save(inputRequired);
+
+        for (Task task : List.of(completed, inputRequired)) {
+            TaskResubscriptionRequest request = new TaskResubscriptionRequest("1", new TaskIdParams(task.getId()));
+            Flow.Publisher<SendStreamingMessageResponse> response = handler.onResubscribeToTask(request, callContext);
+
+            List<SendStreamingMessageResponse> results = new ArrayList<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            response.subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(SendStreamingMessageResponse item) {
+                    results.add(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    latch.countDown();
+                }
+            });
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(1, results.size());
+            assertNull(results.get(0).getError());
+            assertSame(task, results.get(0).getResult());
+        }
+    }
+
+    @Test
+    public void testOnResubscribeResumesAfterLastEventId() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        taskStore.save(MINIMAL_TASK);
+        EventQueue queue = queueManager.createOrTap(MINIMAL_TASK.getId());
+
+        List<Event> events = new ArrayList<>();
+        for (TaskState state : List.of(TaskState.WORKING, TaskState.INPUT_REQUIRED, TaskState.WORKING)) {
+            events.add(new TaskStatusUpdateEvent.Builder()
+                    .taskId(MINIMAL_TASK.getId())
+                    .contextId(MINIMAL_TASK.getContextId())
+                    .status(new TaskStatus(state))
+                    .isFinal(false)
+                    .build());
+        }
+        events.forEach(queue::enqueueEvent);
+
+        ServerCallContext context = new ServerCallContext(UnauthenticatedUser.INSTANCE, Map.of());
+        context.getEventSequences().setLastEventId(0);
+        TaskResubscriptionRequest request = new TaskResubscriptionRequest("1", new TaskIdParams(MINIMAL_TASK.getId()));
+        Flow.Publisher<SendStreamingMessageResponse> response = handler.onResubscribeToTask(request, context);
+
+        List<StreamingEventKind> results = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        response.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(SendStreamingMessageResponse item) {
+                results.add(item.getResult());
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(events.subList(1, 3), results);
+        assertEquals(1, context.getEventSequences().remove(events.get(1)));
+        assertEquals(2, context.getEventSequences().remove(events.get(2)));
+        queue.close();
+    }
+
+    @Test
+    public void testOnResubscribeResumesAfterTheTaskFinished() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        EventQueue queue = queueManager.createOrTap(MINIMAL_TASK.getId());
+        List<Event> events = new ArrayList<>();
+        for (TaskState state : List.of(TaskState.WORKING, TaskState.COMPLETED)) {
+            events.add(new TaskStatusUpdateEvent.Builder()
+                    .taskId(MINIMAL_TASK.getId())
+                    .contextId(MINIMAL_TASK.getContextId())
+                    .status(new TaskStatus(state))
+                    .isFinal(state == TaskState.COMPLETED)
+                    .build());
+        }
+        events.forEach(queue::enqueueEvent);
+        taskStore.save(new Task.Builder(MINIMAL_TASK).status(new TaskStatus(TaskState.COMPLETED)).build());
+        // The agent is done, but the replay window is kept for a while
+        queue.close();
+        queueManager.close(MINIMAL_TASK.getId());
+
+        ServerCallContext context = new ServerCallContext(UnauthenticatedUser.INSTANCE, Map.of());
+        context.getEventSequences().setLastEventId(0);
+        TaskResubscriptionRequest request = new TaskResubscriptionRequest("1", new TaskIdParams(MINIMAL_TASK.getId()));
+        Flow.Publisher<SendStreamingMessageResponse> response = handler.onResubscribeToTask(request, context);
+
+        List<StreamingEventKind> results = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        response.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(SendStreamingMessageResponse item) {
+                results.add(item.getResult());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(events.subList(1, 2), results);
+        assertEquals(1, context.getEventSequences().remove(events.get(1)));
+    }
+
     @Test
     public void testStreamingNotSupportedError() {
         AgentCard card = createAgentCard(false, true, true);
@@ -1216,7 +1450,7 @@ public class JSONRPCHandlerTest {
     }
 
     @Test
-    public void testOnMessageStreamTaskIdMismatch() {
+    public void testOnMessageStreamTaskIdMismatch() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
         taskStore.save(MINIMAL_TASK);
 
@@ -1229,6 +1463,7 @@ public class JSONRPCHandlerTest {
 
         List<SendStreamingMessageResponse> results = new ArrayList<>();
         AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
 
         response.subscribe(new Flow.Subscriber<SendStreamingMessageResponse>() {
             private Flow.Subscription subscription;
@@ -1248,14 +1483,17 @@ public class JSONRPCHandlerTest {
             public void onError(Throwable throwable) {
                 error.set(throwable);
                 subscription.cancel();
+                latch.countDown();
             }
 
             @Override
             public void onComplete() {
                 subscription.cancel();
+                latch.countDown();
             }
         });
 
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
         assertNull(error.get());
         assertEquals(1, results.size());
         assertInstanceOf(InternalError.class, results.get(0).getError());
@@ -1,9 +1,24 @@
 package io.a2a.server.tasks;
 
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TextPart;
 import io.a2a.util.Utils;
 import org.junit.jupiter.api.Test;
 
@@ -47,4 +62,146 @@ public class InMemoryTaskStoreTest {
         InMemoryTaskStore store = new InMemoryTaskStore();
         store.delete("non-existent");
     }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedBeyondMaxTasks() {
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreConfig.Builder()
+                .maxTasks(2)
+                .build());
+        store.save(task("task-1", TaskState.COMPLETED));
+        store.save(task("task-2", TaskState.INPUT_REQUIRED));
+        assertNotNull(store.get("task-1"));
+        store.save(task("task-3", TaskState.COMPLETED));
+
+        assertNull(store.get("task-2"));
+        assertNotNull(store.get("task-1"));
+        assertNotNull(store.get("task-3"));
+        assertEquals(2, store.size());
+        assertEquals(1, store.getMetrics().getEvictions());
+        assertEquals(3, store.getMetrics().getHits());
+        assertEquals(1, store.getMetrics().getMisses());
+    }
+
+    @Test
+    public void testEvictsBeyondMaxBytes() {
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreConfig.Builder()
+                .maxBytes(10_000)
+                .build());
+        for (int i = 0; i < 10; i++) {
+            store.save(new Task.Builder(task("task-" + i, TaskState.COMPLETED))
+                    .artifacts(List.of(new Artifact.Builder()
+                            .artifactId("artifact")
+                            .parts(new TextPart("x".repeat(3000)))
+                            .build()))
+                    .build());
+        }
+        assertTrue(store.size() < 10);
+        assertTrue(store.getHeldBytes() <= 10_000);
+        assertNotNull(store.get("task-9"));
+        assertEquals(10 - store.size(), store.getMetrics().getEvictions());
+
+        store.delete("task-9");
+        assertTrue(store.getHeldBytes() < 10_000);
+    }
+
+    @Test
+    public void testDoesNotEvictRunningTasks() {
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreConfig.Builder()
+                .maxTasks(2)
+                .build());
+        store.save(task("task-1", TaskState.WORKING));
+        store.save(task("task-2", TaskState.COMPLETED));
+        store.save(task("task-3", TaskState.SUBMITTED));
+        // The finished task makes room, the running ones stay even beyond the bound
+        assertNull(store.get("task-2"));
+        store.save(task("task-4", TaskState.WORKING));
+        assertEquals(3, store.size());
+        assertEquals(1, store.getMetrics().getEvictions());
+
+        // Once finished, the least recently used task is evicted again
+        store.save(task("task-1", TaskState.COMPLETED));
+        store.save(task("task-3", TaskState.COMPLETED));
+        assertNull(store.get("task-1"));
+        assertNotNull(store.get("task-3"));
+        assertNotNull(store.get("task-4"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testExpiresFinalAndInterruptedTasks() {
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreConfig.Builder()
+                .finalTaskTtl(Duration.ZERO)
+                .interruptedTaskTtl(Duration.ofHours(1))
+                .build());
+        store.save(task("task-1", TaskState.COMPLETED));
+        store.save(task("task-2", TaskState.INPUT_REQUIRED));
+        store.save(task("task-3", TaskState.WORKING));
+        store.save(task("task-4", TaskState.FAILED));
+
+        assertNull(store.get("task-1"));
+        assertNotNull(store.get("task-2"));
+        assertNotNull(store.get("task-3"));
+        assertEquals(1, store.purgeExpired());
+        assertEquals(2, store.size());
+        assertEquals(2, store.getMetrics().getExpirations());
+    }
+
+    @Test
+    public void testCompareAndSaveChecksVersion() {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        assertTrue(store.compareAndSave(task("task-1", TaskState.SUBMITTED), 0));
+        assertFalse(store.compareAndSave(task("task-1", TaskState.WORKING), 0));
+        assertEquals(1, store.getVersioned("task-1").version());
+
+        store.save(task("task-1", TaskState.WORKING));
+        assertFalse(store.compareAndSave(task("task-1", TaskState.COMPLETED), 1));
+        assertTrue(store.compareAndSave(task("task-1", TaskState.COMPLETED), 2));
+        VersionedTask stored = store.getVersioned("task-1");
+        assertEquals(3, stored.version());
+        assertEquals(TaskState.COMPLETED, stored.task().getStatus().state());
+
+        store.delete("task-1");
+        assertNull(store.getVersioned("task-1"));
+        assertTrue(store.compareAndSave(task("task-1", TaskState.SUBMITTED), 0));
+    }
+
+    @Test
+    public void testListByContextStateAndCreation() throws Exception {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        assertTrue(store.isListable());
+        store.save(task("task-1", TaskState.WORKING));
+        store.save(new Task.Builder(task("task-2", TaskState.WORKING)).contextId("other").build());
+        store.save(task("task-3", TaskState.COMPLETED));
+        Thread.sleep(2);
+        Instant between = Instant.now();
+        Thread.sleep(2);
+        store.save(task("task-4", TaskState.WORKING));
+        // Saving again keeps the creation time but updates the state index
+        store.save(task("task-1", TaskState.COMPLETED));
+
+        ListTasksParams byContext = new ListTasksParams.Builder().contextId("session-xyz").pageSize(2).build();
+        ListTasksResult page = store.list(byContext);
+        assertEquals(List.of("task-1", "task-3"), ids(page));
+        page = store.list(new ListTasksParams.Builder(byContext).pageToken(page.nextPageToken()).build());
+        assertEquals(List.of("task-4"), ids(page));
+        assertNull(page.nextPageToken());
+
+        assertEquals(List.of("task-1", "task-3"),
+                ids(store.list(new ListTasksParams.Builder().state(TaskState.COMPLETED).build())));
+        assertEquals(List.of("task-2", "task-4"),
+                ids(store.list(new ListTasksParams.Builder().state(TaskState.WORKING).build())));
+
+        store.delete("task-3");
+        assertEquals(List.of("task-1", "task-2"),
+                ids(store.list(new ListTasksParams.Builder().createdBefore(between).build())));
+        assertEquals(List.of("task-4"),
+                ids(store.list(new ListTasksParams.Builder().createdAfter(between).build())));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.list(new ListTasksParams.Builder().pageToken("invalid").build()));
+    }
+
+    private static List<String> ids(ListTasksResult result) {
+        return result.tasks().stream().map(Task::getId).toList();
+    }
 }
@@ -0,0 +1,56 @@
+package io.a2a.server.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import io.a2a.spec.PushNotificationConfig;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JdbcPushNotificationConfigStoreTest {
+
+    private JdbcConnectionPool pool;
+    private JdbcPushNotificationConfigStore store;
+
+    @BeforeEach
+    public void init() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool = new JdbcConnectionPool.Builder()
+                .dataSource(dataSource)
+                .build();
+        store = new JdbcPushNotificationConfigStore.Builder()
+                .pool(pool)
+                .build();
+        store.createTable();
+    }
+
+    @AfterEach
+    public void close() {
+        pool.close();
+    }
+
+    @Test
+    public void testSetGetAndDelete() {
+        assertNull(store.getInfo("task-1"));
+
+        store.setInfo("task-1", new PushNotificationConfig.Builder().url("http://example.com/default").build());
+        store.setInfo("task-1", new PushNotificationConfig.Builder().url("http://example.com/a").id("a").build());
+        store.setInfo("task-1", new PushNotificationConfig.Builder().url("http://example.com/b").id("a").build());
+
+        Map<String, String> urls = store.getInfo("task-1").stream()
+                .collect(Collectors.toMap(PushNotificationConfig::id, PushNotificationConfig::url));
+        assertEquals(Map.of("task-1", "http://example.com/default", "a", "http://example.com/b"), urls);
+
+        store.deleteInfo("task-1", null);
+        assertEquals(1, store.getInfo("task-1").size());
+        store.deleteInfo("task-1", "a");
+        assertNull(store.getInfo("task-1"));
+    }
+}
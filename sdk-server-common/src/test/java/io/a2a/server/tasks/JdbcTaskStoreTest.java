@@ -0,0 +1,323 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskArtifactUpdateEvent;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TaskStatusUpdateEvent;
+import io.a2a.spec.TextPart;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JdbcTaskStoreTest {
+
+    private JdbcConnectionPool pool;
+    private JdbcTaskStore store;
+
+    @BeforeEach
+    public void init() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool = new JdbcConnectionPool.Builder()
+                .dataSource(dataSource)
+                .maxSize(4)
+                .build();
+        store = new JdbcTaskStore.Builder()
+                .pool(pool)
+                .build();
+        store.createTable();
+        // Creating it again is a no-op
+        store.createTable();
+    }
+
+    @AfterEach
+    public void close() {
+        pool.close();
+    }
+
+    @Test
+    public void testSaveGetAndDelete() {
+        store.save(task("task-1", TaskState.SUBMITTED));
+        assertEquals(TaskState.SUBMITTED, store.get("task-1").getStatus().state());
+        store.save(task("task-1", TaskState.WORKING));
+        assertEquals(TaskState.WORKING, store.get("task-1").getStatus().state());
+        assertEquals("session-xyz", store.get("task-1").getContextId());
+
+        store.delete("task-1");
+        assertNull(store.get("task-1"));
+        assertNull(store.get("nonexistent"));
+        store.delete("nonexistent");
+    }
+
+    @Test
+    public void testGetAllLooksUpTasksInBatches() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < JdbcTaskStore.SELECT_BATCH_SIZE + 10; i++) {
+            store.save(task("task-" + i, TaskState.WORKING));
+            ids.add("task-" + i);
+        }
+        ids.add(1, "nonexistent");
+        List<String> reversed = new ArrayList<>(ids);
+        Collections.reverse(reversed);
+
+        List<Task> tasks = store.getAll(reversed);
+        assertEquals(ids.size() - 1, tasks.size());
+        assertEquals("task-" + (JdbcTaskStore.SELECT_BATCH_SIZE + 9), tasks.get(0).getId());
+        assertEquals("task-0", tasks.get(tasks.size() - 1).getId());
+        assertEquals(List.of(), store.getAll(List.of()));
+    }
+
+    @Test
+    public void testListByContextStateAndCreation() throws Exception {
+        assertTrue(store.isListable());
+        store.save(task("task-1", TaskState.WORKING));
+        store.save(new Task.Builder(task("task-2", TaskState.WORKING)).contextId("other").build());
+        store.save(task("task-3", TaskState.COMPLETED));
+        Thread.sleep(2);
+        Instant between = Instant.now();
+        Thread.sleep(2);
+        store.save(task("task-4", TaskState.WORKING));
+        // Saving again keeps the creation time but updates the state
+        store.save(task("task-1", TaskState.COMPLETED));
+
+        ListTasksParams byContext = new ListTasksParams.Builder().contextId("session-xyz").pageSize(2).build();
+        ListTasksResult page = store.list(byContext);
+        assertEquals(List.of("task-1", "task-3"), ids(page));
+        page = store.list(new ListTasksParams.Builder(byContext).pageToken(page.nextPageToken()).build());
+        assertEquals(List.of("task-4"), ids(page));
+        assertNull(page.nextPageToken());
+
+        assertEquals(List.of("task-1", "task-3"),
+                ids(store.list(new ListTasksParams.Builder().state(TaskState.COMPLETED).build())));
+        assertEquals(List.of("task-2", "task-4"),
+                ids(store.list(new ListTasksParams.Builder().state(TaskState.WORKING).build())));
+
+        store.delete("task-3");
+        assertEquals(List.of("task-1", "task-2"),
+                ids(store.list(new ListTasksParams.Builder().createdBefore(between).build())));
+        assertEquals(List.of("task-4"),
+                ids(store.list(new ListTasksParams.Builder().createdAfter(between).build())));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.list(new ListTasksParams.Builder().pageToken("invalid").build()));
+    }
+
+    @Test
+    public void testUpsertsWithoutBatchUpdateCounts() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (JdbcConnectionPool noInfoPool = new JdbcConnectionPool.Builder()
+                .dataSource(withoutBatchUpdateCounts(dataSource))
+                .build()) {
+            JdbcTaskStore noInfoStore = new JdbcTaskStore.Builder()
+                    .pool(noInfoPool)
+                    .build();
+            noInfoStore.createTable();
+
+            noInfoStore.save(task("task-1", TaskState.SUBMITTED));
+            noInfoStore.save(task("task-1", TaskState.WORKING));
+            noInfoStore.save(task("task-2", TaskState.SUBMITTED));
+            assertEquals(TaskState.WORKING, noInfoStore.get("task-1").getStatus().state());
+            assertEquals(TaskState.SUBMITTED, noInfoStore.get("task-2").getStatus().state());
+        }
+    }
+
+    @Test
+    public void testWritersDoNotWaitForeverAfterAnError() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        AtomicBoolean fail = new AtomicBoolean();
+        try (JdbcConnectionPool failingPool = new JdbcConnectionPool.Builder()
+                .dataSource(failingBatches(dataSource, fail))
+                .build()) {
+            JdbcTaskStore failingStore = new JdbcTaskStore.Builder()
+                    .pool(failingPool)
+                    .build();
+            failingStore.createTable();
+
+            fail.set(true);
+            assertThrows(StackOverflowError.class, () -> failingStore.save(task("task-1", TaskState.SUBMITTED)));
+            fail.set(false);
+            // The failed batch no longer holds up the next ones
+            failingStore.save(task("task-1", TaskState.WORKING));
+            assertEquals(TaskState.WORKING, failingStore.get("task-1").getStatus().state());
+        }
+    }
+
+    @Test
+    public void testCompareAndSaveChecksVersion() {
+        assertTrue(store.isVersioned());
+        assertTrue(store.compareAndSave(task("task-1", TaskState.SUBMITTED), 0));
+        assertFalse(store.compareAndSave(task("task-1", TaskState.WORKING), 0));
+        assertEquals(1, store.getVersioned("task-1").version());
+
+        // Group committed saves count as well
+        store.save(task("task-1", TaskState.WORKING));
+        assertFalse(store.compareAndSave(task("task-1", TaskState.COMPLETED), 1));
+        assertTrue(store.compareAndSave(task("task-1", TaskState.COMPLETED), 2));
+        VersionedTask stored = store.getVersioned("task-1");
+        assertEquals(3, stored.version());
+        assertEquals(TaskState.COMPLETED, stored.task().getStatus().state());
+
+        assertFalse(store.compareAndSave(task("task-2", TaskState.WORKING), 1));
+        assertNull(store.get("task-2"));
+
+        store.delete("task-1");
+        assertNull(store.getVersioned("task-1"));
+        assertTrue(store.compareAndSave(task("task-1", TaskState.SUBMITTED), 0));
+        assertEquals(1, store.getVersioned("task-1").version());
+    }
+
+    @Test
+    public void testWriteBehindWritesTheChangesOfATaskManagerOnce() throws Exception {
+        try (WriteBehindTaskStore writeBehind = new WriteBehindTaskStore.Builder()
+                .delegate(store)
+                .flushInterval(null)
+                .build()) {
+            TaskManager taskManager = new TaskManager("task-1", "context-1", writeBehind, null);
+            for (int i = 0; i < 10; i++) {
+                taskManager.saveTaskEvent(new TaskArtifactUpdateEvent.Builder()
+                        .taskId("task-1")
+                        .contextId("context-1")
+                        .artifact(new Artifact.Builder()
+                                .artifactId("artifact-" + i)
+                                .parts(new TextPart("content"))
+                                .build())
+                        .build());
+            }
+            // Each change was compared against the pending version, without writing it
+            assertNull(store.get("task-1"));
+            assertEquals(10, writeBehind.getVersioned("task-1").version());
+
+            writeBehind.flush();
+            assertEquals(1, writeBehind.getWrittenCount());
+            VersionedTask stored = store.getVersioned("task-1");
+            assertEquals(1, stored.version());
+            assertEquals(10, stored.task().getArtifacts().size());
+
+            // The manager carries on from the version it holds
+            taskManager.saveTaskEvent(new TaskStatusUpdateEvent.Builder()
+                    .taskId("task-1")
+                    .contextId("context-1")
+                    .status(new TaskStatus(TaskState.WORKING))
+                    .isFinal(false)
+                    .build());
+            writeBehind.flush();
+            assertEquals(2, writeBehind.getWrittenCount());
+            assertEquals(2, store.getVersioned("task-1").version());
+            assertEquals(11, writeBehind.getVersioned("task-1").version());
+        }
+    }
+
+    @Test
+    public void testConcurrentSavesKeepLatestVersion() throws Exception {
+        int threads = 8;
+        int saves = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String taskId = "task-" + t;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < saves; i++) {
+                    store.save(task(taskId, i == saves - 1 ? TaskState.COMPLETED : TaskState.WORKING));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            assertEquals(TaskState.COMPLETED, store.get("task-" + t).getStatus().state());
+        }
+    }
+
+    // Reports Statement.SUCCESS_NO_INFO for every statement of a batch, like some drivers do
+    private static DataSource withoutBatchUpdateCounts(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (method, args, result) -> method.getName().equals("getConnection")
+                ? proxy(Connection.class, result, (connectionMethod, connectionArgs, statement) ->
+                        connectionMethod.getName().equals("prepareStatement")
+                                ? proxy(PreparedStatement.class, statement, (statementMethod, statementArgs, counts) ->
+                                        statementMethod.getName().equals("executeBatch")
+                                                ? noInfo((int[]) counts)
+                                                : counts)
+                                : statement)
+                : result);
+    }
+
+    // Throws an Error from the driver while fail is set
+    private static DataSource failingBatches(DataSource dataSource, AtomicBoolean fail) {
+        return proxy(DataSource.class, dataSource, (method, args, result) -> method.getName().equals("getConnection")
+                ? proxy(Connection.class, result, (connectionMethod, connectionArgs, statement) ->
+                        connectionMethod.getName().equals("prepareStatement")
+                                ? proxy(PreparedStatement.class, statement, (statementMethod, statementArgs, counts) -> {
+                                    if (fail.get() && statementMethod.getName().equals("executeBatch")) {
+                                        throw new StackOverflowError();
+                                    }
+                                    return counts;
+                                })
+                                : statement)
+                : result);
+    }
+
+    private static int[] noInfo(int[] counts) {
+        int[] noInfo = new int[counts.length];
+        Arrays.fill(noInfo, Statement.SUCCESS_NO_INFO);
+        return noInfo;
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, ResultMapper mapper) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            try {
+                return mapper.map(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }));
+    }
+
+    private interface ResultMapper {
+        Object map(Method method, Object[] args, Object result);
+    }
+
+    private static List<String> ids(ListTasksResult result) {
+        return result.tasks().stream().map(Task::getId).toList();
+    }
+}
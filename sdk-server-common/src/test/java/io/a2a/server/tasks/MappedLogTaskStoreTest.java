@@ -0,0 +1,257 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TextPart;
+import io.a2a.util.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedLogTaskStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSaveGetAndDelete() throws Exception {
+        try (MappedLogTaskStore store = open()) {
+            store.save(task("task-1", TaskState.SUBMITTED));
+            store.save(task("task-1", TaskState.WORKING));
+            store.save(task("task-2", TaskState.SUBMITTED));
+
+            assertEquals(TaskState.WORKING, store.get("task-1").getStatus().state());
+            assertEquals("session-xyz", store.get("task-1").getContextId());
+            store.delete("task-2");
+            assertNull(store.get("task-2"));
+            assertNull(store.get("nonexistent"));
+            store.delete("nonexistent");
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    public void testRecoversTasksOnReopen() throws Exception {
+        try (MappedLogTaskStore store = open()) {
+            store.save(task("task-1", TaskState.SUBMITTED));
+            store.save(task("task-2", TaskState.SUBMITTED));
+            store.save(task("task-1", TaskState.COMPLETED));
+            store.delete("task-2");
+        }
+        try (MappedLogTaskStore store = open()) {
+            assertEquals(TaskState.COMPLETED, store.get("task-1").getStatus().state());
+            assertNull(store.get("task-2"));
+            // New writes go after the recovered records
+            store.save(task("task-3", TaskState.WORKING));
+        }
+        try (MappedLogTaskStore store = open()) {
+            assertEquals(TaskState.COMPLETED, store.get("task-1").getStatus().state());
+            assertEquals(TaskState.WORKING, store.get("task-3").getStatus().state());
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void testCompactionDropsSupersededVersions() throws Exception {
+        try (MappedLogTaskStore store = open()) {
+            for (int i = 0; i < 200; i++) {
+                store.save(task("task-" + (i % 4), i < 196 ? TaskState.WORKING : TaskState.COMPLETED));
+            }
+            store.delete("task-3");
+            long segments = segmentCount();
+            assertTrue(segments > 2);
+
+            int compacted = store.compact();
+            assertTrue(compacted > 0);
+            assertTrue(segmentCount() < segments);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(TaskState.COMPLETED, store.get("task-" + i).getStatus().state());
+            }
+            assertNull(store.get("task-3"));
+        }
+        try (MappedLogTaskStore store = open()) {
+            assertEquals(3, store.size());
+            assertEquals(TaskState.COMPLETED, store.get("task-0").getStatus().state());
+            assertNull(store.get("task-3"));
+        }
+    }
+
+    @Test
+    public void testReadsWhileCompactedSegmentsAreUnmapped() throws Exception {
+        MappedLogTaskStore store = open();
+        store.save(task("task-0", TaskState.WORKING));
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        assertEquals("task-0", store.get("task-0").getId());
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j < 20; j++) {
+                store.save(task("task-" + (j % 4), TaskState.WORKING));
+            }
+            store.compact();
+        }
+        stop.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+
+        store.close();
+        // The segments are unmapped, so the store refuses to touch them
+        assertThrows(IllegalStateException.class, () -> store.get("task-0"));
+        assertThrows(IllegalStateException.class, () -> store.save(task("task-0", TaskState.COMPLETED)));
+        assertEquals(0, store.compact());
+
+        try (MappedLogTaskStore reopened = open()) {
+            assertEquals(4, reopened.size());
+        }
+    }
+
+    @Test
+    public void testCompactionDropsTombstonesWhichHideNothing() throws Exception {
+        try (MappedLogTaskStore store = open()) {
+            // A live segment which is never compacted
+            for (int i = 0; i < 10; i++) {
+                store.save(task("kept-" + i, TaskState.COMPLETED));
+            }
+            // Enough deletion records to fill segments of their own
+            for (int i = 0; i < 200; i++) {
+                store.save(task("deleted-" + i, TaskState.WORKING));
+            }
+            for (int i = 0; i < 200; i++) {
+                store.delete("deleted-" + i);
+            }
+            // Seal the segment holding the last deletion records
+            for (int i = 0; i < 10; i++) {
+                store.save(task("sealed-" + i, TaskState.COMPLETED));
+            }
+            assertTrue(store.compact() > 0);
+            // The deletion records only hid versions in the compacted segments, so none were copied and the
+            // segments sealed from now on are all live
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 20; i++) {
+                    store.save(task("rolled-" + round + "-" + i, TaskState.COMPLETED));
+                }
+                assertEquals(0, store.compact());
+            }
+        }
+        try (MappedLogTaskStore store = open()) {
+            assertEquals(80, store.size());
+            assertNull(store.get("deleted-0"));
+            assertNull(store.get("deleted-199"));
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsTombstonesHidingOlderVersions() throws Exception {
+        try (MappedLogTaskStore store = open()) {
+            for (int i = 0; i < 10; i++) {
+                store.save(task("task-" + i, TaskState.COMPLETED));
+            }
+            // Mostly garbage, but the deleted version is in the live segment before it
+            store.delete("task-0");
+            for (int i = 0; i < 40; i++) {
+                store.save(task("other", TaskState.WORKING));
+            }
+            assertTrue(store.compact() > 0);
+            assertNull(store.get("task-0"));
+        }
+        try (MappedLogTaskStore store = open()) {
+            assertNull(store.get("task-0"));
+            assertEquals(TaskState.COMPLETED, store.get("task-1").getStatus().state());
+            assertEquals(10, store.size());
+        }
+    }
+
+    @Test
+    public void testDeltasSurviveReopenAndCompaction() throws Exception {
+        Task expected = task("task-1", TaskState.SUBMITTED);
+        try (MappedLogTaskStore store = open()) {
+            store.save(expected);
+            Message message = new Message.Builder()
+                    .role(Message.Role.USER)
+                    .parts(new TextPart("hello"))
+                    .messageId("message-1")
+                    .build();
+            expected = TaskUpdates.appendHistory(expected, List.of(message));
+            store.appendHistory(expected, List.of(message));
+            expected = TaskUpdates.updateStatus(expected, new TaskStatus(TaskState.WORKING, message, null));
+            store.updateStatus(expected);
+            Artifact artifact = new Artifact.Builder()
+                    .artifactId("artifact-1")
+                    .parts(new TextPart("chunk-0"))
+                    .build();
+            expected = TaskUpdates.upsertArtifact(expected, artifact);
+            store.upsertArtifact(expected, artifact);
+            // More chunks than the deltas kept per task, and than fit in a segment
+            for (int i = 1; i < 100; i++) {
+                List<Part<?>> parts = List.of(new TextPart("chunk-" + i));
+                expected = TaskUpdates.appendParts(expected, "artifact-1", parts);
+                store.appendParts(expected, "artifact-1", parts);
+            }
+            expected = TaskUpdates.updateStatus(expected, new TaskStatus(TaskState.COMPLETED));
+            store.updateStatus(expected);
+
+            assertEquals(json(expected), json(store.get("task-1")));
+            // The appended text chunks are merged into a single part
+            List<Part<?>> parts = store.get("task-1").getArtifacts().get(0).parts();
+            assertEquals(1, parts.size());
+            assertTrue(((TextPart) parts.get(0)).getText().endsWith("chunk-98chunk-99"));
+            assertEquals(2, store.get("task-1").getHistory().size());
+            assertTrue(store.compact() > 0);
+            assertEquals(json(expected), json(store.get("task-1")));
+        }
+        try (MappedLogTaskStore store = open()) {
+            assertEquals(json(expected), json(store.get("task-1")));
+        }
+    }
+
+    private static String json(Task task) throws IOException {
+        return Utils.OBJECT_MAPPER.writeValueAsString(task);
+    }
+
+    private MappedLogTaskStore open() throws IOException {
+        return new MappedLogTaskStore.Builder()
+                .directory(directory)
+                .segmentSize(1024)
+                .compactionInterval(null)
+                .maxDeltas(8)
+                .build();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
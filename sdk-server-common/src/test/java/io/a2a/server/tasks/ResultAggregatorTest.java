@@ -0,0 +1,171 @@
+package io.a2a.server.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.a2a.server.events.EventConsumer;
+import io.a2a.server.events.EventQueue;
+import io.a2a.server.events.InMemoryQueueManager;
+import io.a2a.spec.Event;
+import io.a2a.spec.EventKind;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TaskStatusUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+public class ResultAggregatorTest {
+
+    @Test
+    public void testOnlyMainConsumerPersistsEvents() {
+        InMemoryTaskStore taskStore = new InMemoryTaskStore();
+        InMemoryQueueManager queueManager = new InMemoryQueueManager();
+        EventQueue main = queueManager.createOrTap("task-1");
+        EventQueue tap = queueManager.createOrTap("task-1");
+        EventConsumer mainConsumer = new EventConsumer(main);
+        EventConsumer tapConsumer = new EventConsumer(tap);
+        assertFalse(mainConsumer.isTap());
+        assertTrue(tapConsumer.isTap());
+
+        main.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+        main.enqueueEvent(statusUpdate(TaskState.COMPLETED, true));
+
+        ResultAggregator persisting = new ResultAggregator(
+                new TaskManager("task-1", "session-xyz", taskStore, null), null);
+        ResultAggregator relaying = new ResultAggregator(
+                new TaskManager("task-1", "session-xyz", taskStore, null), null);
+        EventKind persisted = persisting.consumeAll(mainConsumer);
+        EventKind relayed = relaying.consumeAll(tapConsumer);
+
+        assertEquals(TaskState.COMPLETED, ((Task) persisted).getStatus().state());
+        assertEquals(TaskState.COMPLETED, ((Task) relayed).getStatus().state());
+        // One write for each event, by the main consumer only
+        assertEquals(2, taskStore.getVersioned("task-1").version());
+    }
+
+    @Test
+    public void testMainStreamPersistsAfterItsSubscriberCancels() {
+        InMemoryTaskStore taskStore = new InMemoryTaskStore();
+        InMemoryQueueManager queueManager = new InMemoryQueueManager();
+        EventQueue main = queueManager.createOrTap("task-1");
+        EventQueue tap = queueManager.createOrTap("task-1");
+
+        ResultAggregator persisting = new ResultAggregator(
+                new TaskManager("task-1", "session-xyz", taskStore, null), null);
+        List<Event> received = new ArrayList<>();
+        persisting.consumeAndEmit(new EventConsumer(main)).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                received.add(item);
+                // The client goes away mid-stream
+                subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        main.enqueueEvent(statusUpdate(TaskState.SUBMITTED, false));
+        main.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+        main.enqueueEvent(statusUpdate(TaskState.COMPLETED, true));
+        assertEquals(1, received.size());
+
+        ResultAggregator resubscribed = new ResultAggregator(
+                new TaskManager("task-1", "session-xyz", taskStore, null), null);
+        EventKind relayed = resubscribed.consumeAll(new EventConsumer(tap));
+        assertEquals(TaskState.COMPLETED, ((Task) relayed).getStatus().state());
+
+        VersionedTask stored = taskStore.getVersioned("task-1");
+        assertEquals(TaskState.COMPLETED, stored.task().getStatus().state());
+        // Written by the main stream only
+        assertEquals(3, stored.version());
+    }
+
+    @Test
+    public void testFailedWritesAreReported() {
+        // Fails to write the final state of the task
+        InMemoryTaskStore taskStore = new InMemoryTaskStore() {
+            @Override
+            public boolean compareAndSave(Task task, long expectedVersion) {
+                if (task.getStatus().state() == TaskState.COMPLETED) {
+                    throw new JdbcStoreException("Unable to save task " + task.getId());
+                }
+                return super.compareAndSave(task, expectedVersion);
+            }
+        };
+        InMemoryQueueManager queueManager = new InMemoryQueueManager();
+        EventQueue queue = queueManager.createOrTap("task-1");
+        queue.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+        queue.enqueueEvent(statusUpdate(TaskState.COMPLETED, true));
+
+        ResultAggregator blocking = new ResultAggregator(
+                new TaskManager("task-1", "session-xyz", taskStore, null), null);
+        assertThrows(JdbcStoreException.class, () -> blocking.consumeAll(new EventConsumer(queue)));
+
+        EventQueue streamed = queueManager.createOrTap("task-2");
+        streamed.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+        streamed.enqueueEvent(statusUpdate(TaskState.COMPLETED, true));
+        ResultAggregator streaming = new ResultAggregator(
+                new TaskManager("task-1", "session-xyz", taskStore, null), null);
+        List<Event> received = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        streaming.consumeAndEmit(new EventConsumer(streamed)).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.set(true);
+            }
+        });
+
+        // The events were passed on, but the stream fails instead of completing
+        assertEquals(2, received.size());
+        assertInstanceOf(JdbcStoreException.class, failure.get());
+        assertFalse(completed.get());
+    }
+
+    private static TaskStatusUpdateEvent statusUpdate(TaskState state, boolean isFinal) {
+        return new TaskStatusUpdateEvent.Builder()
+                .taskId("task-1")
+                .contextId("session-xyz")
+                .status(new TaskStatus(state))
+                .isFinal(isFinal)
+                .build();
+    }
+}
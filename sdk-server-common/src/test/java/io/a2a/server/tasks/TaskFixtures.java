@@ -0,0 +1,25 @@
+package io.a2a.server.tasks;
+
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+
+/**
+ * Tasks used by the task store tests.
+ */
+final class TaskFixtures {
+
+    private TaskFixtures() {
+    }
+
+    /**
+     * @return a task without history or artifacts, in the same context as the other fixtures
+     */
+    static Task task(String id, TaskState state) {
+        return new Task.Builder()
+                .id(id)
+                .contextId("session-xyz")
+                .status(new TaskStatus(state))
+                .build();
+    }
+}
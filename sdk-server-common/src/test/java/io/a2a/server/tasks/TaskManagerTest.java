@@ -1,16 +1,29 @@
 package io.a2a.server.tasks;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import io.a2a.server.util.async.SerialTaskExecutor;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Artifact;
+import io.a2a.spec.DataPart;
+import io.a2a.spec.Event;
 import io.a2a.spec.Message;
+import io.a2a.spec.Part;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskArtifactUpdateEvent;
 import io.a2a.spec.TaskState;
@@ -169,10 +182,170 @@ public class TaskManagerTest {
         assertSame(retrieved, saved);
     }
 
+    @Test
+    public void testConcurrentManagersDoNotLoseUpdates() throws Exception {
+        taskStore.save(minimalTask);
+        TaskManager other = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), taskStore, null);
+        // Both managers read the same version of the task
+        assertSame(minimalTask, taskManager.getTask());
+        assertSame(minimalTask, other.getTask());
+
+        taskManager.saveTaskEvent(new TaskArtifactUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .artifact(new Artifact.Builder()
+                        .artifactId("artifact-id")
+                        .parts(new TextPart("content"))
+                        .build())
+                .build());
+        Task saved = other.saveTaskEvent(new TaskStatusUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .status(new TaskStatus(TaskState.WORKING))
+                .isFinal(false)
+                .build());
+
+        // The status update was applied again on top of the artifact update
+        assertEquals(TaskState.WORKING, saved.getStatus().state());
+        assertEquals(1, saved.getArtifacts().size());
+        assertSame(saved, taskStore.get(minimalTask.getId()));
+        assertEquals(3, taskStore.getVersioned(minimalTask.getId()).version());
+    }
+
+    @Test
+    public void testTaskRemovedWhileBeingUpdatedIsNotRecreated() throws Exception {
+        taskManager.saveTaskEvent(new TaskArtifactUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .artifact(new Artifact.Builder()
+                        .artifactId("artifact-id")
+                        .parts(new TextPart("content"))
+                        .build())
+                .build());
+        // Removed behind the manager's back, for instance by another replica
+        taskStore.delete(minimalTask.getId());
+
+        assertThrows(A2AServerException.class, () -> taskManager.saveTaskEvent(new TaskStatusUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .status(new TaskStatus(TaskState.WORKING))
+                .isFinal(false)
+                .build()));
+        // A new task without the artifact was not saved in its place
+        assertNull(taskStore.get(minimalTask.getId()));
+    }
+
+    @Test
+    public void testUpdateWithMessageAppliesToLatestVersionOnConflict() throws Exception {
+        taskStore.save(minimalTask);
+        TaskManager other = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), taskStore, null);
+        assertSame(minimalTask, taskManager.getTask());
+        Message agentMessage = new Message.Builder()
+                .role(Message.Role.AGENT)
+                .parts(new TextPart("which one?"))
+                .messageId("agent-message")
+                .build();
+        other.saveTaskEvent(new TaskStatusUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .status(new TaskStatus(TaskState.INPUT_REQUIRED, agentMessage, null))
+                .isFinal(false)
+                .build());
+
+        Message userMessage = new Message.Builder()
+                .role(Message.Role.USER)
+                .parts(new TextPart("this one"))
+                .messageId("user-message")
+                .build();
+        // The manager still has the version without the status message
+        Task updated = taskManager.updateWithMessage(userMessage, minimalTask).toCompletableFuture().get();
+
+        // The status message of the latest version was moved to the history before the new message
+        assertEquals(List.of("agent-message", "user-message"),
+                updated.getHistory().stream().map(Message::getMessageId).toList());
+        assertEquals(TaskState.INPUT_REQUIRED, updated.getStatus().state());
+        assertSame(updated, taskStore.get(minimalTask.getId()));
+        assertEquals(3, taskStore.getVersioned(minimalTask.getId()).version());
+    }
+
+    @Test
+    public void testProcessDoesNotWaitForTheOtherChangesOfTheTask() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SerialTaskExecutor serialExecutor = new SerialTaskExecutor(executor);
+            TaskManager serialManager = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), taskStore,
+                    null, serialExecutor);
+            CountDownLatch release = new CountDownLatch(1);
+            // Another change of the task is in progress
+            serialExecutor.execute(minimalTask.getId(), () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            TaskStatusUpdateEvent event = new TaskStatusUpdateEvent.Builder()
+                    .taskId(minimalTask.getId())
+                    .contextId(minimalTask.getContextId())
+                    .status(new TaskStatus(TaskState.WORKING))
+                    .isFinal(false)
+                    .build();
+            CompletableFuture<Event> processed = serialManager.process(event).toCompletableFuture();
+            assertFalse(processed.isDone());
+            assertFalse(serialManager.whenProcessed().toCompletableFuture().isDone());
+            assertNull(taskStore.get(minimalTask.getId()));
+
+            release.countDown();
+            assertSame(event, processed.get(5, TimeUnit.SECONDS));
+            serialManager.whenProcessed().toCompletableFuture().get(5, TimeUnit.SECONDS);
+            assertEquals(TaskState.WORKING, taskStore.get(minimalTask.getId()).getStatus().state());
+            assertEquals(0, serialExecutor.getActiveTaskCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAppendedTextChunksAreMerged() throws Exception {
+        taskManager.saveTaskEvent(artifactEvent("artifact-1", false, new TextPart("first")));
+        taskManager.saveTaskEvent(artifactEvent("artifact-2", false, new TextPart("other")));
+        StringBuilder expected = new StringBuilder("first");
+        for (int i = 0; i < 1000; i++) {
+            taskManager.saveTaskEvent(artifactEvent("artifact-1", true, new TextPart("-" + i)));
+            expected.append("-").append(i);
+        }
+        taskManager.saveTaskEvent(artifactEvent("artifact-1", true, new DataPart(Map.of("key", "value"))));
+        Task task = taskManager.saveTaskEvent(artifactEvent("artifact-1", true, new TextPart("last")));
+
+        assertEquals(2, task.getArtifacts().size());
+        List<Part<?>> parts = task.getArtifacts().get(0).parts();
+        assertEquals(3, parts.size());
+        assertEquals(expected.toString(), ((TextPart) parts.get(0)).getText());
+        assertEquals("last", ((TextPart) parts.get(2)).getText());
+        assertEquals("other", ((TextPart) task.getArtifacts().get(1).parts().get(0)).getText());
+
+        Task roundTripped = Utils.unmarshalFrom(Utils.OBJECT_MAPPER.writeValueAsString(task), Task.TYPE_REFERENCE);
+        assertEquals(expected.toString(),
+                ((TextPart) roundTripped.getArtifacts().get(0).parts().get(0)).getText());
+    }
+
     @Test
     public void testGetTaskNoTaskId() {
         TaskManager taskManagerWithoutId = new TaskManager(null, null, taskStore, null);
         Task retrieved = taskManagerWithoutId.getTask();
         assertNull(retrieved);
     }
+
+    private TaskArtifactUpdateEvent artifactEvent(String artifactId, boolean append, Part<?> part) {
+        return new TaskArtifactUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .artifact(new Artifact.Builder()
+                        .artifactId(artifactId)
+                        .parts(part)
+                        .build())
+                .append(append)
+                .build();
+    }
 }
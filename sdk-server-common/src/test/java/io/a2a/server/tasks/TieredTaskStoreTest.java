@@ -0,0 +1,105 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TextPart;
+import io.a2a.util.Utils;
+import org.junit.jupiter.api.Test;
+
+public class TieredTaskStoreTest {
+
+    @Test
+    public void testFinalTasksAreSerializedOffHeap() throws Exception {
+        TieredTaskStore store = new TieredTaskStore.Builder().build();
+        Task working = largeTask("task-1", TaskState.WORKING);
+        store.save(working);
+        assertSame(working, store.get("task-1"));
+        assertEquals(1, store.getActiveCount());
+
+        Task completed = largeTask("task-1", TaskState.COMPLETED);
+        store.save(completed);
+        assertEquals(0, store.getActiveCount());
+        assertEquals(1, store.getFinishedCount());
+        Task read = store.get("task-1");
+        assertEquals(Utils.OBJECT_MAPPER.writeValueAsString(completed), Utils.OBJECT_MAPPER.writeValueAsString(read));
+
+        store.delete("task-1");
+        assertNull(store.get("task-1"));
+        assertNull(store.get("nonexistent"));
+    }
+
+    @Test
+    public void testCompareAndSaveChecksVersionAcrossTiers() {
+        TieredTaskStore store = new TieredTaskStore.Builder().build();
+        assertTrue(store.isVersioned());
+        assertTrue(store.compareAndSave(largeTask("task-1", TaskState.SUBMITTED), 0));
+        assertFalse(store.compareAndSave(largeTask("task-1", TaskState.WORKING), 0));
+        store.save(largeTask("task-1", TaskState.WORKING));
+        assertEquals(2, store.getVersioned("task-1").version());
+
+        // A finished task which loses the comparison is not stored
+        assertFalse(store.compareAndSave(largeTask("task-1", TaskState.COMPLETED), 1));
+        assertEquals(1, store.getActiveCount());
+        assertEquals(0, store.getFinishedCount());
+        assertEquals(TaskState.WORKING, store.get("task-1").getStatus().state());
+
+        assertTrue(store.compareAndSave(largeTask("task-1", TaskState.COMPLETED), 2));
+        assertEquals(0, store.getActiveCount());
+        assertEquals(1, store.getFinishedCount());
+        VersionedTask stored = store.getVersioned("task-1");
+        assertEquals(3, stored.version());
+        assertEquals(TaskState.COMPLETED, stored.task().getStatus().state());
+
+        store.delete("task-1");
+        assertNull(store.getVersioned("task-1"));
+        assertEquals(0, store.getFinishedCount());
+        assertTrue(store.compareAndSave(largeTask("task-1", TaskState.SUBMITTED), 0));
+    }
+
+    @Test
+    public void testReleasesAndCompactsArenas() {
+        TieredTaskStore store = new TieredTaskStore.Builder()
+                .arenaSize(4096)
+                .compress(false)
+                .build();
+        for (int i = 0; i < 40; i++) {
+            store.save(largeTask("task-" + i, TaskState.COMPLETED));
+        }
+        long allocated = store.getOffHeapBytes();
+        assertTrue(allocated > 4096);
+
+        // Keep one task in every four
+        for (int i = 0; i < 40; i++) {
+            if (i % 4 != 0) {
+                store.delete("task-" + i);
+            }
+        }
+        assertTrue(store.compact() > 0);
+        assertTrue(store.getOffHeapBytes() < allocated);
+        for (int i = 0; i < 40; i += 4) {
+            Task task = store.get("task-" + i);
+            assertEquals(TaskState.COMPLETED, task.getStatus().state());
+            assertEquals(500, ((TextPart) task.getArtifacts().get(0).parts().get(0)).getText().length());
+        }
+        assertEquals(10, store.getFinishedCount());
+    }
+
+    private static Task largeTask(String id, TaskState state) {
+        return new Task.Builder(task(id, state))
+                .artifacts(List.of(new Artifact.Builder()
+                        .artifactId("artifact-1")
+                        .parts(new TextPart("x".repeat(500)))
+                        .build()))
+                .build();
+    }
+}
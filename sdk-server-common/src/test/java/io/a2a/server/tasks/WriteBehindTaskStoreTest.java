@@ -0,0 +1,272 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import org.junit.jupiter.api.Test;
+
+public class WriteBehindTaskStoreTest {
+
+    @Test
+    public void testCoalescesSavesUntilFlush() {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            Task latest = null;
+            for (int i = 0; i < 100; i++) {
+                latest = task("task-1", TaskState.WORKING);
+                store.save(latest);
+            }
+            assertEquals(0, delegate.saves.get());
+            assertNull(delegate.get("task-1"));
+            assertSame(latest, store.get("task-1"));
+            assertEquals(1, store.getPendingCount());
+            assertEquals(99, store.getCoalescedCount());
+
+            store.flush();
+            assertEquals(1, delegate.saves.get());
+            assertSame(latest, delegate.get("task-1"));
+            assertEquals(0, store.getPendingCount());
+            assertSame(latest, store.get("task-1"));
+        }
+    }
+
+    @Test
+    public void testFinalStateAndDeleteAreWrittenImmediately() throws Exception {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            store.save(task("task-1", TaskState.WORKING));
+            store.save(task("task-1", TaskState.COMPLETED));
+            assertTrue(delegate.finalSaves.await(5, TimeUnit.SECONDS));
+            assertEquals(TaskState.COMPLETED, delegate.get("task-1").getStatus().state());
+            // Waits for the write of the flusher, and does not write the version again
+            store.flush();
+            assertEquals(1, delegate.saves.get());
+            assertEquals(0, store.getPendingCount());
+
+            store.save(task("task-2", TaskState.WORKING));
+            store.delete("task-2");
+            assertNull(store.get("task-2"));
+            assertNull(delegate.get("task-2"));
+            store.flush();
+            assertNull(delegate.get("task-2"));
+        }
+    }
+
+    @Test
+    public void testFinalStateIsNotHeldUpByAWriteInProgress() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingTaskStore delegate = new CountingTaskStore() {
+            @Override
+            public void save(Task task) {
+                if (task.getId().equals("slow")) {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.save(task);
+            }
+        };
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            store.save(task("slow", TaskState.WORKING));
+            Thread flushing = new Thread(store::flush);
+            flushing.start();
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // Neither the saving thread nor the write wait for the flush holding up another task
+            store.save(task("task-1", TaskState.COMPLETED));
+            assertTrue(delegate.finalSaves.await(5, TimeUnit.SECONDS));
+            assertEquals(TaskState.COMPLETED, delegate.get("task-1").getStatus().state());
+            assertEquals(TaskState.WORKING, store.get("slow").getStatus().state());
+            assertNull(delegate.get("slow"));
+
+            release.countDown();
+            flushing.join();
+            assertEquals(TaskState.WORKING, delegate.get("slow").getStatus().state());
+            store.flush();
+            assertEquals(2, delegate.saves.get());
+            assertEquals(0, store.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testListFlushesPendingVersions() {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            assertTrue(store.isListable());
+            store.save(task("task-1", TaskState.WORKING));
+            store.save(task("task-2", TaskState.WORKING));
+
+            ListTasksResult result = store.list(new ListTasksParams.Builder().state(TaskState.WORKING).build());
+            // Created in the order they were flushed
+            assertEquals(Set.of("task-1", "task-2"),
+                    result.tasks().stream().map(Task::getId).collect(Collectors.toSet()));
+            assertEquals(0, store.getPendingCount());
+        }
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(new TieredTaskStore.Builder().build())
+                .flushInterval(null)
+                .build()) {
+            assertFalse(store.isListable());
+        }
+    }
+
+    @Test
+    public void testCompareAndSaveChecksThePendingVersion() {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            assertTrue(store.isVersioned());
+            store.save(task("task-1", TaskState.SUBMITTED));
+            assertEquals(1, store.getPendingCount());
+            // Reading the version writes the pending save, which is not versioned
+            assertEquals(1, store.getVersioned("task-1").version());
+            assertEquals(0, store.getPendingCount());
+
+            // Compare-and-save only reads the version of the delegate the first time
+            assertTrue(store.compareAndSave(task("task-1", TaskState.WORKING), 1));
+            assertTrue(store.compareAndSave(task("task-1", TaskState.WORKING), 2));
+            assertFalse(store.compareAndSave(task("task-1", TaskState.WORKING), 2));
+            // A pending save makes a comparison against the version read before it fail
+            store.save(task("task-1", TaskState.INPUT_REQUIRED));
+            assertFalse(store.compareAndSave(task("task-1", TaskState.WORKING), 3));
+            VersionedTask pending = store.getVersioned("task-1");
+            assertEquals(4, pending.version());
+            assertEquals(TaskState.INPUT_REQUIRED, pending.task().getStatus().state());
+            assertEquals(1, delegate.saves.get());
+
+            store.flush();
+            assertEquals(2, delegate.saves.get());
+            VersionedTask stored = delegate.getVersioned("task-1");
+            assertEquals(2, stored.version());
+            assertEquals(TaskState.INPUT_REQUIRED, stored.task().getStatus().state());
+            // The versions of the store keep counting the coalesced saves
+            assertEquals(4, store.getVersioned("task-1").version());
+            assertFalse(store.compareAndSave(task("task-1", TaskState.WORKING), 2));
+            assertTrue(store.compareAndSave(task("task-1", TaskState.WORKING), 4));
+            assertEquals(0, store.getConflictCount());
+        }
+    }
+
+    @Test
+    public void testPendingVersionSavedByAnotherWriterIsDropped() {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            assertTrue(store.compareAndSave(task("task-1", TaskState.WORKING), 0));
+            // Created by another replica before the pending version is written
+            delegate.save(task("task-1", TaskState.INPUT_REQUIRED));
+
+            store.flush();
+            assertEquals(1, store.getConflictCount());
+            assertEquals(0, store.getPendingCount());
+            VersionedTask stored = store.getVersioned("task-1");
+            assertEquals(TaskState.INPUT_REQUIRED, stored.task().getStatus().state());
+            // The version of the dropped one is not reported again
+            assertEquals(2, stored.version());
+            assertFalse(store.compareAndSave(task("task-1", TaskState.WORKING), 1));
+            assertTrue(store.compareAndSave(task("task-1", TaskState.WORKING), 2));
+        }
+    }
+
+    @Test
+    public void testFlushesWhenTooManyTasksArePending() throws Exception {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .maxPendingTasks(2)
+                .build()) {
+            store.save(task("task-1", TaskState.WORKING));
+            store.save(task("task-2", TaskState.WORKING));
+            assertEquals(0, delegate.saves.get());
+            store.save(task("task-3", TaskState.WORKING));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (delegate.saves.get() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, delegate.saves.get());
+        }
+    }
+
+    @Test
+    public void testFailedWriteStaysPending() {
+        CountingTaskStore delegate = new CountingTaskStore();
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore.Builder()
+                .delegate(delegate)
+                .flushInterval(null)
+                .build()) {
+            store.save(task("task-1", TaskState.WORKING));
+            delegate.failing.set(true);
+            assertThrows(IllegalStateException.class, store::flush);
+            assertEquals(1, store.getPendingCount());
+
+            delegate.failing.set(false);
+            store.flush();
+            assertEquals(0, store.getPendingCount());
+            assertEquals(TaskState.WORKING, delegate.get("task-1").getStatus().state());
+        }
+    }
+
+    private static class CountingTaskStore extends InMemoryTaskStore {
+        private final AtomicInteger saves = new AtomicInteger();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        private final CountDownLatch finalSaves = new CountDownLatch(1);
+
+        @Override
+        public void save(Task task) {
+            if (failing.get()) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            saves.incrementAndGet();
+            super.save(task);
+            if (task.getStatus().state().isFinal()) {
+                finalSaves.countDown();
+            }
+        }
+
+        @Override
+        public boolean compareAndSave(Task task, long expectedVersion) {
+            if (failing.get()) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            saves.incrementAndGet();
+            return super.compareAndSave(task, expectedVersion);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.a2a.server.util.async;
 
 import static io.a2a.server.util.async.AsyncUtils.consumer;
+import static io.a2a.server.util.async.AsyncUtils.consumerAsync;
 import static io.a2a.server.util.async.AsyncUtils.convertingProcessor;
 import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
 import static io.a2a.server.util.async.AsyncUtils.processor;
@@ -8,13 +9,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -690,5 +694,192 @@ public class AsyncUtilsTest {
         latch.await(2, TimeUnit.SECONDS);
         assertEquals(6, results.size());
     }
-    
+
+    @Test
+    public void testConsumerRequestsInBatches() {
+        List<Long> requests = new ArrayList<>();
+        AtomicReference<Flow.Subscriber<? super Integer>> subscriber = new AtomicReference<>();
+        Flow.Publisher<Integer> publisher = s -> {
+            subscriber.set(s);
+            s.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requests.add(n);
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+
+        List<Integer> received = new ArrayList<>();
+        CompletableFuture<Void> done = consumerAsync(createTubeConfig(), publisher, i -> received.add(i), t -> {}, 8);
+        for (int i = 0; i < 12; i++) {
+            subscriber.get().onNext(i);
+        }
+        subscriber.get().onComplete();
+
+        assertTrue(done.isDone());
+        assertEquals(12, received.size());
+        // The prefetch, then a batch each time only a quarter of it is outstanding
+        assertEquals(List.of(8L, 6L, 6L), requests);
+    }
+
+    @Test
+    public void testProcessorStopsRequestingWhenItsBufferIsFull() {
+        List<Long> requests = new ArrayList<>();
+        StreamConfig config = new StreamConfig.Builder().bufferSize(8).prefetch(4).maxBufferedBytes(0).build();
+        StreamMetrics metrics = new StreamMetrics();
+        AtomicInteger sized = new AtomicInteger();
+        Flow.Publisher<Integer> processed = processor(config, metrics, countingPublisher(1000, requests),
+                i -> sized.incrementAndGet(), (errorConsumer, i) -> true);
+
+        List<Integer> received = new ArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        processed.subscribe(collectingSubscriber(subscription, received));
+
+        // Nothing was requested downstream, so the stage fills up and stops requesting
+        assertEquals(8, requests.stream().mapToLong(Long::longValue).sum());
+        assertEquals(8, metrics.getBuffered());
+        assertEquals(1, metrics.getBlocked());
+
+        subscription.get().request(5);
+        assertEquals(List.of(0, 1, 2, 3, 4), received);
+        assertEquals(13, requests.stream().mapToLong(Long::longValue).sum());
+        assertEquals(8, metrics.getBuffered());
+        assertEquals(5, metrics.getEmitted());
+        // Each item is sized once, when it is held
+        assertEquals(13, sized.get());
+
+        subscription.get().cancel();
+        assertEquals(0, metrics.getBuffered());
+        assertEquals(0, metrics.getBufferedBytes());
+        assertEquals(8, metrics.getDropped());
+    }
+
+    @Test
+    public void testProcessorFailsWhenTheSourceSendsMoreThanRequested() {
+        StreamConfig config = new StreamConfig.Builder().bufferSize(2).prefetch(2).maxBufferedBytes(0).build();
+        StreamMetrics metrics = new StreamMetrics();
+        AtomicReference<Flow.Subscriber<? super Integer>> source = new AtomicReference<>();
+        Flow.Publisher<Integer> publisher = s -> {
+            source.set(s);
+            s.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        processor(config, metrics, publisher, i -> 0, (errorConsumer, i) -> true).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            source.get().onNext(i);
+        }
+        assertEquals(2, metrics.getBuffered());
+        subscription.get().request(2);
+        assertInstanceOf(IllegalStateException.class, failure.get());
+        assertEquals(0, metrics.getBuffered());
+    }
+
+    @Test
+    public void testProcessorKeepsWithinItsByteBudget() throws Exception {
+        List<Long> requests = new ArrayList<>();
+        StreamConfig config = new StreamConfig.Builder().bufferSize(100).prefetch(10).maxBufferedBytes(250).build();
+        StreamMetrics metrics = new StreamMetrics();
+        Flow.Publisher<Integer> processed = processor(config, metrics, countingPublisher(20, requests),
+                i -> 100, (errorConsumer, i) -> true);
+
+        List<Integer> received = new ArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        processed.subscribe(collectingSubscriber(subscription, received));
+
+        // One item to learn their size, then only as many as fit in the budget
+        assertEquals(List.of(1L, 1L), requests);
+        assertEquals(200, metrics.getBufferedBytes());
+        assertEquals(1, metrics.getBlocked());
+
+        subscription.get().request(Long.MAX_VALUE);
+        assertEquals(20, received.size());
+        assertEquals(0, metrics.getBufferedBytes());
+        assertEquals(20, metrics.getEmitted());
+    }
+
+    // Emits the requested numbers up to the count on the requesting thread, then completes
+    private static Flow.Publisher<Integer> countingPublisher(int count, List<Long> requests) {
+        return subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+            private int next;
+            private boolean emitting;
+            private long pending;
+
+            @Override
+            public void request(long n) {
+                requests.add(n);
+                pending += n;
+                if (emitting) {
+                    return;
+                }
+                emitting = true;
+                while (pending > 0 && next < count) {
+                    pending--;
+                    subscriber.onNext(next++);
+                }
+                emitting = false;
+                if (next == count) {
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+    }
+
+    private static <T> Flow.Subscriber<T> collectingSubscriber(AtomicReference<Flow.Subscription> subscription,
+                                                               List<T> received) {
+        return new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(T item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
 }
@@ -0,0 +1,178 @@
+package io.a2a.server.util.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SerialTaskExecutorTest {
+
+    private ExecutorService pool;
+    private SerialTaskExecutor serialExecutor;
+
+    @BeforeEach
+    public void init() {
+        pool = Executors.newCachedThreadPool();
+        serialExecutor = new SerialTaskExecutor(pool);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testRunsTheWorkOfATaskInOrder() throws Exception {
+        int works = SerialTaskExecutor.MAX_BATCH * 4;
+        List<Integer> ran = new ArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(works);
+        for (int i = 0; i < works; i++) {
+            int work = i;
+            serialExecutor.execute("task", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                ran.add(work);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < works; i++) {
+            assertEquals(i, ran.get(i));
+        }
+    }
+
+    @Test
+    public void testSubmissionsFromManyThreadsAreSerialized() throws Exception {
+        int threads = 8;
+        int submissions = 500;
+        int[] counter = new int[1];
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> results = new CopyOnWriteArrayList<>();
+        List<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread submitter = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < submissions; j++) {
+                    // Not atomic, so concurrent works would lose increments
+                    results.add(serialExecutor.submit("task", () -> counter[0]++).toCompletableFuture());
+                }
+            });
+            submitter.start();
+            submitters.add(submitter);
+        }
+        start.countDown();
+        for (Thread submitter : submitters) {
+            submitter.join(10_000);
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(threads * submissions, counter[0]);
+        assertEquals(0, serialExecutor.getActiveTaskCount());
+    }
+
+    @Test
+    public void testTasksRunInParallel() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        serialExecutor.execute("slow", () -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        // Another task is not held up by the blocked one, and runs on the submitting thread
+        CompletableFuture<String> fast = serialExecutor.submit("fast", () -> "done").toCompletableFuture();
+        assertEquals("done", fast.getNow(null));
+        assertEquals(1, serialExecutor.getActiveTaskCount());
+
+        // Queued behind the blocked work, without waiting for it
+        CompletableFuture<String> after = serialExecutor.submit("slow", () -> "after").toCompletableFuture();
+        assertFalse(after.isDone());
+        release.countDown();
+        assertEquals("after", after.get(5, TimeUnit.SECONDS));
+        assertEquals(0, serialExecutor.getActiveTaskCount());
+    }
+
+    @Test
+    public void testWorkSubmittedFromTheSameTaskRunsAfterIt() throws Exception {
+        List<String> ran = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<String>> inner = new ArrayList<>();
+        CompletableFuture<String> outer = serialExecutor.submit("task", () -> {
+            inner.add(serialExecutor.submit("task", () -> {
+                ran.add("inner");
+                return "inner";
+            }).toCompletableFuture());
+            ran.add("outer");
+            return "outer";
+        }).toCompletableFuture();
+        assertEquals("outer", outer.getNow(null));
+        assertEquals("inner", inner.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("outer", "inner"), ran);
+        assertEquals(0, serialExecutor.getActiveTaskCount());
+    }
+
+    @Test
+    public void testSubmitCompletesWithTheFailureOfTheWork() throws Exception {
+        CompletableFuture<Object> failed = serialExecutor.submit("task", () -> {
+            throw new IllegalStateException("failed");
+        }).toCompletableFuture();
+        ExecutionException thrown = assertThrows(ExecutionException.class, failed::get);
+        assertEquals("failed", thrown.getCause().getMessage());
+        // The mailbox is still usable
+        assertEquals(1, serialExecutor.submit("task", () -> 1).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(0, serialExecutor.getActiveTaskCount());
+    }
+
+    @Test
+    public void testResultsCompleteInSubmissionOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        serialExecutor.execute("task", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> dependents = new ArrayList<>();
+        for (int i = 0; i < SerialTaskExecutor.MAX_BATCH * 2; i++) {
+            int work = i;
+            dependents.add(serialExecutor.submit("task", () -> work)
+                    .thenAccept(completed::add)
+                    .toCompletableFuture());
+        }
+        release.countDown();
+        CompletableFuture.allOf(dependents.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < dependents.size(); i++) {
+            assertEquals(i, completed.get(i));
+        }
+    }
+}
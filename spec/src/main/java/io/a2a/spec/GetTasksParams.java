@@ -0,0 +1,36 @@
+package io.a2a.spec;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.a2a.util.Assert;
+
+/**
+ * Parameters for getting several tasks at once.
+ *
+ * @param ids the IDs of the tasks to get
+ * @param historyLength the maximum number of items of history for each task to include in the response
+ * @param metadata additional properties
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GetTasksParams(List<String> ids, Integer historyLength, Map<String, Object> metadata) {
+
+    public GetTasksParams {
+        Assert.checkNotNullParam("ids", ids);
+        if (historyLength != null && historyLength < 0) {
+            throw new IllegalArgumentException("Invalid history length");
+        }
+        ids = List.copyOf(ids);
+    }
+
+    public GetTasksParams(List<String> ids) {
+        this(ids, null, null);
+    }
+
+    public GetTasksParams(List<String> ids, Integer historyLength) {
+        this(ids, historyLength, null);
+    }
+}
@@ -0,0 +1,77 @@
+package io.a2a.spec;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.a2a.util.Assert;
+import io.a2a.util.Utils;
+
+/**
+ * A request for getting several tasks at once.
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class GetTasksRequest extends NonStreamingJSONRPCRequest<GetTasksParams> {
+
+    public static final String METHOD = "tasks/getAll";
+
+    @JsonCreator
+    public GetTasksRequest(@JsonProperty("jsonrpc") String jsonrpc, @JsonProperty("id") Object id,
+                            @JsonProperty("method") String method, @JsonProperty("params") GetTasksParams params) {
+        if (jsonrpc != null && ! jsonrpc.equals(JSONRPC_VERSION)) {
+            throw new IllegalArgumentException("Invalid JSON-RPC protocol version");
+        }
+        Assert.checkNotNullParam("method", method);
+        if (! method.equals(METHOD)) {
+            throw new IllegalArgumentException("Invalid GetTasksRequest method");
+        }
+        Assert.checkNotNullParam("params", params);
+        Assert.isNullOrStringOrInteger(id);
+        this.jsonrpc = Utils.defaultIfNull(jsonrpc, JSONRPC_VERSION);
+        this.id = id;
+        this.method = method;
+        this.params = params;
+    }
+
+    public GetTasksRequest(String id, GetTasksParams params) {
+        this(null, id, METHOD, params);
+    }
+
+    public static class Builder {
+        private String jsonrpc;
+        private Object id;
+        private String method = METHOD;
+        private GetTasksParams params;
+
+        public Builder jsonrpc(String jsonrpc) {
+            this.jsonrpc = jsonrpc;
+            return this;
+        }
+
+        public Builder id(Object id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder method(String method) {
+            this.method = method;
+            return this;
+        }
+
+        public Builder params(GetTasksParams params) {
+            this.params = params;
+            return this;
+        }
+
+        public GetTasksRequest build() {
+            if (id == null) {
+                id = UUID.randomUUID().toString();
+            }
+            return new GetTasksRequest(jsonrpc, id, method, params);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.a2a.spec;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A response for a get tasks request, holding the tasks which were found in the order of the requested IDs.
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class GetTasksResponse extends JSONRPCResponse<List<Task>> {
+
+    @JsonCreator
+    public GetTasksResponse(@JsonProperty("jsonrpc") String jsonrpc, @JsonProperty("id") Object id,
+                            @JsonProperty("result") List<Task> result,
+                            @JsonProperty("error") JSONRPCError error) {
+        super(jsonrpc, id, result, error, (Class<List<Task>>) (Class<?>) List.class);
+    }
+
+    public GetTasksResponse(Object id, JSONRPCError error) {
+        this(null, id, null, error);
+    }
+
+    public GetTasksResponse(Object id, List<Task> result) {
+        this(null, id, result, null);
+    }
+}
@@ -0,0 +1,95 @@
+package io.a2a.spec;
+
+import java.time.Instant;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Parameters for listing the tasks matching some criteria, oldest first.
+ *
+ * @param contextId only list the tasks of this context, if not null
+ * @param state only list the tasks in this state, if not null
+ * @param createdAfter only list the tasks created at or after this time, if not null
+ * @param createdBefore only list the tasks created before this time, if not null
+ * @param pageSize the maximum number of tasks to return
+ * @param pageToken the {@link ListTasksResult#nextPageToken()} of the previous page, or null for the first page
+ * @param metadata additional properties
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ListTasksParams(String contextId, TaskState state,
+                              @JsonFormat(shape = JsonFormat.Shape.STRING) Instant createdAfter,
+                              @JsonFormat(shape = JsonFormat.Shape.STRING) Instant createdBefore,
+                              Integer pageSize, String pageToken, Map<String, Object> metadata) {
+
+    public ListTasksParams {
+        if (pageSize != null && pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+    }
+
+    public static class Builder {
+        private String contextId;
+        private TaskState state;
+        private Instant createdAfter;
+        private Instant createdBefore;
+        private Integer pageSize;
+        private String pageToken;
+        private Map<String, Object> metadata;
+
+        public Builder() {
+        }
+
+        public Builder(ListTasksParams params) {
+            contextId = params.contextId;
+            state = params.state;
+            createdAfter = params.createdAfter;
+            createdBefore = params.createdBefore;
+            pageSize = params.pageSize;
+            pageToken = params.pageToken;
+            metadata = params.metadata;
+        }
+
+        public Builder contextId(String contextId) {
+            this.contextId = contextId;
+            return this;
+        }
+
+        public Builder state(TaskState state) {
+            this.state = state;
+            return this;
+        }
+
+        public Builder createdAfter(Instant createdAfter) {
+            this.createdAfter = createdAfter;
+            return this;
+        }
+
+        public Builder createdBefore(Instant createdBefore) {
+            this.createdBefore = createdBefore;
+            return this;
+        }
+
+        public Builder pageSize(Integer pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder pageToken(String pageToken) {
+            this.pageToken = pageToken;
+            return this;
+        }
+
+        public Builder metadata(Map<String, Object> metadata) {
+            this.metadata = metadata;
+            return this;
+        }
+
+        public ListTasksParams build() {
+            return new ListTasksParams(contextId, state, createdAfter, createdBefore, pageSize, pageToken, metadata);
+        }
+    }
+}
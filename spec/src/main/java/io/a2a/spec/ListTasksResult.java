@@ -0,0 +1,23 @@
+package io.a2a.spec;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.a2a.util.Assert;
+
+/**
+ * A page of tasks.
+ *
+ * @param tasks the tasks of the page
+ * @param nextPageToken the token to pass to get the next page, or null if this is the last page
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ListTasksResult(List<Task> tasks, String nextPageToken) {
+
+    public ListTasksResult {
+        Assert.checkNotNullParam("tasks", tasks);
+    }
+}
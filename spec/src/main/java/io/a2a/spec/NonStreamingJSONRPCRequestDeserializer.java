@@ -48,6 +48,15 @@ public class NonStreamingJSONRPCRequestDeserializer extends JSONRPCRequestDeseri
             case DeleteTaskPushNotificationConfigRequest.METHOD:
                 return new DeleteTaskPushNotificationConfigRequest(jsonrpc, id, method,
                         getAndValidateParams(paramsNode, jsonParser, treeNode, DeleteTaskPushNotificationConfigParams.class));
+            case ListTasksRequest.METHOD:
+                return new ListTasksRequest(jsonrpc, id, method,
+                        getAndValidateParams(paramsNode, jsonParser, treeNode, ListTasksParams.class));
+            case GetTasksRequest.METHOD:
+                if (paramsNode == null || paramsNode.isNull()) {
+                    throw new InvalidParamsJsonMappingException("Missing params", getIdIfPossible(treeNode, jsonParser));
+                }
+                return new GetTasksRequest(jsonrpc, id, method,
+                        getAndValidateParams(paramsNode, jsonParser, treeNode, GetTasksParams.class));
             default:
                 throw new MethodNotFoundJsonMappingException("Invalid method", getIdIfPossible(treeNode, jsonParser));
         }
@@ -9,6 +9,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
 import io.a2a.util.Assert;
+import io.a2a.util.PersistentList;
 
 /**
  * A central unit of work.
@@ -47,8 +48,9 @@ public final class Task implements EventKind, StreamingEventKind {
         this.id = id;
         this.contextId = contextId;
         this.status = status;
-        this.artifacts = artifacts;
-        this.history = history;
+        // Persistent, so that appending to them shares the existing elements
+        this.artifacts = PersistentList.copyOfNullable(artifacts);
+        this.history = PersistentList.copyOfNullable(history);
         this.metadata = metadata;
         this.kind = kind;
     }
@@ -0,0 +1,170 @@
+package io.a2a.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list whose modified copies share most of their structure with the original.
+ * <p>
+ * The elements are kept in a tree of 32 element arrays plus a tail array, so that {@link #plus(Object)} and
+ * {@link #with(int, Object)} only copy the tail or the path to the changed element, which is O(log n) with a base of
+ * 32, instead of the whole list.
+ *
+ * @param <E> the type of the elements
+ */
+public final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private static final PersistentList<?> EMPTY = new PersistentList<>(0, BITS, new Object[WIDTH], NO_ELEMENTS);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentList(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * @return the list itself if it is a {@code PersistentList}, otherwise a copy of it
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentList<?> list) {
+            return (PersistentList<E>) list;
+        }
+        return PersistentList.<E>empty().plusAll(elements);
+    }
+
+    /**
+     * @return the list as a {@code PersistentList}, or {@code null} if it is {@code null}
+     */
+    public static <E> List<E> copyOfNullable(List<E> elements) {
+        return elements == null ? null : copyOf(elements);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of this list with the element appended
+     */
+    public PersistentList<E> plus(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentList<>(size + 1, shift, root, newTail);
+        }
+        // The tail is full, move it into the tree
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentList<>(size + 1, newShift, newRoot, new Object[] {element});
+    }
+
+    /**
+     * @return a copy of this list with the elements appended
+     */
+    public PersistentList<E> plusAll(Collection<? extends E> elements) {
+        PersistentList<E> list = this;
+        for (E element : elements) {
+            list = list.plus(element);
+        }
+        return list;
+    }
+
+    /**
+     * @return a copy of this list with the element at the index replaced
+     */
+    public PersistentList<E> with(int index, E element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentList<>(size, shift, root, newTail);
+        }
+        return new PersistentList<>(size, shift, with(shift, root, index, element), tail);
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int index = ((size - 1) >>> level) & MASK;
+        Object[] node = parent.clone();
+        if (level == BITS) {
+            node[index] = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[index];
+            node[index] = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    private static Object[] with(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = with(level - BITS, (Object[]) node[child], index, element);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,48 @@
+package io.a2a.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PersistentListTest {
+
+    @Test
+    public void testAppendAndReplaceMatchArrayList() {
+        PersistentList<Integer> list = PersistentList.empty();
+        List<Integer> expected = new ArrayList<>();
+        // Enough elements for a tree of three levels
+        for (int i = 0; i < 40_000; i++) {
+            list = list.plus(i);
+            expected.add(i);
+        }
+        assertEquals(expected, list);
+        for (int i = 0; i < expected.size(); i += 97) {
+            list = list.with(i, -i);
+            expected.set(i, -i);
+        }
+        list = list.with(expected.size() - 1, 42);
+        expected.set(expected.size() - 1, 42);
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+    }
+
+    @Test
+    public void testCopiesDoNotChangeOriginal() {
+        PersistentList<String> original = PersistentList.copyOf(List.of("a", "b", "c"));
+        PersistentList<String> appended = original.plus("d");
+        PersistentList<String> replaced = original.with(1, "x");
+
+        assertEquals(List.of("a", "b", "c"), original);
+        assertEquals(List.of("a", "b", "c", "d"), appended);
+        assertEquals(List.of("a", "x", "c"), replaced);
+        assertSame(original, PersistentList.copyOf(original));
+        assertThrows(UnsupportedOperationException.class, () -> original.add("e"));
+        assertThrows(IndexOutOfBoundsException.class, () -> original.get(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> original.with(-1, "e"));
+    }
+}